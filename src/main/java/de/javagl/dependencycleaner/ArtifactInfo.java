@@ -29,7 +29,11 @@ package de.javagl.dependencycleaner;
 import java.util.Objects;
 
 /**
- * POJO summarizing an artifact
+ * POJO summarizing an artifact.<br>
+ * <br>
+ * Two instances are equal if they are of the same class and have the 
+ * same group ID, artifact ID and version. Canonical instances may be 
+ * obtained from an {@link ArtifactInfoPool}.
  */
 class ArtifactInfo
 {
@@ -48,6 +52,11 @@ class ArtifactInfo
      */
     private final String version;
     
+    /**
+     * The hash code
+     */
+    private final int hashCode;
+    
     /**
      * Create a new instance
      * 
@@ -63,6 +72,7 @@ class ArtifactInfo
             artifactId, "The artifactId may not be null");
         this.version = Objects.requireNonNull(
             version, "The version may not be null");
+        this.hashCode = Objects.hash(groupId, artifactId, version);
     }
     
     /**
@@ -95,6 +105,30 @@ class ArtifactInfo
         return version;
     }
     
+    @Override
+    public int hashCode()
+    {
+        return hashCode;
+    }
+    
+    @Override
+    public boolean equals(Object object)
+    {
+        if (this == object)
+        {
+            return true;
+        }
+        if (object == null || getClass() != object.getClass())
+        {
+            return false;
+        }
+        ArtifactInfo other = (ArtifactInfo)object;
+        return hashCode == other.hashCode
+            && groupId.equals(other.groupId)
+            && artifactId.equals(other.artifactId)
+            && version.equals(other.version);
+    }
+    
     @Override
     public String toString()
     {
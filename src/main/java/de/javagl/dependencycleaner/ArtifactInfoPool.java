@@ -0,0 +1,113 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A pool of canonical {@link ArtifactInfo} objects.<br>
+ * <br>
+ * For each combination of group ID, artifact ID and version, the pool
+ * contains a single {@link ArtifactInfo}, and each of these strings is
+ * only stored once. So the objects that are obtained from the same pool 
+ * may be compared by their identity, and do not occupy additional 
+ * memory when the same artifact appears many times, for example, in 
+ * the dependency trees of many artifacts.<br>
+ * <br>
+ * The pool is usually created for one computation, like building the
+ * dependency graph or scanning the local repository, and the objects
+ * that it contains become unreachable together with the pool and the
+ * results of the computation.<br>
+ * <br>
+ * This class is thread-safe.
+ */
+class ArtifactInfoPool
+{
+    /**
+     * The canonical strings
+     */
+    private final Map<String, String> strings;
+    
+    /**
+     * The canonical {@link ArtifactInfo} objects
+     */
+    private final Map<ArtifactInfo, ArtifactInfo> artifactInfos;
+    
+    /**
+     * Creates a new, empty pool
+     */
+    ArtifactInfoPool()
+    {
+        this.strings = new ConcurrentHashMap<String, String>();
+        this.artifactInfos = 
+            new ConcurrentHashMap<ArtifactInfo, ArtifactInfo>();
+    }
+    
+    /**
+     * Returns the canonical {@link ArtifactInfo} for the given coordinates
+     * 
+     * @param groupId The group ID
+     * @param artifactId The artifact ID
+     * @param version The version
+     * @return The {@link ArtifactInfo}
+     */
+    ArtifactInfo get(String groupId, String artifactId, String version)
+    {
+        ArtifactInfo artifactInfo = 
+            new ArtifactInfo(groupId, artifactId, version);
+        ArtifactInfo existing = artifactInfos.get(artifactInfo);
+        if (existing != null)
+        {
+            return existing;
+        }
+        artifactInfo = new ArtifactInfo(
+            intern(groupId), intern(artifactId), intern(version));
+        existing = artifactInfos.putIfAbsent(artifactInfo, artifactInfo);
+        if (existing != null)
+        {
+            return existing;
+        }
+        return artifactInfo;
+    }
+    
+    /**
+     * Returns the canonical instance of the given string
+     * 
+     * @param string The string
+     * @return The canonical string
+     */
+    private String intern(String string)
+    {
+        String existing = strings.putIfAbsent(string, string);
+        if (existing != null)
+        {
+            return existing;
+        }
+        return string;
+    }
+}
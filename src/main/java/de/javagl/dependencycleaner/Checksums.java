@@ -0,0 +1,239 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+/**
+ * Methods for verifying files against the <code>.sha1</code> or 
+ * <code>.md5</code> checksum files that Maven stores next to the 
+ * artifacts in the local repository.<br>
+ * <br>
+ * The message digests and the buffers for reading files are kept 
+ * per thread, and re-used for all files that are verified on the
+ * same thread.
+ */
+class Checksums
+{
+    /**
+     * The size of the buffer for reading files
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    /**
+     * The SHA-1 message digest for each thread
+     */
+    private static final ThreadLocal<MessageDigest> SHA1 = 
+        ThreadLocal.withInitial(() -> createMessageDigest("SHA-1"));
+
+    /**
+     * The MD5 message digest for each thread
+     */
+    private static final ThreadLocal<MessageDigest> MD5 = 
+        ThreadLocal.withInitial(() -> createMessageDigest("MD5"));
+    
+    /**
+     * The direct buffer for reading files, for each thread
+     */
+    private static final ThreadLocal<ByteBuffer> BUFFER = 
+        ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+    
+    /**
+     * Verify the contents of the file with the given path against the 
+     * checksum that is stored next to it. <br>
+     * <br>
+     * Returns <code>null</code> if there is no checksum file, or it cannot
+     * be read. Otherwise, returns whether the checksum matches.
+     * 
+     * @param path The path
+     * @return Whether the checksum matches
+     * @throws IOException If the file could not be read
+     */
+    static Boolean verify(Path path) throws IOException
+    {
+        return verify(path, null);
+    }
+    
+    /**
+     * Verify the given contents of the file with the given path against 
+     * the checksum that is stored next to it. <br>
+     * <br>
+     * Returns <code>null</code> if there is no checksum file, or it cannot
+     * be read. Otherwise, returns whether the checksum matches.
+     * 
+     * @param path The path
+     * @param contents The contents of the file. If this is 
+     * <code>null</code>, then the contents will be read from the file.
+     * The position and limit of the given buffer will not be changed.
+     * @return Whether the checksum matches
+     * @throws IOException If the file could not be read
+     */
+    static Boolean verify(Path path, ByteBuffer contents) 
+        throws IOException
+    {
+        MessageDigest messageDigest = SHA1.get();
+        String expected = readChecksum(path, ".sha1");
+        if (expected == null)
+        {
+            messageDigest = MD5.get();
+            expected = readChecksum(path, ".md5");
+        }
+        if (expected == null)
+        {
+            return null;
+        }
+        messageDigest.reset();
+        if (contents != null)
+        {
+            messageDigest.update(contents.duplicate());
+        }
+        else
+        {
+            update(messageDigest, path);
+        }
+        String actual = toHexString(messageDigest.digest());
+        return actual.equals(expected);
+    }
+    
+    /**
+     * Update the given message digest with the contents of the given file
+     * 
+     * @param messageDigest The message digest
+     * @param path The path
+     * @throws IOException If an IO error occurs
+     */
+    private static void update(MessageDigest messageDigest, Path path) 
+        throws IOException
+    {
+        ByteBuffer buffer = BUFFER.get();
+        try (FileChannel channel = 
+            FileChannel.open(path, StandardOpenOption.READ))
+        {
+            while (true)
+            {
+                buffer.clear();
+                int read = channel.read(buffer);
+                if (read < 0)
+                {
+                    break;
+                }
+                buffer.flip();
+                messageDigest.update(buffer);
+            }
+        }
+    }
+    
+    /**
+     * Read the checksum from the file that has the given path with the
+     * given suffix. The checksum is the first whitespace-separated token
+     * in the file, converted to lower case. Returns <code>null</code> if 
+     * the file does not exist or cannot be read.
+     * 
+     * @param path The path
+     * @param suffix The suffix
+     * @return The checksum
+     */
+    private static String readChecksum(Path path, String suffix)
+    {
+        Path checksumPath = Paths.get(path + suffix);
+        if (!Files.isRegularFile(checksumPath))
+        {
+            return null;
+        }
+        try
+        {
+            byte[] data = Files.readAllBytes(checksumPath);
+            String content = 
+                new String(data, StandardCharsets.US_ASCII).trim();
+            if (content.isEmpty())
+            {
+                return null;
+            }
+            String[] tokens = content.split("\\s+");
+            return tokens[0].toLowerCase(Locale.ROOT);
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+    
+    /**
+     * Create a message digest for the given algorithm
+     * 
+     * @param algorithm The algorithm
+     * @return The message digest
+     * @throws DependencyCleanerException If the algorithm is not supported
+     */
+    private static MessageDigest createMessageDigest(String algorithm)
+    {
+        try
+        {
+            return MessageDigest.getInstance(algorithm);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new DependencyCleanerException(e);
+        }
+    }
+    
+    /**
+     * Returns the lower-case hexadecimal string representation of the 
+     * given bytes
+     * 
+     * @param bytes The bytes
+     * @return The string
+     */
+    private static String toHexString(byte[] bytes)
+    {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes)
+        {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private Checksums()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An {@link ArtifactInfo} for a dependency that is declared in a POM, 
+ * summarizing the scope, whether the dependency is optional, the type, 
+ * the classifier and the exclusions
+ */
+class DependencyArtifactInfo extends ArtifactInfo
+{
+    /**
+     * The scope
+     */
+    private final String scope;
+    
+    /**
+     * Whether the dependency is optional
+     */
+    private final boolean optional;
+    
+    /**
+     * The type
+     */
+    private final String type;
+    
+    /**
+     * The classifier
+     */
+    private final String classifier;
+    
+    /**
+     * The exclusions
+     */
+    private final List<String> exclusions;
+    
+    /**
+     * Create a new instance for a dependency with the type 
+     * <code>"jar"</code>, no classifier and no exclusions
+     * 
+     * @param groupId The group ID
+     * @param artifactId The artifact ID
+     * @param version The version
+     * @param scope The scope, e.g. <code>"compile"</code> or 
+     * <code>"test"</code>
+     * @param optional Whether the dependency is optional
+     */
+    DependencyArtifactInfo(String groupId, String artifactId, 
+        String version, String scope, boolean optional)
+    {
+        this(groupId, artifactId, version, scope, optional, 
+            "jar", "", Collections.<String>emptyList());
+    }
+    
+    /**
+     * Create a new instance
+     * 
+     * @param groupId The group ID
+     * @param artifactId The artifact ID
+     * @param version The version
+     * @param scope The scope, e.g. <code>"compile"</code> or 
+     * <code>"test"</code>
+     * @param optional Whether the dependency is optional
+     * @param type The type, e.g. <code>"jar"</code> or 
+     * <code>"test-jar"</code>
+     * @param classifier The classifier, or the empty string
+     * @param exclusions The exclusions, as strings of the form 
+     * <code>"groupId:artifactId"</code>, where both parts may be 
+     * <code>"*"</code>. A string that only contains the group ID 
+     * excludes all artifacts of this group.
+     */
+    DependencyArtifactInfo(String groupId, String artifactId, 
+        String version, String scope, boolean optional, 
+        String type, String classifier, List<String> exclusions)
+    {
+        super(groupId, artifactId, version);
+        this.scope = Objects.requireNonNull(
+            scope, "The scope may not be null");
+        this.optional = optional;
+        this.type = Objects.requireNonNull(
+            type, "The type may not be null");
+        this.classifier = Objects.requireNonNull(
+            classifier, "The classifier may not be null");
+        this.exclusions = Collections.unmodifiableList(
+            new ArrayList<String>(exclusions));
+    }
+    
+    /**
+     * Returns the scope
+     * 
+     * @return The scope
+     */
+    String getScope()
+    {
+        return scope;
+    }
+    
+    /**
+     * Returns whether the dependency is optional
+     * 
+     * @return Whether the dependency is optional
+     */
+    boolean isOptional()
+    {
+        return optional;
+    }
+    
+    /**
+     * Returns the type
+     * 
+     * @return The type
+     */
+    String getType()
+    {
+        return type;
+    }
+    
+    /**
+     * Returns the classifier. This is the empty string if the dependency
+     * does not have a classifier.
+     * 
+     * @return The classifier
+     */
+    String getClassifier()
+    {
+        return classifier;
+    }
+    
+    /**
+     * Returns an unmodifiable view on the exclusions, as strings of the 
+     * form <code>"groupId:artifactId"</code>
+     * 
+     * @return The exclusions
+     */
+    List<String> getExclusions()
+    {
+        return exclusions;
+    }
+    
+    @Override
+    public int hashCode()
+    {
+        return 31 * super.hashCode() + Objects.hash(
+            scope, optional, type, classifier, exclusions);
+    }
+    
+    @Override
+    public boolean equals(Object object)
+    {
+        if (!super.equals(object))
+        {
+            return false;
+        }
+        DependencyArtifactInfo other = (DependencyArtifactInfo)object;
+        return scope.equals(other.scope) && optional == other.optional
+            && type.equals(other.type) 
+            && classifier.equals(other.classifier)
+            && exclusions.equals(other.exclusions);
+    }
+}
@@ -33,33 +33,53 @@ import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.GridLayout;
 import java.io.File;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.swing.Action;
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JMenuItem;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
+import javax.swing.JSpinner;
 import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.JTree;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.TableColumn;
+import javax.swing.tree.TreePath;
+
+import org.eclipse.aether.util.artifact.JavaScopes;
 
 import de.javagl.common.ui.JTables;
-import de.javagl.common.ui.JTrees;
 import de.javagl.common.ui.LocationBasedPopupHandler;
 import de.javagl.swing.tasks.SwingTask;
 import de.javagl.swing.tasks.SwingTaskExecutors;
 import de.javagl.treetable.JTreeTable;
-import de.javagl.treetable.TreeTableModel;
 
 /**
  * The main class of the dependency cleaner application. Hence the name.
@@ -92,16 +112,68 @@ class DependencyCleanerApplication
      */
     private List<? extends ArtifactInfo> artifactInfos;
     
+    /**
+     * The {@link ArtifactInfo} of the project that the current
+     * {@link #artifactInfos} are dependencies of. This may be 
+     * <code>null</code>.
+     */
+    private ArtifactInfo projectArtifactInfo;
+    
+    /**
+     * The {@link ReactorModule} objects of a multi-module project, if 
+     * a directory or multiple POM files have been dropped. If this is
+     * not <code>null</code>, then the {@link #artifactInfos} are ignored.
+     */
+    private List<ReactorModule> reactorModules;
+    
     /**
      * The current {@link DependencyStatus}
      */
     private DependencyStatus dependencyStatus;
     
+    /**
+     * The paths that have been removed from the current 
+     * {@link #dependencyStatus}, and not been repaired yet
+     */
+    private final Set<Path> removedPaths;
+    
+    /**
+     * The {@link ValidationOptions}
+     */
+    private final ValidationOptions validationOptions;
+    
+    /**
+     * The {@link ResolutionOptions}
+     */
+    private final ResolutionOptions resolutionOptions;
+    
+    /**
+     * The tree table that currently shows the {@link DependencyStatus}
+     */
+    private JTreeTable treeTable;
+    
+    /**
+     * The model of the current {@link #treeTable}
+     */
+    private DependencyStatusTreeTableModel treeTableModel;
+    
+    /**
+     * The buttons for the actions that modify the current 
+     * {@link DependencyStatus} or the files that it refers to. These 
+     * are disabled while a {@link DependencyStatus} is computed.
+     */
+    private final List<JButton> modifyingButtons;
+    
     /**
      * Default constructor
      */
     DependencyCleanerApplication()
     {
+        validationOptions = new ValidationOptions();
+        resolutionOptions = new ResolutionOptions();
+        removedPaths = new LinkedHashSet<Path>();
+        modifyingButtons = new ArrayList<JButton>();
+        
         frame = new JFrame("DependencyCleaner");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         
@@ -153,7 +225,9 @@ class DependencyCleanerApplication
         
         JLabel helpLabel = new JLabel(
             "<html>"
-            + "1. Drag-and-drop the pom.xml into the area below." + "<br>"
+            + "1. Drag-and-drop the pom.xml into the area below. Drop a "
+            + "directory or multiple POMs to check all modules of a "
+            + "multi-module project at once." + "<br>"
             + "2. Press 'Resolve' to resolve the dependencies "
             + "of the POM" + "<br>"
             + "3. See the dependency structure of the POM, and invalid "
@@ -161,11 +235,14 @@ class DependencyCleanerApplication
             + "4. Press 'Remove selected' to remove the JAR files that are " 
             + "marked for removal in the table." + "<br>"
             + "5. Press 'Resolve' again to download fresh copies of the "
-            + "JARs from Maven Central" + "<br>"
+            + "JARs from Maven Central, or press 'Repair removed' to "
+            + "only download and validate the removed JARs" + "<br>"
             + "<br>"
             + "By default, all invalid JAR files will be marked "
             + "for removal. Right-click on the 'path' entry in the "
             + "table to open the directory that contains the JAR." + "<br>"
+            + "Press 'Scan local repository' to validate all JAR files "
+            + "in the local repository, without resolving a POM." + "<br>"
             + "</html>");
         helpLabel.setBorder(BorderFactory.createTitledBorder("Instructions:"));
         controlPanel.add(helpLabel, BorderLayout.NORTH);
@@ -190,38 +267,327 @@ class DependencyCleanerApplication
         resolveButton.addActionListener(
             e ->  resolveDependenciesInBackground());
         buttonPanel.add(resolveButton);
+        modifyingButtons.add(resolveButton);
+        
+        JCheckBox combinedRequestCheckBox = 
+            new JCheckBox("Resolve combined");
+        combinedRequestCheckBox.setToolTipText(
+            "Resolve all dependencies of the POM at once, "
+            + "with conflict resolution as in Maven");
+        combinedRequestCheckBox.setSelected(
+            resolutionOptions.isCombinedRequest());
+        combinedRequestCheckBox.addActionListener(e -> 
+            resolutionOptions.setCombinedRequest(
+                combinedRequestCheckBox.isSelected()));
+        buttonPanel.add(combinedRequestCheckBox);
+        
+        JCheckBox offlineCheckBox = new JCheckBox("Offline");
+        offlineCheckBox.setToolTipText(
+            "Resolve only from the local repository");
+        offlineCheckBox.setSelected(resolutionOptions.isOffline());
+        offlineCheckBox.addActionListener(e -> 
+            resolutionOptions.setOffline(offlineCheckBox.isSelected()));
+        buttonPanel.add(offlineCheckBox);
+        
+        JCheckBox collectOnlyCheckBox = new JCheckBox("Collect only");
+        collectOnlyCheckBox.setToolTipText(
+            "Only validate the files that are already in the local "
+            + "repository, without downloading anything");
+        collectOnlyCheckBox.setSelected(resolutionOptions.isCollectOnly());
+        collectOnlyCheckBox.addActionListener(e -> 
+            resolutionOptions.setCollectOnly(
+                collectOnlyCheckBox.isSelected()));
+        buttonPanel.add(collectOnlyCheckBox);
+        
+        buttonPanel.add(new JLabel("Resolution threads:"));
+        JSpinner resolutionParallelismSpinner = new JSpinner(
+            new SpinnerNumberModel(
+                resolutionOptions.getParallelism(), 1, 64, 1));
+        resolutionParallelismSpinner.addChangeListener(e -> 
+            resolutionOptions.setParallelism(
+                (Integer)resolutionParallelismSpinner.getValue()));
+        buttonPanel.add(resolutionParallelismSpinner);
+        
+        buttonPanel.add(new JLabel("Download threads:"));
+        JSpinner downloadThreadsSpinner = new JSpinner(
+            new SpinnerNumberModel(
+                resolutionOptions.getDownloadThreads(), 1, 64, 1));
+        downloadThreadsSpinner.addChangeListener(e -> 
+            resolutionOptions.setDownloadThreads(
+                (Integer)downloadThreadsSpinner.getValue()));
+        buttonPanel.add(downloadThreadsSpinner);
         
         JButton removeButton = new JButton("Remove selected");
         removeButton.addActionListener(
             e -> removeDependenciesInBackground());
         buttonPanel.add(removeButton);
+        modifyingButtons.add(removeButton);
+        
+        JButton repairButton = new JButton("Repair removed");
+        repairButton.addActionListener(
+            e -> repairRemovedInBackground());
+        buttonPanel.add(repairButton);
+        modifyingButtons.add(repairButton);
+        
+        JButton scanButton = new JButton("Scan local repository");
+        scanButton.addActionListener(
+            e -> scanLocalRepositoryInBackground());
+        buttonPanel.add(scanButton);
+        modifyingButtons.add(scanButton);
+        
+        buttonPanel.add(new JLabel("Validation threads:"));
+        JSpinner parallelismSpinner = new JSpinner(new SpinnerNumberModel(
+            validationOptions.getParallelism(), 1, 256, 1));
+        parallelismSpinner.addChangeListener(e -> 
+            validationOptions.setParallelism(
+                (Integer)parallelismSpinner.getValue()));
+        buttonPanel.add(parallelismSpinner);
+        
+        JCheckBox verifyChecksumsCheckBox = 
+            new JCheckBox("Verify checksums");
+        verifyChecksumsCheckBox.setSelected(
+            validationOptions.isVerifyChecksums());
+        verifyChecksumsCheckBox.addActionListener(e -> 
+            validationOptions.setVerifyChecksums(
+                verifyChecksumsCheckBox.isSelected()));
+        buttonPanel.add(verifyChecksumsCheckBox);
+        
+        JCheckBox memoryMappingCheckBox = new JCheckBox("Memory mapping");
+        memoryMappingCheckBox.setToolTipText(
+            "Validate the JAR files by mapping them into memory. This is "
+            + "faster, but on some systems, mapped files can not be "
+            + "removed immediately");
+        memoryMappingCheckBox.setSelected(
+            validationOptions.isMemoryMapping());
+        memoryMappingCheckBox.addActionListener(e -> 
+            validationOptions.setMemoryMapping(
+                memoryMappingCheckBox.isSelected()));
+        buttonPanel.add(memoryMappingCheckBox);
+        
+        buttonPanel.add(new JLabel("Validation tier:"));
+        JComboBox<ValidationTier> validationTierComboBox = 
+            new JComboBox<ValidationTier>(ValidationTier.values());
+        validationTierComboBox.setSelectedItem(
+            validationOptions.getValidationTier());
+        validationTierComboBox.addActionListener(e -> 
+            validationOptions.setValidationTier(
+                (ValidationTier)validationTierComboBox.getSelectedItem()));
+        buttonPanel.add(validationTierComboBox);
 
-        controlPanel.add(buttonPanel, BorderLayout.SOUTH);
+        JPanel optionsPanel = new JPanel(new GridLayout(0,1));
+        optionsPanel.add(buttonPanel);
+        optionsPanel.add(createFilterPanel());
+        controlPanel.add(optionsPanel, BorderLayout.SOUTH);
         
         return controlPanel;
     }
+    
+    /**
+     * Creates the panel for the dependency filter settings of the
+     * {@link ResolutionOptions}
+     * 
+     * @return The filter panel
+     */
+    private JPanel createFilterPanel()
+    {
+        JPanel filterPanel = new JPanel(new FlowLayout());
+        
+        filterPanel.add(new JLabel("Scopes:"));
+        List<String> allScopes = Arrays.asList(
+            JavaScopes.COMPILE, JavaScopes.PROVIDED, JavaScopes.RUNTIME,
+            JavaScopes.TEST, JavaScopes.SYSTEM);
+        for (String scope : allScopes)
+        {
+            JCheckBox scopeCheckBox = new JCheckBox(scope);
+            scopeCheckBox.setSelected(
+                resolutionOptions.getScopes().contains(scope));
+            scopeCheckBox.addActionListener(e -> 
+            {
+                Set<String> scopes = 
+                    new LinkedHashSet<String>(resolutionOptions.getScopes());
+                if (scopeCheckBox.isSelected())
+                {
+                    scopes.add(scope);
+                }
+                else
+                {
+                    scopes.remove(scope);
+                }
+                resolutionOptions.setScopes(scopes);
+            });
+            filterPanel.add(scopeCheckBox);
+        }
+        
+        JCheckBox includeOptionalCheckBox = 
+            new JCheckBox("Include optional");
+        includeOptionalCheckBox.setToolTipText(
+            "Include dependencies that are declared as optional");
+        includeOptionalCheckBox.setSelected(
+            resolutionOptions.isIncludeOptional());
+        includeOptionalCheckBox.addActionListener(e -> 
+            resolutionOptions.setIncludeOptional(
+                includeOptionalCheckBox.isSelected()));
+        filterPanel.add(includeOptionalCheckBox);
+        
+        filterPanel.add(new JLabel("Excluded groups:"));
+        JTextField excludedGroupsTextField = new JTextField(20);
+        excludedGroupsTextField.setToolTipText(
+            "Comma-separated group IDs that should be excluded, "
+            + "like 'com.example.*'");
+        excludedGroupsTextField.setText(String.join(", ", 
+            resolutionOptions.getExcludedGroupIdPatterns()));
+        excludedGroupsTextField.getDocument().addDocumentListener(
+            new DocumentListener()
+        {
+            @Override
+            public void insertUpdate(DocumentEvent e)
+            {
+                updateExcludedGroupIdPatterns();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e)
+            {
+                updateExcludedGroupIdPatterns();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e)
+            {
+                updateExcludedGroupIdPatterns();
+            }
+            
+            /**
+             * Pass the patterns from the text field to the
+             * {@link ResolutionOptions}
+             */
+            private void updateExcludedGroupIdPatterns()
+            {
+                List<String> patterns = new ArrayList<String>();
+                for (String token : 
+                    excludedGroupsTextField.getText().split(","))
+                {
+                    if (!token.trim().isEmpty())
+                    {
+                        patterns.add(token.trim());
+                    }
+                }
+                resolutionOptions.setExcludedGroupIdPatterns(patterns);
+            }
+        });
+        filterPanel.add(excludedGroupsTextField);
+        
+        return filterPanel;
+    }
 
     /**
-     * Accept the given files (from a drag-and-drop operation), and pass
-     * the first one to {@link #loadPomInBackground(Path)}
+     * Accept the given files (from a drag-and-drop operation). If a single
+     * POM file is given, it is passed to {@link #loadPomInBackground(Path)}.
+     * If a directory or multiple files are given, they are passed to
+     * {@link #loadReactorInBackground(List)}.
      * 
      * @param files The files
      */
     private void acceptPomFiles(List<? extends File> files) 
     {
         pomDropLabel.setText("");
-        setArtifactInfos(null);
-        if (!files.isEmpty())
+        setArtifactInfos(null, null);
+        setReactorModules(null);
+        if (files.isEmpty())
+        {
+            return;
+        }
+        File file = files.get(0);
+        if (files.size() == 1 && !file.isDirectory())
         {
-            File file = files.get(0);
             pomDropLabel.setText(file.toString());
             loadPomInBackground(file.toPath());
+            return;
+        }
+        List<Path> paths = new ArrayList<Path>();
+        for (File f : files)
+        {
+            paths.add(f.toPath());
+        }
+        if (files.size() == 1)
+        {
+            pomDropLabel.setText(file.toString());
         }
+        else
+        {
+            pomDropLabel.setText(files.size() + " files");
+        }
+        loadReactorInBackground(paths);
+    }
+    
+    /**
+     * Load the {@link ReactorModule} objects from the given paths in a 
+     * background thread, and pass them to {@link #setReactorModules}. 
+     * Directories are searched for POM files.
+     * 
+     * @param paths The paths
+     */
+    private void loadReactorInBackground(List<? extends Path> paths)
+    {
+        SwingTask<?, ?> swingTask = 
+            new SwingTask<List<ReactorModule>, Void>()
+        {
+            @Override
+            protected List<ReactorModule> doInBackground() throws Exception
+            {
+                List<Path> pomFiles = new ArrayList<Path>();
+                for (Path path : paths)
+                {
+                    if (Files.isDirectory(path))
+                    {
+                        pomFiles.addAll(ReactorModules.findPomFiles(path));
+                    }
+                    else
+                    {
+                        pomFiles.add(path);
+                    }
+                }
+                return ReactorModules.readModules(
+                    pomFiles, resolutionOptions);
+            }
+            
+            @Override
+            protected void done()
+            {
+                try
+                {
+                    List<ReactorModule> modules = get();
+                    pomDropLabel.setText(pomDropLabel.getText() 
+                        + " (" + modules.size() + " modules)");
+                    setReactorModules(modules);
+                }
+                catch (InterruptedException | ExecutionException e)
+                {
+                    logger.log(Level.SEVERE, e.getMessage(), e);
+                    setReactorModules(null);
+                }
+            }
+        };
+        SwingTaskExecutors.create(swingTask).build().execute();
+    }
+    
+    /**
+     * Set the {@link ReactorModule} objects of the multi-module project
+     * whose dependencies should be resolved
+     * 
+     * @param reactorModules The {@link ReactorModule} objects. May be 
+     * <code>null</code>.
+     */
+    private void setReactorModules(List<ReactorModule> reactorModules)
+    {
+        this.reactorModules = reactorModules;
     }
     
     /**
      * Load the POM from the given path, in a background thread, and pass
-     * the extracted {@link ArtifactInfo} objects to {@link #setArtifactInfos}
+     * the extracted {@link ArtifactInfo} objects to {@link #setArtifactInfos}.
+     * The artifacts are taken from the effective model of the POM, which
+     * may require resolving its parent POMs.
      * 
      * @param path The path
      */
@@ -229,12 +595,30 @@ class DependencyCleanerApplication
     {
         SwingTask<?, ?> swingTask = new SwingTask<List<ArtifactInfo>, Void>()
         {
+            /**
+             * The {@link ArtifactInfo} of the POM itself
+             */
+            private ArtifactInfo projectArtifactInfo;
+            
             @Override
             protected List<ArtifactInfo> doInBackground() throws Exception
             {
-                List<ArtifactInfo> artifactInfos = 
-                    MavenModelUtils.readDependencyArtifactInfos(path);
-                return artifactInfos;
+                ResolutionEngine resolutionEngine = 
+                    new ResolutionEngine(resolutionOptions);
+                try
+                {
+                    EffectiveModelReader effectiveModelReader = 
+                        new EffectiveModelReader(resolutionEngine);
+                    projectArtifactInfo = 
+                        effectiveModelReader.readArtifactInfo(path);
+                    List<ArtifactInfo> artifactInfos = effectiveModelReader
+                        .readDependencyArtifactInfos(path);
+                    return artifactInfos;
+                }
+                finally
+                {
+                    resolutionEngine.shutdown();
+                }
             }
             
             @Override
@@ -242,12 +626,12 @@ class DependencyCleanerApplication
             {
                 try
                 {
-                    setArtifactInfos(get());
+                    setArtifactInfos(projectArtifactInfo, get());
                 }
                 catch (InterruptedException | ExecutionException e)
                 {
                     logger.log(Level.SEVERE, e.getMessage(), e);
-                    setArtifactInfos(null);
+                    setArtifactInfos(null, null);
                 }
             }
         };
@@ -257,10 +641,15 @@ class DependencyCleanerApplication
     /**
      * Set the {@link ArtifactInfo} objects that are currently displayed
      * 
+     * @param projectArtifactInfo The {@link ArtifactInfo} of the project
+     * that the given artifacts are dependencies of. May be 
+     * <code>null</code>.
      * @param artifactInfos The {@link ArtifactInfo} objects
      */
-    private void setArtifactInfos(List<? extends ArtifactInfo> artifactInfos)
+    private void setArtifactInfos(ArtifactInfo projectArtifactInfo,
+        List<? extends ArtifactInfo> artifactInfos)
     {
+        this.projectArtifactInfo = projectArtifactInfo;
         this.artifactInfos = artifactInfos;
     }
     
@@ -273,12 +662,21 @@ class DependencyCleanerApplication
      */
     private void resolveDependenciesInBackground()
     {
+        if (reactorModules != null)
+        {
+            List<ReactorModule> modules = reactorModules;
+            computeDependencyStatusInBackground("Resolving dependencies", 
+                "Reactor", listener -> DependencyStatuses.computeForReactor(
+                    "Reactor", modules, resolutionOptions, 
+                    validationOptions, listener));
+            return;
+        }
         if (artifactInfos == null)
         {
             setDependencyStatus(null);
             return;
         }
-        resolveDependenciesInBackground(artifactInfos);
+        resolveDependenciesInBackground(projectArtifactInfo, artifactInfos);
     }
 
     /**
@@ -287,49 +685,295 @@ class DependencyCleanerApplication
      * {@link DependencyStatus} 
      * to {@link #setDependencyStatus(DependencyStatus)}
      * 
+     * @param projectArtifactInfo The optional {@link ArtifactInfo} of the 
+     * project that the given artifacts are dependencies of
      * @param artifactInfos The {@link ArtifactInfo} objects
      */
     private void resolveDependenciesInBackground(
+        ArtifactInfo projectArtifactInfo,
         List<? extends ArtifactInfo> artifactInfos)
     {
-        SwingTask<?, ?> swingTask = new SwingTask<Void, Void>()
+        computeDependencyStatusInBackground("Resolving dependencies", "Root",
+            listener -> DependencyStatuses.compute(projectArtifactInfo,
+                artifactInfos, resolutionOptions, validationOptions, 
+                listener));
+    }
+    
+    /**
+     * Validate all JAR files in the local repository in a background 
+     * thread, and pass the resulting {@link DependencyStatus} to 
+     * {@link #setDependencyStatus(DependencyStatus)}. The local 
+     * repository is taken from the settings file of the 
+     * {@link ResolutionOptions}, or the default local repository if 
+     * the settings do not define one.
+     */
+    private void scanLocalRepositoryInBackground()
+    {
+        Path repositoryRoot = MavenSettingsUtils.getLocalRepositoryPath(
+            MavenSettingsUtils.readSettings(
+                resolutionOptions.getSettingsFile()));
+        computeDependencyStatusInBackground("Scanning " + repositoryRoot,
+            repositoryRoot.toString(), 
+            listener -> DependencyStatuses.computeForRepository(
+                repositoryRoot, validationOptions, listener));
+    }
+    
+    /**
+     * Compute a {@link DependencyStatus} with the given function in a 
+     * background thread, and pass the result to 
+     * {@link #setDependencyStatus(DependencyStatus)}.<br>
+     * <br>
+     * While the computation is running, the tree table will show a
+     * preliminary {@link DependencyStatus} that is updated with the 
+     * intermediate results that are passed to the 
+     * {@link DependencyStatusListener}. These updates are collected 
+     * on the event dispatch thread, and applied to the tree table in 
+     * batches. The paths that lead to files that turn out to be invalid
+     * are expanded when the computation is finished, because finding
+     * them requires a traversal of the whole dependency graph.<br>
+     * <br>
+     * The actions that modify the {@link DependencyStatus} are disabled
+     * until the computation is finished. The computation may be 
+     * cancelled, and the preliminary {@link DependencyStatus} will then 
+     * remain visible, with the paths to the invalid files that have been
+     * found until then being expanded.
+     * 
+     * @param title The title for the task dialog
+     * @param rootName The name for the root node of the preliminary
+     * {@link DependencyStatus}
+     * @param function The function that receives the listener and 
+     * computes the {@link DependencyStatus}
+     */
+    private void computeDependencyStatusInBackground(String title,
+        String rootName, Function<? super DependencyStatusListener, 
+            ? extends DependencyStatus> function)
+    {
+        DependencyStatus preliminaryDependencyStatus = new DependencyStatus(
+            new DependencyTreeNode(rootName, null, null), 
+            new LinkedHashMap<Path, ValidationResult>(), 
+            new LinkedHashSet<Path>());
+        setDependencyStatus(preliminaryDependencyStatus);
+        setModifyingButtonsEnabled(false);
+        
+        SwingTask<?, ?> swingTask = new SwingTask<Void, Runnable>()
         {
             /**
              * The computed DependencyStatus
              */
             private DependencyStatus dependencyStatus;
             
+            /**
+             * The number of paths that have been validated
+             */
+            private final AtomicInteger validated = new AtomicInteger();
+            
             @Override
             protected Void doInBackground() throws Exception
             {
+                DependencyStatusListener listener = 
+                    new DependencyStatusListener()
+                {
+                    @Override
+                    public void childAdded(DependencyTreeNode child)
+                    {
+                        publish(() -> 
+                        {
+                            preliminaryDependencyStatus
+                                .getDependencyTreeNode().addChild(child);
+                        });
+                    }
+                    
+                    @Override
+                    public void validated(
+                        Path path, ValidationResult validationResult)
+                    {
+                        validated.incrementAndGet();
+                        publish(() -> 
+                        {
+                            preliminaryDependencyStatus.setValidationResult(
+                                path, validationResult);
+                            preliminaryDependencyStatus.setPathToRemove(path, 
+                                validationResult.getValidationStatus() != 
+                                    ValidationStatus.VALID);
+                        });
+                    }
+                };
                 dependencyStatus = null;
                 try
                 {
-                    dependencyStatus =
-                        DependencyStatuses.compute(artifactInfos);
+                    dependencyStatus = function.apply(listener);
                 }
                 catch (Throwable e)
                 {
+                    if (isCancelled())
+                    {
+                        return null;
+                    }
                     logger.log(Level.SEVERE, e.getMessage(), e);
                     throw new Exception(e);
                 }
                 return null;
             }
             
+            @Override
+            protected void process(List<Runnable> updates)
+            {
+                if (isCancelled() || 
+                    DependencyCleanerApplication.this.dependencyStatus != 
+                    preliminaryDependencyStatus)
+                {
+                    return;
+                }
+                DependencyTreeNode root = 
+                    preliminaryDependencyStatus.getDependencyTreeNode();
+                int oldChildCount = root.getChildren().size();
+                for (Runnable update : updates)
+                {
+                    update.run();
+                }
+                int newChildCount = root.getChildren().size();
+                if (newChildCount > oldChildCount)
+                {
+                    treeTableModel.fireRootChildrenAdded(
+                        oldChildCount, newChildCount);
+                    treeTable.getTree().expandPath(new TreePath(root));
+                }
+                treeTableModel.fireValuesChanged();
+                setMessage("Validated " + validated.get() + " files");
+            }
+            
             @Override
             protected void done()
             {
-                setDependencyStatus(dependencyStatus);
+                setModifyingButtonsEnabled(true);
+                if (!isCancelled() && dependencyStatus != null)
+                {
+                    setDependencyStatus(dependencyStatus);
+                }
+                else if (DependencyCleanerApplication.this.dependencyStatus
+                    == preliminaryDependencyStatus)
+                {
+                    expandPathsTo(path -> isInvalid(preliminaryDependencyStatus
+                        .getValidationStatus(path)));
+                }
             }
 
         };
         SwingTaskExecutors.create(swingTask)
-            .setTitle("Resolving dependencies")
+            .setTitle(title)
+            .setModal(false)
+            .setCancelable(true)
             .setDialogUncaughtExceptionHandler()
             .build()
             .execute();
     }
     
+    /**
+     * Enable or disable the {@link #modifyingButtons}
+     * 
+     * @param enabled Whether the buttons should be enabled
+     */
+    private void setModifyingButtonsEnabled(boolean enabled)
+    {
+        for (JButton button : modifyingButtons)
+        {
+            button.setEnabled(enabled);
+        }
+    }
+    
+    /**
+     * Returns whether the given status indicates that a file is invalid,
+     * meaning that it is not a valid JAR file, or does not match its
+     * checksum
+     * 
+     * @param validationStatus The {@link ValidationStatus}
+     * @return Whether the status indicates an invalid file
+     */
+    private static boolean isInvalid(ValidationStatus validationStatus)
+    {
+        return validationStatus == ValidationStatus.INVALID
+            || validationStatus == ValidationStatus.CHECKSUM_MISMATCH;
+    }
+    
+    /**
+     * Expand all paths in the current tree table that lead to a node 
+     * whose path matches the given predicate.<br>
+     * <br>
+     * The children of a node are only shown in the tree when the node 
+     * is expanded, so only the expanded part of the dependency graph 
+     * is turned into rows of the tree table.
+     * 
+     * @param predicate The predicate for the paths of the nodes
+     */
+    private void expandPathsTo(Predicate<? super Path> predicate)
+    {
+        JTree tree = treeTable.getTree();
+        DependencyTreeNode root = dependencyStatus.getDependencyTreeNode();
+        Map<DependencyTreeNode, Boolean> leadsToMatch = 
+            new IdentityHashMap<DependencyTreeNode, Boolean>();
+        if (leadsToMatch(root, predicate, leadsToMatch))
+        {
+            expandPathsTo(tree, new TreePath(root), leadsToMatch);
+        }
+    }
+    
+    /**
+     * Expand the given path in the given tree, and all paths below it 
+     * that lead to nodes that are contained in the given map with a
+     * value of <code>true</code>
+     * 
+     * @param tree The tree
+     * @param treePath The tree path
+     * @param leadsToMatch Whether a node leads to a matching node
+     */
+    private static void expandPathsTo(JTree tree, TreePath treePath, 
+        Map<DependencyTreeNode, Boolean> leadsToMatch)
+    {
+        DependencyTreeNode node = 
+            (DependencyTreeNode)treePath.getLastPathComponent();
+        for (DependencyTreeNode child : node.getChildren())
+        {
+            if (Boolean.TRUE.equals(leadsToMatch.get(child)))
+            {
+                tree.expandPath(treePath);
+                expandPathsTo(tree, 
+                    treePath.pathByAddingChild(child), leadsToMatch);
+            }
+        }
+    }
+    
+    /**
+     * Returns whether the given node, or one of its descendants, has
+     * a path that matches the given predicate. The results are stored
+     * in the given map, so that nodes that are reachable on multiple
+     * paths are only examined once.
+     * 
+     * @param node The node
+     * @param predicate The predicate for the paths of the nodes
+     * @param leadsToMatch Whether a node leads to a matching node
+     * @return Whether the node leads to a matching node
+     */
+    private static boolean leadsToMatch(DependencyTreeNode node, 
+        Predicate<? super Path> predicate, 
+        Map<DependencyTreeNode, Boolean> leadsToMatch)
+    {
+        Boolean cached = leadsToMatch.get(node);
+        if (cached != null)
+        {
+            return cached;
+        }
+        Path path = node.getPath();
+        boolean result = path != null && predicate.test(path);
+        for (DependencyTreeNode child : node.getChildren())
+        {
+            if (leadsToMatch(child, predicate, leadsToMatch))
+            {
+                result = true;
+            }
+        }
+        leadsToMatch.put(node, result);
+        return result;
+    }
     
     /**
      * Remove all dependencies that are selected for removal in the current
@@ -344,12 +988,18 @@ class DependencyCleanerApplication
         Set<Path> pathsToRemove = dependencyStatus.getPathsToRemove();
         SwingTask<?, ?> swingTask = new SwingTask<Void, Void>()
         {
+            /**
+             * The paths that have been deleted
+             */
+            private Set<Path> deletedPaths = Collections.emptySet();
+            
             @Override
             protected Void doInBackground() throws Exception
             {
                 try
                 {
-                    deleteFiles(pathsToRemove);
+                    deletedPaths = DependencyStatuses.remove(
+                        dependencyStatus, pathsToRemove);
                 }
                 catch (Throwable e)
                 {
@@ -363,6 +1013,7 @@ class DependencyCleanerApplication
             protected void done()
             {
                 setDependencyStatus(dependencyStatus);
+                removedPaths.addAll(deletedPaths);
             }
 
         };
@@ -375,29 +1026,65 @@ class DependencyCleanerApplication
     }
     
     /**
-     * Delete the files with the given paths, and update the current
-     * {@link DependencyStatus} accordingly
-     * 
-     * @param paths The paths
+     * Re-fetch and re-validate the artifacts whose files have been 
+     * removed from the current {@link DependencyStatus} in a background 
+     * thread, and update the {@link DependencyStatus} with the results.
+     * Only the removed artifacts themselves are resolved. 
      */
-    private void deleteFiles(Iterable<? extends Path> paths)
+    private void repairRemovedInBackground()
     {
-        for (Path path : paths)
+        if (dependencyStatus == null || removedPaths.isEmpty())
+        {
+            return;
+        }
+        DependencyStatus repairedDependencyStatus = dependencyStatus;
+        Set<Path> pathsToRepair = new LinkedHashSet<Path>(removedPaths);
+        SwingTask<?, ?> swingTask = 
+            new SwingTask<Map<Path, ValidationResult>, Void>()
         {
-            boolean deleted = path.toFile().delete();
-            if (!deleted)
+            /**
+             * The validation results of the repaired paths
+             */
+            private Map<Path, ValidationResult> validationResults;
+            
+            @Override
+            protected Map<Path, ValidationResult> doInBackground() 
+                throws Exception
             {
-                logger.warning("Could not delete " + path);
+                try
+                {
+                    validationResults = DependencyStatuses.repair(
+                        repairedDependencyStatus, pathsToRepair, 
+                        resolutionOptions, validationOptions, null);
+                }
+                catch (Throwable e)
+                {
+                    logger.log(Level.SEVERE, e.getMessage(), e);
+                    throw new Exception(e);
+                }
+                return validationResults;
             }
-            else
+            
+            @Override
+            protected void done()
             {
-                dependencyStatus.setValidPath(path, null);
-                dependencyStatus.setPathToRemove(path, false);
+                if (validationResults == null ||
+                    dependencyStatus != repairedDependencyStatus)
+                {
+                    return;
+                }
+                DependencyStatuses.apply(dependencyStatus, validationResults);
+                removedPaths.removeAll(validationResults.keySet());
+                treeTableModel.fireValuesChanged();
             }
-        }
+        };
+        SwingTaskExecutors.create(swingTask)
+            .setTitle("Repairing removed dependencies")
+            .setDialogUncaughtExceptionHandler()
+            .build()
+            .execute();
     }
     
-
     /**
      * Set the {@link DependencyStatus} that is currently shown in the
      * tree table
@@ -407,12 +1094,24 @@ class DependencyCleanerApplication
     private void setDependencyStatus(
         DependencyStatus dependencyStatus)
     {
+        if (this.dependencyStatus != dependencyStatus)
+        {
+            removedPaths.clear();
+        }
         this.dependencyStatus = dependencyStatus;
         
-        TreeTableModel treeTableModel = 
+        treeTableModel = 
             DependencyStatusTreeTableModels.create(dependencyStatus); 
-        JTreeTable treeTable = new JTreeTable(treeTableModel);
-        JTrees.expandAll(treeTable.getTree());
+        treeTable = new JTreeTable(treeTableModel);
+        if (dependencyStatus != null)
+        {
+            // Only show the top level and the paths to invalid files.
+            // Other nodes are only shown when they are expanded
+            treeTable.getTree().expandPath(new TreePath(
+                dependencyStatus.getDependencyTreeNode()));
+            expandPathsTo(path -> 
+                isInvalid(dependencyStatus.getValidationStatus(path)));
+        }
         JTables.adjustColumnWidths(treeTable, 600);
         
         TableColumn validColumn = treeTable.getColumnModel().getColumn(4);
@@ -430,11 +1129,21 @@ class DependencyCleanerApplication
             {
                 super.getTableCellRendererComponent(
                     table, value, isSelected, hasFocus, row, column);
-                if (Boolean.FALSE.equals(value))
+                if (value == ValidationStatus.INVALID)
                 {
                     setBackground(Color.RED);
                     setText("false");
                 }
+                else if (value == ValidationStatus.CHECKSUM_MISMATCH)
+                {
+                    setBackground(Color.MAGENTA);
+                    setText("checksum mismatch");
+                }
+                else if ("".equals(value))
+                {
+                    setBackground(table.getBackground());
+                    setText("");
+                }
                 else if (value == null && row != 0)
                 {
                     setBackground(Color.ORANGE);
@@ -449,14 +1158,14 @@ class DependencyCleanerApplication
             }
         });
         
-        TableColumn pathColumn = treeTable.getColumnModel().getColumn(6);
+        TableColumn pathColumn = treeTable.getColumnModel().getColumn(7);
         pathColumn.setPreferredWidth(100);
         
         
         JPopupMenu popupMenu = new JPopupMenu();
         treeTable.addMouseListener(new LocationBasedPopupHandler(popupMenu));
 
-        int fileNameColumnIndex = 6;
+        int fileNameColumnIndex = 7;
         Action openContainingFolderAction =
             new OpenFolderAction(fileNameColumnIndex);
         popupMenu.add(new JMenuItem(openContainingFolderAction));
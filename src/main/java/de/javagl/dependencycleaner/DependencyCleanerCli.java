@@ -0,0 +1,705 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The command line interface of the application. It allows validating,
+ * removing and repairing the dependencies of a POM or the JAR files of
+ * a local repository, without a GUI.<br>
+ * <br>
+ * This class must not use any AWT or Swing classes, so that it can be 
+ * used on headless systems, and starts quickly.
+ */
+class DependencyCleanerCli
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger = 
+        Logger.getLogger(DependencyCleanerCli.class.getName());
+    
+    /**
+     * The exit code indicating that all files are valid, or that the 
+     * requested operation succeeded
+     */
+    static final int EXIT_OK = 0;
+    
+    /**
+     * The exit code indicating that invalid or missing files have been
+     * found, or that not all files could be removed or repaired
+     */
+    static final int EXIT_FAILED = 1;
+    
+    /**
+     * The exit code indicating invalid command line arguments
+     */
+    static final int EXIT_USAGE = 2;
+    
+    /**
+     * The exit code indicating that an error occurred, for example, when
+     * a POM could not be read
+     */
+    static final int EXIT_ERROR = 3;
+    
+    /**
+     * The usage information
+     */
+    private static final String USAGE = 
+        "Usage: DependencyCleaner <command> [options]" + "\n"
+        + "" + "\n"
+        + "Commands:" + "\n"
+        + "  validate  Validate the files, and report invalid and " 
+        + "missing files" + "\n"
+        + "  remove    Validate the files, and delete the invalid ones" + "\n"
+        + "  repair    Validate the files, delete the invalid ones, and " 
+        + "download" + "\n"
+        + "            fresh copies of the deleted and missing files" + "\n"
+        + "  daemon    Keep the engines and caches warm, and offer " 
+        + "validate, validate-paths" + "\n"
+        + "            and repair via a local HTTP API, until a POST " 
+        + "to /shutdown." + "\n"
+        + "            Requests need the " 
+        + DependencyCleanerDaemon.TOKEN_HEADER + " header with" + "\n"
+        + "            the token from the file that is printed at " 
+        + "startup" + "\n"
+        + "" + "\n"
+        + "Options:" + "\n"
+        + "  --pom <path>              A POM file, or a directory that " 
+        + "contains the POMs" + "\n"
+        + "                            of a multi-module project. May " 
+        + "be given repeatedly." + "\n"
+        + "  --repository-root <path>  Validate all JAR files in the " 
+        + "given local repository," + "\n"
+        + "                            instead of resolving a POM" + "\n"
+        + "  --tier <tier>             The validation tier: quick, " 
+        + "structural (default)" + "\n"
+        + "                            or deep" + "\n"
+        + "  --parallelism <n>         The number of threads for the " 
+        + "resolution and" + "\n"
+        + "                            validation" + "\n"
+        + "  --settings <path>         The Maven settings file" + "\n"
+        + "  --offline                 Do not access remote repositories" 
+        + "\n"
+        + "  --verify-checksums        Verify the checksum files of the JARs" 
+        + "\n"
+        + "  --no-mmap                 Read the JARs instead of mapping " 
+        + "them into memory." + "\n"
+        + "                            Mapped files may not be deletable " 
+        + "on some systems" + "\n"
+        + "  --port <port>             The port of the daemon (default: " 
+        + DependencyCleanerDaemon.DEFAULT_PORT + ")" + "\n"
+        + "  --report <path>           Write a report with one record per " 
+        + "file, while the" + "\n"
+        + "                            files are validated (before any " 
+        + "removal)" + "\n"
+        + "  --report-format <format>  The report format: jsonl or csv. " 
+        + "By default, this" + "\n"
+        + "                            is derived from the file extension" 
+        + "\n"
+        + "  --help                    Print this message" + "\n"
+        + "" + "\n"
+        + "Exit codes:" + "\n"
+        + "  " + EXIT_OK + "  All files are valid" + "\n"
+        + "  " + EXIT_FAILED + "  Invalid or missing files were found, or " 
+        + "could not be removed or repaired" + "\n"
+        + "  " + EXIT_USAGE + "  Invalid arguments" + "\n"
+        + "  " + EXIT_ERROR + "  An error occurred" + "\n";
+    
+    /**
+     * The commands that are supported by the command line interface
+     */
+    private enum Command
+    {
+        /**
+         * Validate the files
+         */
+        VALIDATE,
+        
+        /**
+         * Validate the files, and remove the invalid ones
+         */
+        REMOVE,
+        
+        /**
+         * Validate the files, remove the invalid ones, and download the
+         * removed and missing ones again
+         */
+        REPAIR,
+        
+        /**
+         * Run the {@link DependencyCleanerDaemon}
+         */
+        DAEMON
+    }
+    
+    /**
+     * The {@link Command}
+     */
+    private Command command;
+    
+    /**
+     * The paths of the POM files or directories
+     */
+    private final List<Path> pomPaths;
+    
+    /**
+     * The root directory of the local repository that should be scanned
+     */
+    private Path repositoryRoot;
+    
+    /**
+     * The port for the {@link DependencyCleanerDaemon}
+     */
+    private int port;
+    
+    /**
+     * The optional path of the report file
+     */
+    private Path reportPath;
+    
+    /**
+     * The format of the report. If this is <code>null</code>, then it
+     * is derived from the file extension of the {@link #reportPath}.
+     */
+    private ValidationReportWriter.Format reportFormat;
+    
+    /**
+     * The {@link ResolutionOptions}
+     */
+    private final ResolutionOptions resolutionOptions;
+    
+    /**
+     * The {@link ValidationOptions}
+     */
+    private final ValidationOptions validationOptions;
+    
+    /**
+     * Creates a new instance with default options
+     */
+    private DependencyCleanerCli()
+    {
+        this.pomPaths = new ArrayList<Path>();
+        this.port = DependencyCleanerDaemon.DEFAULT_PORT;
+        this.resolutionOptions = new ResolutionOptions();
+        this.validationOptions = new ValidationOptions();
+    }
+    
+    /**
+     * Run the command line interface with the given arguments
+     * 
+     * @param args The command line arguments
+     * @return The exit code
+     */
+    static int run(String[] args)
+    {
+        DependencyCleanerCli cli = new DependencyCleanerCli();
+        try
+        {
+            if (!cli.parse(args))
+            {
+                System.out.print(USAGE);
+                return EXIT_OK;
+            }
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            return EXIT_USAGE;
+        }
+        try
+        {
+            return cli.execute();
+        }
+        catch (DependencyCleanerException e)
+        {
+            System.err.println("Error: " + e.getMessage());
+            return EXIT_ERROR;
+        }
+        catch (RuntimeException e)
+        {
+            // Errors from the libraries that are used for the resolution
+            // should still cause the documented exit code
+            logger.log(Level.SEVERE, e.getMessage(), e);
+            System.err.println("Error: " + e);
+            return EXIT_ERROR;
+        }
+    }
+    
+    /**
+     * Parse the given command line arguments
+     * 
+     * @param args The arguments
+     * @return Whether the command should be executed. This is 
+     * <code>false</code> if only the usage information was requested.
+     * @throws IllegalArgumentException If the arguments are not valid
+     */
+    private boolean parse(String[] args)
+    {
+        for (int i = 0; i < args.length; i++)
+        {
+            String arg = args[i];
+            switch (arg)
+            {
+                case "--help":
+                case "-h":
+                    return false;
+                    
+                case "--pom":
+                    pomPaths.add(Paths.get(value(args, ++i, arg)));
+                    break;
+                    
+                case "--repository-root":
+                    repositoryRoot = Paths.get(value(args, ++i, arg));
+                    break;
+                    
+                case "--tier":
+                    validationOptions.setValidationTier(
+                        parseValidationTier(value(args, ++i, arg)));
+                    break;
+                    
+                case "--parallelism":
+                    int parallelism = parseParallelism(value(args, ++i, arg));
+                    validationOptions.setParallelism(parallelism);
+                    resolutionOptions.setParallelism(parallelism);
+                    break;
+                    
+                case "--settings":
+                    resolutionOptions.setSettingsFile(
+                        Paths.get(value(args, ++i, arg)));
+                    break;
+                    
+                case "--offline":
+                    resolutionOptions.setOffline(true);
+                    break;
+                    
+                case "--verify-checksums":
+                    validationOptions.setVerifyChecksums(true);
+                    break;
+                    
+                case "--no-mmap":
+                    validationOptions.setMemoryMapping(false);
+                    break;
+                    
+                case "--port":
+                    port = parsePort(value(args, ++i, arg));
+                    break;
+                    
+                case "--report":
+                    reportPath = Paths.get(value(args, ++i, arg));
+                    break;
+                    
+                case "--report-format":
+                    reportFormat = parseReportFormat(value(args, ++i, arg));
+                    break;
+                    
+                default:
+                    if (arg.startsWith("-") || command != null)
+                    {
+                        throw new IllegalArgumentException(
+                            "Unexpected argument: " + arg);
+                    }
+                    command = parseCommand(arg);
+                    break;
+            }
+        }
+        if (command == null)
+        {
+            throw new IllegalArgumentException("No command given");
+        }
+        if (command == Command.DAEMON)
+        {
+            if (!pomPaths.isEmpty() || repositoryRoot != null)
+            {
+                throw new IllegalArgumentException(
+                    "The daemon does not accept --pom or --repository-root");
+            }
+            return true;
+        }
+        if (pomPaths.isEmpty() == (repositoryRoot == null))
+        {
+            throw new IllegalArgumentException(
+                "Either --pom or --repository-root must be given");
+        }
+        return true;
+    }
+    
+    /**
+     * Returns the value of the option at the given index
+     * 
+     * @param args The arguments
+     * @param index The index of the value
+     * @param option The option, for the error message
+     * @return The value
+     * @throws IllegalArgumentException If there is no value
+     */
+    private static String value(String[] args, int index, String option)
+    {
+        if (index >= args.length)
+        {
+            throw new IllegalArgumentException(
+                "Missing value for " + option);
+        }
+        return args[index];
+    }
+    
+    /**
+     * Parse the {@link Command} from the given string
+     * 
+     * @param s The string
+     * @return The {@link Command}
+     * @throws IllegalArgumentException If the string is not a command
+     */
+    private static Command parseCommand(String s)
+    {
+        try
+        {
+            return Command.valueOf(s.toUpperCase(Locale.ENGLISH));
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IllegalArgumentException("Unknown command: " + s, e);
+        }
+    }
+    
+    /**
+     * Parse the {@link ValidationTier} from the given string
+     * 
+     * @param s The string
+     * @return The {@link ValidationTier}
+     * @throws IllegalArgumentException If the string is not a tier
+     */
+    private static ValidationTier parseValidationTier(String s)
+    {
+        try
+        {
+            return ValidationTier.valueOf(s.toUpperCase(Locale.ENGLISH));
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IllegalArgumentException(
+                "Unknown validation tier: " + s, e);
+        }
+    }
+    
+    /**
+     * Parse the {@link ValidationReportWriter.Format} from the given string
+     * 
+     * @param s The string
+     * @return The {@link ValidationReportWriter.Format}
+     * @throws IllegalArgumentException If the string is not a format
+     */
+    private static ValidationReportWriter.Format parseReportFormat(String s)
+    {
+        try
+        {
+            return ValidationReportWriter.Format.valueOf(
+                s.toUpperCase(Locale.ENGLISH));
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IllegalArgumentException(
+                "Unknown report format: " + s, e);
+        }
+    }
+    
+    /**
+     * Parse the port from the given string
+     * 
+     * @param s The string
+     * @return The port
+     * @throws IllegalArgumentException If the string is not a valid port
+     */
+    private static int parsePort(String s)
+    {
+        try
+        {
+            int port = Integer.parseInt(s);
+            if (port >= 0 && port <= 0xFFFF)
+            {
+                return port;
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            // Handled below
+        }
+        throw new IllegalArgumentException("Invalid port: " + s);
+    }
+    
+    /**
+     * Parse the parallelism from the given string
+     * 
+     * @param s The string
+     * @return The parallelism
+     * @throws IllegalArgumentException If the string is not a positive
+     * integer
+     */
+    private static int parseParallelism(String s)
+    {
+        try
+        {
+            int parallelism = Integer.parseInt(s);
+            if (parallelism > 0)
+            {
+                return parallelism;
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            // Handled below
+        }
+        throw new IllegalArgumentException("Invalid parallelism: " + s);
+    }
+    
+    /**
+     * Execute the command
+     * 
+     * @return The exit code
+     * @throws DependencyCleanerException If the command failed
+     */
+    private int execute()
+    {
+        if (command == Command.DAEMON)
+        {
+            DependencyCleanerDaemon daemon = new DependencyCleanerDaemon(
+                port, resolutionOptions, validationOptions);
+            daemon.run();
+            return EXIT_OK;
+        }
+        DependencyEngines dependencyEngines = 
+            new DependencyEngines(resolutionOptions, validationOptions);
+        try
+        {
+            return execute(dependencyEngines);
+        }
+        finally
+        {
+            dependencyEngines.shutdown();
+        }
+    }
+    
+    /**
+     * Execute the command with the given {@link DependencyEngines}
+     * 
+     * @param dependencyEngines The {@link DependencyEngines}
+     * @return The exit code
+     * @throws DependencyCleanerException If the command failed
+     */
+    private int execute(DependencyEngines dependencyEngines)
+    {
+        DependencyStatus dependencyStatus = null;
+        if (reportPath == null)
+        {
+            dependencyStatus = 
+                computeDependencyStatus(dependencyEngines, null);
+        }
+        else
+        {
+            dependencyStatus = 
+                computeDependencyStatusWithReport(dependencyEngines);
+        }
+        if (command == Command.VALIDATE)
+        {
+            return report(dependencyStatus);
+        }
+        
+        Set<Path> pathsToRemove = 
+            new LinkedHashSet<Path>(dependencyStatus.getPathsToRemove());
+        Set<Path> removedPaths = 
+            DependencyStatuses.remove(dependencyStatus, pathsToRemove);
+        for (Path path : removedPaths)
+        {
+            System.out.println("REMOVED " + path);
+        }
+        if (command == Command.REMOVE)
+        {
+            System.out.println("Removed " + removedPaths.size() 
+                + " of " + pathsToRemove.size() + " invalid files");
+            if (removedPaths.size() != pathsToRemove.size())
+            {
+                return EXIT_FAILED;
+            }
+            return EXIT_OK;
+        }
+        
+        Set<Path> pathsToRepair = new LinkedHashSet<Path>(removedPaths);
+        pathsToRepair.addAll(
+            DependencyStatuses.computeMissingPaths(dependencyStatus));
+        Map<Path, ValidationResult> validationResults = 
+            DependencyStatuses.repair(dependencyEngines, dependencyStatus, 
+                pathsToRepair, null);
+        DependencyStatuses.apply(dependencyStatus, validationResults);
+        for (Path path : validationResults.keySet())
+        {
+            System.out.println("REPAIRED " + path);
+        }
+        return report(dependencyStatus);
+    }
+    
+    /**
+     * Compute the {@link DependencyStatus}, and write the report file
+     * while the files are validated. Records for missing files are 
+     * written after the validation.
+     * 
+     * @param dependencyEngines The {@link DependencyEngines}
+     * @return The {@link DependencyStatus}
+     * @throws DependencyCleanerException If the POMs could not be read,
+     * or the report could not be written
+     */
+    private DependencyStatus computeDependencyStatusWithReport(
+        DependencyEngines dependencyEngines)
+    {
+        ValidationReportWriter.Format format = reportFormat;
+        if (format == null)
+        {
+            String fileName = String.valueOf(reportPath.getFileName());
+            if (fileName.toLowerCase(Locale.ENGLISH).endsWith(".csv"))
+            {
+                format = ValidationReportWriter.Format.CSV;
+            }
+            else
+            {
+                format = ValidationReportWriter.Format.JSONL;
+            }
+        }
+        Path localRepositoryPath = repositoryRoot;
+        if (localRepositoryPath == null)
+        {
+            localRepositoryPath = dependencyEngines.getResolutionEngine()
+                .getLocalRepositoryPath();
+        }
+        try (ValidationReportWriter reportWriter = 
+            new ValidationReportWriter(Files.newBufferedWriter(reportPath), 
+                format, localRepositoryPath))
+        {
+            DependencyStatus dependencyStatus = 
+                computeDependencyStatus(dependencyEngines, reportWriter);
+            for (Path path : 
+                DependencyStatuses.computeMissingPaths(dependencyStatus))
+            {
+                reportWriter.missing(path);
+            }
+            return dependencyStatus;
+        }
+        catch (IOException e)
+        {
+            throw new DependencyCleanerException(
+                "Could not write report " + reportPath, e);
+        }
+    }
+    
+    /**
+     * Compute the {@link DependencyStatus}, either for the local 
+     * repository, for a single POM, or for the modules of a multi-module
+     * project
+     * 
+     * @param dependencyEngines The {@link DependencyEngines}
+     * @param listener The optional {@link DependencyStatusListener}
+     * @return The {@link DependencyStatus}
+     * @throws DependencyCleanerException If the POMs could not be read
+     */
+    private DependencyStatus computeDependencyStatus(
+        DependencyEngines dependencyEngines, 
+        DependencyStatusListener listener)
+    {
+        if (repositoryRoot != null)
+        {
+            return DependencyStatuses.computeForRepository(
+                dependencyEngines, repositoryRoot, listener);
+        }
+        EffectiveModelReader effectiveModelReader = 
+            new EffectiveModelReader(dependencyEngines.getResolutionEngine());
+        return DependencyStatuses.computeForPoms(dependencyEngines, 
+            effectiveModelReader, pomPaths, listener);
+    }
+    
+    /**
+     * Print all files of the given {@link DependencyStatus} that are not
+     * valid, followed by a summary, and return the exit code
+     * 
+     * @param dependencyStatus The {@link DependencyStatus}
+     * @return The exit code: {@link #EXIT_OK} if all files are valid,
+     * and {@link #EXIT_FAILED} otherwise
+     */
+    private static int report(DependencyStatus dependencyStatus)
+    {
+        Set<Path> paths = DependencyStatuses.computePaths(dependencyStatus);
+        int valid = 0;
+        int invalid = 0;
+        int checksumMismatches = 0;
+        int missing = 0;
+        for (Path path : paths)
+        {
+            ValidationStatus validationStatus = 
+                dependencyStatus.getValidationStatus(path);
+            if (validationStatus == null)
+            {
+                System.out.println("MISSING " + path);
+                missing++;
+            }
+            else if (validationStatus == ValidationStatus.VALID)
+            {
+                valid++;
+            }
+            else
+            {
+                System.out.println(validationStatus + " " + path);
+                if (validationStatus == ValidationStatus.CHECKSUM_MISMATCH)
+                {
+                    checksumMismatches++;
+                }
+                else
+                {
+                    invalid++;
+                }
+            }
+        }
+        System.out.println("Checked " + paths.size() + " files: " 
+            + valid + " valid, " + invalid + " invalid, " 
+            + checksumMismatches + " checksum mismatches, " 
+            + missing + " missing");
+        if (valid != paths.size())
+        {
+            return EXIT_FAILED;
+        }
+        return EXIT_OK;
+    }
+}
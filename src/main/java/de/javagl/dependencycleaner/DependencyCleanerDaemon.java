@@ -0,0 +1,790 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A resident daemon that keeps the {@link DependencyEngines} and the 
+ * {@link EffectiveModelReader} (with its cache of parsed POMs) alive 
+ * between requests, and offers them via a small HTTP API on the 
+ * loopback interface.<br>
+ * <br>
+ * The API consists of the following endpoints:
+ * <ul>
+ *   <li>
+ *     <code>/validate?pom=&lt;path&gt;</code>: Validate the dependencies
+ *     of a POM file, or of all POM files in a directory. The 
+ *     <code>pom</code> parameter may be given repeatedly.
+ *   </li>
+ *   <li>
+ *     <code>/validate-paths</code> (POST): Validate the JAR files whose 
+ *     paths are given in the request body, one per line
+ *   </li>
+ *   <li>
+ *     <code>/repair?pom=&lt;path&gt;</code> (POST): Validate the 
+ *     dependencies of the POM, delete the invalid files, and download
+ *     the deleted and missing files again
+ *   </li>
+ *   <li>
+ *     <code>/shutdown</code> (POST): Stop the daemon
+ *   </li>
+ * </ul>
+ * The responses are reports, as written by the 
+ * {@link ValidationReportWriter}, in JSON Lines format, or in CSV 
+ * format if the <code>format=csv</code> parameter is given. For 
+ * validations, the records are streamed while the files are validated.
+ * The report ends with a summary. If an error occurs after the 
+ * response was started, then the response is closed without a summary.
+ * <br>
+ * <br>
+ * Requests are processed concurrently, but a repair is only performed
+ * while no other request is processed, because it deletes files.<br>
+ * <br>
+ * Although the daemon only listens on the loopback interface, it could 
+ * otherwise be reached by web pages that are opened in a local browser.
+ * Therefore, requests are rejected when their <code>Host</code> header 
+ * does not refer to the loopback interface, or when they contain an 
+ * <code>Origin</code> header. Each request has to contain a 
+ * <code>X-DependencyCleaner-Token</code> header with the token that
+ * the daemon creates when it is started. This token is written into 
+ * a file that can only be read by the current user, and which is 
+ * deleted when the daemon is stopped.
+ */
+class DependencyCleanerDaemon
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger = 
+        Logger.getLogger(DependencyCleanerDaemon.class.getName());
+    
+    /**
+     * The default port
+     */
+    static final int DEFAULT_PORT = 8419;
+    
+    /**
+     * The number of threads that process requests
+     */
+    private static final int REQUEST_THREADS = 4;
+    
+    /**
+     * The name of the header that contains the token
+     */
+    static final String TOKEN_HEADER = "X-DependencyCleaner-Token";
+    
+    /**
+     * The number of random bytes of the token
+     */
+    private static final int TOKEN_BYTES = 32;
+    
+    /**
+     * The host names that are accepted in the <code>Host</code> header
+     */
+    private static final Set<String> LOOPBACK_HOSTS = 
+        new LinkedHashSet<String>(Arrays.asList(
+            "localhost", "127.0.0.1", "[::1]"));
+    
+    /**
+     * The {@link DependencyEngines}
+     */
+    private final DependencyEngines dependencyEngines;
+    
+    /**
+     * The {@link EffectiveModelReader}
+     */
+    private final EffectiveModelReader effectiveModelReader;
+    
+    /**
+     * The lock that ensures that repairs are performed exclusively
+     */
+    private final ReadWriteLock lock;
+    
+    /**
+     * The executor service for processing the requests
+     */
+    private final ExecutorService executorService;
+    
+    /**
+     * The HTTP server
+     */
+    private final HttpServer httpServer;
+    
+    /**
+     * The latch that is counted down when a shutdown was requested
+     */
+    private final CountDownLatch shutdownRequested;
+    
+    /**
+     * The token that has to be sent with each request
+     */
+    private final String token;
+    
+    /**
+     * The file that the {@link #token} is written to
+     */
+    private final Path tokenFile;
+    
+    /**
+     * Whether this daemon has already been stopped
+     */
+    private boolean stopped;
+    
+    /**
+     * Creates a new daemon that will listen on the given port of the
+     * loopback interface when it is {@link #run() run}
+     * 
+     * @param port The port
+     * @param resolutionOptions The {@link ResolutionOptions}
+     * @param validationOptions The {@link ValidationOptions}
+     * @throws DependencyCleanerException If the server can not be created,
+     * for example, because the port is already in use
+     */
+    DependencyCleanerDaemon(int port, ResolutionOptions resolutionOptions,
+        ValidationOptions validationOptions)
+    {
+        try
+        {
+            this.httpServer = HttpServer.create(new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), port), 0);
+        }
+        catch (IOException e)
+        {
+            throw new DependencyCleanerException(
+                "Could not listen on port " + port, e);
+        }
+        this.dependencyEngines = 
+            new DependencyEngines(resolutionOptions, validationOptions);
+        this.effectiveModelReader = 
+            new EffectiveModelReader(dependencyEngines.getResolutionEngine());
+        this.lock = new ReentrantReadWriteLock();
+        this.shutdownRequested = new CountDownLatch(1);
+        this.token = createToken();
+        this.tokenFile = dependencyEngines.getResolutionEngine()
+            .getLocalRepositoryPath().resolve(".dependency-cleaner")
+            .resolve("daemon-" + port + ".token");
+        
+        AtomicInteger counter = new AtomicInteger();
+        this.executorService = Executors.newFixedThreadPool(
+            REQUEST_THREADS, runnable -> 
+            {
+                Thread thread = new Thread(runnable, 
+                    "DependencyCleanerDaemon-" + counter.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        httpServer.setExecutor(executorService);
+        httpServer.createContext("/validate", 
+            checked(this::handleValidate));
+        httpServer.createContext("/validate-paths", 
+            checked(this::handleValidatePaths));
+        httpServer.createContext("/repair", 
+            checked(this::handleRepair));
+        httpServer.createContext("/shutdown", 
+            checked(this::handleShutdown));
+    }
+    
+    /**
+     * Start the daemon, and wait until a shutdown is requested via the
+     * API, or the JVM is shut down
+     * 
+     * @throws DependencyCleanerException If the token file can not be
+     * written
+     */
+    void run()
+    {
+        writeTokenFile(tokenFile, token);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop));
+        httpServer.start();
+        System.out.println("Listening on http://" 
+            + httpServer.getAddress().getHostString() + ":" 
+            + httpServer.getAddress().getPort());
+        System.out.println("The " + TOKEN_HEADER + " header for the " 
+            + "requests is stored in " + tokenFile);
+        try
+        {
+            shutdownRequested.await();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        stop();
+    }
+    
+    /**
+     * Stop the server, shut down the engines, and save the caches. 
+     * Repeated calls have no effect.
+     */
+    private synchronized void stop()
+    {
+        if (stopped)
+        {
+            return;
+        }
+        stopped = true;
+        httpServer.stop(0);
+        executorService.shutdown();
+        dependencyEngines.shutdown();
+        try
+        {
+            Files.deleteIfExists(tokenFile);
+        }
+        catch (IOException e)
+        {
+            logger.warning("Could not delete " + tokenFile 
+                + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Returns a handler that only passes the requests to the given 
+     * handler if they are {@link #checkRequest(HttpExchange) accepted},
+     * and otherwise responds with <code>403 Forbidden</code>
+     * 
+     * @param handler The handler
+     * @return The checking handler
+     */
+    private HttpHandler checked(HttpHandler handler)
+    {
+        return exchange -> 
+        {
+            String error = checkRequest(exchange);
+            if (error != null)
+            {
+                try
+                {
+                    sendError(exchange, 403, error);
+                }
+                finally
+                {
+                    exchange.close();
+                }
+                return;
+            }
+            handler.handle(exchange);
+        };
+    }
+    
+    /**
+     * Check whether the given request should be accepted. This is the 
+     * case when its <code>Host</code> header refers to the loopback 
+     * interface, it does not have an <code>Origin</code> header, and it
+     * contains the {@link #TOKEN_HEADER} with the valid token.
+     * 
+     * @param exchange The exchange
+     * @return The reason why the request is rejected, or 
+     * <code>null</code> if it is accepted
+     */
+    private String checkRequest(HttpExchange exchange)
+    {
+        String host = exchange.getRequestHeaders().getFirst("Host");
+        if (host == null || !LOOPBACK_HOSTS.contains(
+            removePort(host).toLowerCase(Locale.ENGLISH)))
+        {
+            return "Expected a loopback host";
+        }
+        if (exchange.getRequestHeaders().containsKey("Origin"))
+        {
+            return "Cross-origin requests are not allowed";
+        }
+        String requestToken = 
+            exchange.getRequestHeaders().getFirst(TOKEN_HEADER);
+        if (requestToken == null || !MessageDigest.isEqual(
+            token.getBytes(StandardCharsets.UTF_8), 
+            requestToken.getBytes(StandardCharsets.UTF_8)))
+        {
+            return "Expected a valid " + TOKEN_HEADER + " header";
+        }
+        return null;
+    }
+    
+    /**
+     * Remove the port from the given value of a <code>Host</code> header
+     * 
+     * @param host The host
+     * @return The host without the port
+     */
+    private static String removePort(String host)
+    {
+        if (host.startsWith("["))
+        {
+            int bracketIndex = host.indexOf(']');
+            return bracketIndex == -1 ? host : 
+                host.substring(0, bracketIndex + 1);
+        }
+        int colonIndex = host.indexOf(':');
+        return colonIndex == -1 ? host : host.substring(0, colonIndex);
+    }
+    
+    /**
+     * Create a random token, as a hexadecimal string
+     * 
+     * @return The token
+     */
+    private static String createToken()
+    {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes)
+        {
+            sb.append(String.format("%02x", b & 0xFF));
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Write the given token into the given file. If the file system 
+     * supports it, the file will only be readable by the current user.
+     * 
+     * @param tokenFile The token file
+     * @param token The token
+     * @throws DependencyCleanerException If the file can not be written
+     */
+    private static void writeTokenFile(Path tokenFile, String token)
+    {
+        try
+        {
+            Files.createDirectories(tokenFile.getParent());
+            Files.deleteIfExists(tokenFile);
+            Files.createFile(tokenFile);
+            try
+            {
+                Files.setPosixFilePermissions(tokenFile, EnumSet.of(
+                    PosixFilePermission.OWNER_READ, 
+                    PosixFilePermission.OWNER_WRITE));
+            }
+            catch (UnsupportedOperationException e)
+            {
+                // The file system does not support POSIX permissions,
+                // and the file remains readable according to the 
+                // defaults of the file system
+            }
+            Files.write(tokenFile, token.getBytes(StandardCharsets.UTF_8));
+        }
+        catch (IOException e)
+        {
+            throw new DependencyCleanerException(
+                "Could not write token file " + tokenFile, e);
+        }
+    }
+    
+    /**
+     * Handle a request to validate the dependencies of POMs
+     * 
+     * @param exchange The exchange
+     * @throws IOException If an IO error occurs
+     */
+    private void handleValidate(HttpExchange exchange) throws IOException
+    {
+        Map<String, List<String>> parameters = parseParameters(exchange);
+        List<Path> pomPaths = getPaths(parameters, "pom");
+        if (pomPaths == null)
+        {
+            sendError(exchange, 400, "Expected existing 'pom' paths");
+            return;
+        }
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try
+        {
+            ValidationReportWriter reportWriter = 
+                startReport(exchange, parameters);
+            DependencyStatus dependencyStatus = 
+                DependencyStatuses.computeForPoms(dependencyEngines, 
+                    effectiveModelReader, pomPaths, reportWriter);
+            for (Path path : 
+                DependencyStatuses.computeMissingPaths(dependencyStatus))
+            {
+                reportWriter.missing(path);
+            }
+            reportWriter.close();
+        }
+        catch (DependencyCleanerException e)
+        {
+            handleError(exchange, e);
+        }
+        finally
+        {
+            readLock.unlock();
+            exchange.close();
+        }
+    }
+    
+    /**
+     * Handle a request to validate the paths that are given in the body
+     * of the request, one per line
+     * 
+     * @param exchange The exchange
+     * @throws IOException If an IO error occurs
+     */
+    private void handleValidatePaths(HttpExchange exchange) 
+        throws IOException
+    {
+        if (!"POST".equals(exchange.getRequestMethod()))
+        {
+            sendError(exchange, 405, "Expected POST");
+            return;
+        }
+        Map<String, List<String>> parameters = parseParameters(exchange);
+        Set<Path> paths = new LinkedHashSet<Path>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+            exchange.getRequestBody(), StandardCharsets.UTF_8)))
+        {
+            String line = null;
+            while ((line = reader.readLine()) != null)
+            {
+                if (!line.trim().isEmpty())
+                {
+                    paths.add(Paths.get(line.trim()));
+                }
+            }
+        }
+        ValidationEngine validationEngine = 
+            dependencyEngines.getValidationEngine();
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try
+        {
+            ValidationReportWriter reportWriter = 
+                startReport(exchange, parameters);
+            List<CompletableFuture<?>> futures = 
+                new ArrayList<CompletableFuture<?>>();
+            for (Path path : paths)
+            {
+                if (Files.exists(path))
+                {
+                    futures.add(validationEngine.submit(path).thenAccept(
+                        validationResult -> 
+                            reportWriter.validated(path, validationResult)));
+                }
+                else
+                {
+                    reportWriter.missing(path);
+                }
+            }
+            for (CompletableFuture<?> future : futures)
+            {
+                ValidationEngine.await(future);
+            }
+            reportWriter.close();
+        }
+        catch (DependencyCleanerException e)
+        {
+            handleError(exchange, e);
+        }
+        finally
+        {
+            readLock.unlock();
+            exchange.close();
+        }
+    }
+    
+    /**
+     * Handle a request to repair the dependencies of POMs
+     * 
+     * @param exchange The exchange
+     * @throws IOException If an IO error occurs
+     */
+    private void handleRepair(HttpExchange exchange) throws IOException
+    {
+        if (!"POST".equals(exchange.getRequestMethod()))
+        {
+            sendError(exchange, 405, "Expected POST");
+            return;
+        }
+        Map<String, List<String>> parameters = parseParameters(exchange);
+        List<Path> pomPaths = getPaths(parameters, "pom");
+        if (pomPaths == null)
+        {
+            sendError(exchange, 400, "Expected existing 'pom' paths");
+            return;
+        }
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try
+        {
+            DependencyStatus dependencyStatus = 
+                DependencyStatuses.computeForPoms(dependencyEngines, 
+                    effectiveModelReader, pomPaths, null);
+            Set<Path> pathsToRepair = DependencyStatuses.remove(
+                dependencyStatus, dependencyStatus.getPathsToRemove());
+            pathsToRepair.addAll(
+                DependencyStatuses.computeMissingPaths(dependencyStatus));
+            Map<Path, ValidationResult> validationResults = 
+                DependencyStatuses.repair(dependencyEngines, 
+                    dependencyStatus, pathsToRepair, null);
+            DependencyStatuses.apply(dependencyStatus, validationResults);
+            ValidationReportWriter reportWriter = 
+                startReport(exchange, parameters);
+            writeReport(dependencyStatus, reportWriter);
+            reportWriter.close();
+        }
+        catch (DependencyCleanerException e)
+        {
+            handleError(exchange, e);
+        }
+        finally
+        {
+            writeLock.unlock();
+            exchange.close();
+        }
+    }
+    
+    /**
+     * Handle a request to shut down the daemon
+     * 
+     * @param exchange The exchange
+     * @throws IOException If an IO error occurs
+     */
+    private void handleShutdown(HttpExchange exchange) throws IOException
+    {
+        if (!"POST".equals(exchange.getRequestMethod()))
+        {
+            sendError(exchange, 405, "Expected POST");
+            return;
+        }
+        byte[] response = "Shutting down\n".getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream outputStream = exchange.getResponseBody())
+        {
+            outputStream.write(response);
+        }
+        shutdownRequested.countDown();
+    }
+    
+    /**
+     * Write records for all paths of the given {@link DependencyStatus}
+     * to the given writer
+     * 
+     * @param dependencyStatus The {@link DependencyStatus}
+     * @param reportWriter The {@link ValidationReportWriter}
+     */
+    private static void writeReport(DependencyStatus dependencyStatus,
+        ValidationReportWriter reportWriter)
+    {
+        for (Path path : DependencyStatuses.computePaths(dependencyStatus))
+        {
+            ValidationResult validationResult = 
+                dependencyStatus.getValidationResult(path);
+            if (validationResult == null)
+            {
+                reportWriter.missing(path);
+            }
+            else
+            {
+                reportWriter.validated(path, validationResult);
+            }
+        }
+    }
+    
+    /**
+     * Send the response headers for a report, and return a 
+     * {@link ValidationReportWriter} that writes the report into the
+     * response body, in the format that is given by the 
+     * <code>format</code> parameter
+     * 
+     * @param exchange The exchange
+     * @param parameters The request parameters
+     * @return The {@link ValidationReportWriter}
+     * @throws IOException If an IO error occurs
+     */
+    private ValidationReportWriter startReport(HttpExchange exchange,
+        Map<String, List<String>> parameters) throws IOException
+    {
+        ValidationReportWriter.Format format = 
+            ValidationReportWriter.Format.JSONL;
+        String contentType = "application/x-ndjson";
+        List<String> formats = parameters.get("format");
+        if (formats != null && 
+            formats.contains(ValidationReportWriter.Format.CSV.name()
+                .toLowerCase(Locale.ENGLISH)))
+        {
+            format = ValidationReportWriter.Format.CSV;
+            contentType = "text/csv";
+        }
+        exchange.getResponseHeaders().set(
+            "Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+        Writer writer = new OutputStreamWriter(
+            exchange.getResponseBody(), StandardCharsets.UTF_8);
+        return new ValidationReportWriter(writer, format, 
+            dependencyEngines.getResolutionEngine().getLocalRepositoryPath());
+    }
+    
+    /**
+     * Handle the given exception that was caused by processing a request.
+     * If the response was not started yet, then an error response is
+     * sent. Otherwise, the response will end without a summary.
+     * 
+     * @param exchange The exchange
+     * @param e The exception
+     */
+    private static void handleError(
+        HttpExchange exchange, DependencyCleanerException e)
+    {
+        logger.log(Level.WARNING, e.getMessage(), e);
+        if (exchange.getResponseCode() == -1)
+        {
+            try
+            {
+                sendError(exchange, 500, e.getMessage());
+            }
+            catch (IOException ioException)
+            {
+                logger.warning("Could not send error response: " 
+                    + ioException.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Send an error response with the given status code and message
+     * 
+     * @param exchange The exchange
+     * @param code The status code
+     * @param message The message
+     * @throws IOException If an IO error occurs
+     */
+    private static void sendError(HttpExchange exchange, int code, 
+        String message) throws IOException
+    {
+        byte[] response = 
+            (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set(
+            "Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(code, response.length);
+        try (OutputStream outputStream = exchange.getResponseBody())
+        {
+            outputStream.write(response);
+        }
+    }
+    
+    /**
+     * Returns the paths that are given as the values of the specified 
+     * parameter, or <code>null</code> if there are no such values, or 
+     * one of the paths does not exist
+     * 
+     * @param parameters The parameters
+     * @param name The parameter name
+     * @return The paths
+     */
+    private static List<Path> getPaths(
+        Map<String, List<String>> parameters, String name)
+    {
+        List<String> values = parameters.get(name);
+        if (values == null)
+        {
+            return null;
+        }
+        List<Path> paths = new ArrayList<Path>();
+        for (String value : values)
+        {
+            Path path = Paths.get(value);
+            if (!Files.exists(path))
+            {
+                return null;
+            }
+            paths.add(path);
+        }
+        return paths;
+    }
+    
+    /**
+     * Parse the parameters from the query of the request URI of the 
+     * given exchange
+     * 
+     * @param exchange The exchange
+     * @return The mapping from parameter names to their values
+     * @throws UnsupportedEncodingException If UTF-8 is not supported,
+     * which should never happen
+     */
+    private static Map<String, List<String>> parseParameters(
+        HttpExchange exchange) throws UnsupportedEncodingException
+    {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty())
+        {
+            return Collections.emptyMap();
+        }
+        Map<String, List<String>> parameters = 
+            new LinkedHashMap<String, List<String>>();
+        for (String pair : query.split("&"))
+        {
+            int index = pair.indexOf('=');
+            String name = index == -1 ? pair : pair.substring(0, index);
+            String value = index == -1 ? "" : pair.substring(index + 1);
+            parameters.computeIfAbsent(
+                URLDecoder.decode(name, "UTF-8"), 
+                n -> new ArrayList<String>()).add(
+                    URLDecoder.decode(value, "UTF-8"));
+        }
+        return parameters;
+    }
+}
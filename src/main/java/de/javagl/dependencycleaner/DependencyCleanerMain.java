@@ -35,12 +35,21 @@ import javax.swing.SwingUtilities;
 public class DependencyCleanerMain
 {
     /**
-     * The entry point
+     * The entry point.<br>
+     * <br>
+     * If no arguments are given, the GUI is shown. Otherwise, the 
+     * arguments are passed to the {@link DependencyCleanerCli}, and the
+     * application exits with its exit code. In this case, no AWT or 
+     * Swing classes are loaded.
      * 
-     * @param args Not used
+     * @param args The command line arguments
      */
     public static void main(final String[] args)
     {
+        if (args.length > 0)
+        {
+            System.exit(DependencyCleanerCli.run(args));
+        }
         SwingUtilities.invokeLater(() -> createAndShowGui());
     }
 
@@ -0,0 +1,236 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.nio.file.Path;
+
+/**
+ * The engines and caches that are used for computing a 
+ * {@link DependencyStatus}. Instances of this class may be used for 
+ * multiple computations, so that the caches stay warm between them.<br>
+ * <br>
+ * Instances of this class should be {@link #shutdown() shut down} when
+ * they are no longer needed. This class is thread-safe.
+ */
+class DependencyEngines
+{
+    /**
+     * The {@link ResolutionOptions}
+     */
+    private final ResolutionOptions resolutionOptions;
+    
+    /**
+     * The {@link ValidationOptions}
+     */
+    private final ValidationOptions validationOptions;
+    
+    /**
+     * The optional {@link ValidationCache}
+     */
+    private final ValidationCache validationCache;
+    
+    /**
+     * The {@link ValidationEngine}
+     */
+    private final ValidationEngine validationEngine;
+    
+    /**
+     * The {@link ResolutionEngine}
+     */
+    private final ResolutionEngine resolutionEngine;
+    
+    /**
+     * The optional {@link GraphCache}
+     */
+    private final GraphCache graphCache;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param resolutionOptions The {@link ResolutionOptions}
+     * @param validationOptions The {@link ValidationOptions}
+     */
+    DependencyEngines(ResolutionOptions resolutionOptions,
+        ValidationOptions validationOptions)
+    {
+        this.resolutionOptions = resolutionOptions;
+        this.validationOptions = validationOptions;
+        this.resolutionEngine = new ResolutionEngine(resolutionOptions);
+        this.validationCache = createValidationCache(validationOptions, 
+            resolutionEngine.getLocalRepositoryPath());
+        this.validationEngine = 
+            new ValidationEngine(validationOptions, validationCache);
+        this.graphCache = 
+            createGraphCache(resolutionOptions, resolutionEngine);
+    }
+    
+    /**
+     * Create the {@link GraphCache} for the given {@link ResolutionOptions},
+     * or <code>null</code> if no cache should be used
+     * 
+     * @param resolutionOptions The {@link ResolutionOptions}
+     * @param resolutionEngine The {@link ResolutionEngine}
+     * @return The {@link GraphCache}
+     */
+    private static GraphCache createGraphCache(
+        ResolutionOptions resolutionOptions, 
+        ResolutionEngine resolutionEngine)
+    {
+        Path graphCacheFile = resolutionOptions.getGraphCacheFile();
+        if (graphCacheFile == null || resolutionOptions.isCombinedRequest())
+        {
+            return null;
+        }
+        Path localRepositoryPath = resolutionEngine.getLocalRepositoryPath();
+        return new GraphCache(
+            localRepositoryPath.resolve(graphCacheFile), 
+            localRepositoryPath,
+            resolutionEngine.getDependencyFilterDescription());
+    }
+    
+    /**
+     * Create the {@link ValidationCache} for the given 
+     * {@link ValidationOptions}, or <code>null</code> if no cache 
+     * should be used
+     * 
+     * @param validationOptions The {@link ValidationOptions}
+     * @param localRepositoryPath The path of the local repository, which
+     * a relative cache file is resolved against
+     * @return The {@link ValidationCache}
+     */
+    static ValidationCache createValidationCache(
+        ValidationOptions validationOptions, Path localRepositoryPath)
+    {
+        Path validationCacheFile = validationOptions.getValidationCacheFile();
+        if (validationCacheFile == null)
+        {
+            return null;
+        }
+        return new ValidationCache(
+            localRepositoryPath.resolve(validationCacheFile), 
+            ValidationEngine.VALIDATOR_VERSION);
+    }
+    
+    /**
+     * Returns the {@link ResolutionOptions}
+     * 
+     * @return The {@link ResolutionOptions}
+     */
+    ResolutionOptions getResolutionOptions()
+    {
+        return resolutionOptions;
+    }
+    
+    /**
+     * Returns the {@link ValidationOptions}
+     * 
+     * @return The {@link ValidationOptions}
+     */
+    ValidationOptions getValidationOptions()
+    {
+        return validationOptions;
+    }
+    
+    /**
+     * Returns the {@link ValidationEngine}
+     * 
+     * @return The {@link ValidationEngine}
+     */
+    ValidationEngine getValidationEngine()
+    {
+        return validationEngine;
+    }
+    
+    /**
+     * Returns the {@link ResolutionEngine}
+     * 
+     * @return The {@link ResolutionEngine}
+     */
+    ResolutionEngine getResolutionEngine()
+    {
+        return resolutionEngine;
+    }
+    
+    /**
+     * Returns the optional {@link GraphCache}
+     * 
+     * @return The {@link GraphCache}
+     */
+    GraphCache getGraphCache()
+    {
+        return graphCache;
+    }
+    
+    /**
+     * Save the caches
+     */
+    void saveCaches()
+    {
+        if (graphCache != null)
+        {
+            graphCache.save();
+        }
+        if (validationCache != null)
+        {
+            validationCache.save();
+        }
+    }
+    
+    /**
+     * Shut down the engines and save the caches.<br>
+     * <br>
+     * If the calling thread was interrupted, for example because the
+     * computation that used these engines was cancelled, then the pending
+     * tasks of the engines are discarded. The interrupted state of the
+     * thread is restored after the caches have been saved.
+     */
+    void shutdown()
+    {
+        boolean interrupted = Thread.interrupted();
+        try
+        {
+            if (interrupted)
+            {
+                resolutionEngine.shutdownNow();
+                validationEngine.shutdownNow();
+            }
+            else
+            {
+                resolutionEngine.shutdown();
+                validationEngine.shutdown();
+            }
+            saveCaches();
+        }
+        finally
+        {
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.graph.DependencyNode;
+
+/**
+ * A class for building {@link DependencyTreeNode} graphs from the 
+ * dependency graphs of Aether.<br>
+ * <br>
+ * Each distinct node is only built once, and shared by all nodes that 
+ * depend on it, in all graphs that are built with the same instance. 
+ * Two nodes are considered to be equal when they have the same name 
+ * (the coordinates of the artifact) and the same children. So a library 
+ * that is reached through many paths is only represented (and stored) 
+ * once, unless its dependencies differ between the paths (for example,
+ * due to exclusions). The tree that is shown in the UI is only a view 
+ * on the resulting graph. Edges that would introduce a cycle are 
+ * omitted.<br>
+ * <br>
+ * Nodes are only shared after their children have been built 
+ * completely, so instances of this class may be used by multiple
+ * threads concurrently.
+ */
+class DependencyGraphBuilder
+{
+    /**
+     * The nodes that have been built. The keys are lists containing the
+     * name of the node, followed by its children. 
+     */
+    private final Map<List<Object>, DependencyTreeNode> nodes;
+    
+    /**
+     * The pool for the {@link ArtifactInfo} objects of the nodes
+     */
+    private final ArtifactInfoPool artifactInfoPool;
+    
+    /**
+     * Creates a new instance
+     */
+    DependencyGraphBuilder()
+    {
+        this.nodes = 
+            new ConcurrentHashMap<List<Object>, DependencyTreeNode>();
+        this.artifactInfoPool = new ArtifactInfoPool();
+    }
+    
+    /**
+     * Build the {@link DependencyTreeNode} graph for the given 
+     * DependencyNode graph, re-using the nodes that have already
+     * been built
+     * 
+     * @param node The root of the DependencyNode graph
+     * @return The resulting node
+     */
+    DependencyTreeNode build(DependencyNode node)
+    {
+        return build(node, new HashSet<String>(), 
+            new IdentityHashMap<DependencyNode, DependencyTreeNode>());
+    }
+    
+    /**
+     * Implementation of {@link #build(DependencyNode)}
+     * 
+     * @param node The current node
+     * @param pathNames The names of the nodes on the path from the root
+     * to the current node, used for detecting cycles
+     * @param built The nodes that have already been built for the nodes
+     * of the current DependencyNode graph
+     * @return The resulting node
+     */
+    private DependencyTreeNode build(DependencyNode node, 
+        Set<String> pathNames, Map<DependencyNode, DependencyTreeNode> built)
+    {
+        DependencyTreeNode existing = built.get(node);
+        if (existing != null)
+        {
+            return existing;
+        }
+        Artifact artifact = node.getArtifact();
+        String name = artifact.toString();
+        List<DependencyTreeNode> children = 
+            new ArrayList<DependencyTreeNode>();
+        pathNames.add(name);
+        for (DependencyNode child : node.getChildren())
+        {
+            if (!pathNames.contains(child.getArtifact().toString()))
+            {
+                children.add(build(child, pathNames, built));
+            }
+        }
+        pathNames.remove(name);
+        DependencyTreeNode result = nodes.get(createKey(name, children));
+        if (result == null)
+        {
+            String groupId = artifact.getGroupId();
+            String artifactId = artifact.getArtifactId();
+            String version = artifact.getVersion();
+            Path path = null;
+            if (artifact.getFile() != null)
+            {
+                path = artifact.getFile().toPath();
+            }
+            ArtifactInfo artifactInfo = 
+                artifactInfoPool.get(groupId, artifactId, version);
+            result = share(new DependencyTreeNode(
+                name, artifactInfo, path), children);
+        }
+        built.put(node, result);
+        return result;
+    }
+    
+    /**
+     * Returns a graph that is equal to the given {@link DependencyTreeNode}
+     * graph (for example, one that was obtained from a {@link GraphCache}),
+     * but consists of the nodes that have already been built, where 
+     * possible. 
+     * 
+     * @param node The root of the graph
+     * @return The resulting node
+     */
+    DependencyTreeNode intern(DependencyTreeNode node)
+    {
+        return intern(node, 
+            new IdentityHashMap<DependencyTreeNode, DependencyTreeNode>());
+    }
+    
+    /**
+     * Implementation of {@link #intern(DependencyTreeNode)}
+     * 
+     * @param node The current node
+     * @param interned The nodes that have already been interned for the
+     * nodes of the given graph
+     * @return The resulting node
+     */
+    private DependencyTreeNode intern(DependencyTreeNode node, 
+        Map<DependencyTreeNode, DependencyTreeNode> interned)
+    {
+        DependencyTreeNode existing = interned.get(node);
+        if (existing != null)
+        {
+            return existing;
+        }
+        List<DependencyTreeNode> children = 
+            new ArrayList<DependencyTreeNode>();
+        for (DependencyTreeNode child : node.getChildren())
+        {
+            children.add(intern(child, interned));
+        }
+        DependencyTreeNode result = 
+            nodes.get(createKey(node.getName(), children));
+        if (result == null)
+        {
+            ArtifactInfo artifactInfo = node.getArtifactInfo();
+            if (artifactInfo != null)
+            {
+                artifactInfo = artifactInfoPool.get(
+                    artifactInfo.getGroupId(), 
+                    artifactInfo.getArtifactId(), 
+                    artifactInfo.getVersion());
+            }
+            result = share(new DependencyTreeNode(node.getName(), 
+                artifactInfo, node.getPath()), children);
+        }
+        interned.put(node, result);
+        return result;
+    }
+    
+    /**
+     * Add the given children to the given node, and store it as the 
+     * shared node for its name and children, if there is no such node 
+     * yet. Returns the shared node.
+     * 
+     * @param node The node
+     * @param children The children
+     * @return The shared node
+     */
+    private DependencyTreeNode share(
+        DependencyTreeNode node, List<DependencyTreeNode> children)
+    {
+        for (DependencyTreeNode child : children)
+        {
+            node.addChild(child);
+        }
+        List<Object> key = createKey(node.getName(), children);
+        DependencyTreeNode existing = nodes.putIfAbsent(key, node);
+        if (existing != null)
+        {
+            return existing;
+        }
+        return node;
+    }
+    
+    /**
+     * Create the key for the node with the given name and children. 
+     * Since {@link DependencyTreeNode} does not override the 
+     * <code>equals</code> method, the children are compared by
+     * their identity.
+     * 
+     * @param name The name
+     * @param children The children
+     * @return The key
+     */
+    private static List<Object> createKey(
+        String name, List<DependencyTreeNode> children)
+    {
+        List<Object> key = new ArrayList<Object>(children.size() + 1);
+        key.add(name);
+        key.addAll(children);
+        return key;
+    }
+}
@@ -42,12 +42,10 @@ class DependencyStatus
     private final DependencyTreeNode dependencyTreeNode;
     
     /**
-     * The mapping from paths to their status. The status may either
-     * be <code>true</code> or <code>false</code> indicating whether
-     * the path is valid, or <code>null</code> if the path does not
-     * exist
+     * The mapping from paths to their {@link ValidationResult}. Paths 
+     * that do not exist are not contained in this map.
      */
-    private final Map<Path, Boolean> validPaths;
+    private final Map<Path, ValidationResult> validationResults;
     
     /**
      * The paths that should be removed
@@ -58,14 +56,15 @@ class DependencyStatus
      * Creates a new instance
      * 
      * @param dependencyTreeNode The {@link DependencyTreeNode}
-     * @param validPaths The valid paths
+     * @param validationResults The {@link ValidationResult} for each path
      * @param pathsToRemove The paths to remove
      */
     DependencyStatus(DependencyTreeNode dependencyTreeNode,
-        Map<Path, Boolean> validPaths, Set<Path> pathsToRemove)
+        Map<Path, ValidationResult> validationResults, 
+        Set<Path> pathsToRemove)
     {
         this.dependencyTreeNode = dependencyTreeNode;
-        this.validPaths = validPaths;
+        this.validationResults = validationResults;
         this.pathsToRemove = pathsToRemove;
     }
     
@@ -80,32 +79,67 @@ class DependencyStatus
     }
     
     /**
-     * Returns whether the given path is valid, or <code>null</code> if the
-     * given path does not exist
+     * Returns the {@link ValidationStatus} of the given path, or 
+     * <code>null</code> if the given path does not exist
      * 
      * @param path The path
-     * @return Whether the path is valid
+     * @return The {@link ValidationStatus}
      */
-    Boolean isValidPath(Path path) 
+    ValidationStatus getValidationStatus(Path path) 
     {
-        return validPaths.get(path);
+        ValidationResult validationResult = validationResults.get(path);
+        if (validationResult == null)
+        {
+            return null;
+        }
+        return validationResult.getValidationStatus();
+    }
+    
+    /**
+     * Returns the {@link ValidationTier} with which the given path was 
+     * validated, or <code>null</code> if the given path does not exist
+     * 
+     * @param path The path
+     * @return The {@link ValidationTier}
+     */
+    ValidationTier getValidationTier(Path path) 
+    {
+        ValidationResult validationResult = validationResults.get(path);
+        if (validationResult == null)
+        {
+            return null;
+        }
+        return validationResult.getValidationTier();
+    }
+    
+    /**
+     * Returns the {@link ValidationResult} of the given path, or 
+     * <code>null</code> if the given path does not exist
+     * 
+     * @param path The path
+     * @return The {@link ValidationResult}
+     */
+    ValidationResult getValidationResult(Path path) 
+    {
+        return validationResults.get(path);
     }
     
     /**
-     * Set whether the given path is valid
+     * Set the {@link ValidationResult} of the given path
      * 
      * @param path The path
-     * @param state The state
+     * @param validationResult The {@link ValidationResult}. This may be
+     * <code>null</code> to indicate that the path does not exist
      */
-    void setValidPath(Path path, Boolean state)
+    void setValidationResult(Path path, ValidationResult validationResult)
     {
-        if (state == null)
+        if (validationResult == null)
         {
-            validPaths.remove(path);
+            validationResults.remove(path);
         }
         else
         {
-            validPaths.put(path, state);
+            validationResults.put(path, validationResult);
         }
     }
     
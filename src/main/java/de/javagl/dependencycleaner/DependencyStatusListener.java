@@ -0,0 +1,55 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.nio.file.Path;
+
+/**
+ * Interface for classes that want to be informed about the progress
+ * of the computation of a {@link DependencyStatus}.<br>
+ * <br>
+ * The methods of this interface may be called from different threads,
+ * and concurrently.
+ */
+interface DependencyStatusListener
+{
+    /**
+     * Will be called when a (complete) child has been added to the root
+     * node of the {@link DependencyStatus} that is being computed
+     * 
+     * @param child The child node
+     */
+    void childAdded(DependencyTreeNode child);
+    
+    /**
+     * Will be called when the given path has been validated
+     * 
+     * @param path The path
+     * @param validationResult The {@link ValidationResult}
+     */
+    void validated(Path path, ValidationResult validationResult);
+}
@@ -0,0 +1,218 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.nio.file.Path;
+
+import de.javagl.treetable.AbstractTreeTableModel;
+import de.javagl.treetable.TreeTableModel;
+
+/**
+ * Implementation of a TreeTableModel for a {@link DependencyStatus}
+ */
+class DependencyStatusTreeTableModel extends AbstractTreeTableModel
+{
+    /**
+     * The {@link DependencyStatus}
+     */
+    private final DependencyStatus dependencyStatus;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param dependencyStatus The {@link DependencyStatus}. This may
+     * be <code>null</code>
+     */
+    DependencyStatusTreeTableModel(DependencyStatus dependencyStatus)
+    {
+        super(getRoot(dependencyStatus));
+        this.dependencyStatus = dependencyStatus;
+    }
+    
+    /**
+     * Returns the root node of the given {@link DependencyStatus}, or
+     * <code>null</code> if the given status is <code>null</code>
+     * 
+     * @param dependencyStatus The {@link DependencyStatus}
+     * @return The root node
+     */
+    private static DependencyTreeNode getRoot(
+        DependencyStatus dependencyStatus)
+    {
+        if (dependencyStatus == null)
+        {
+            return null;
+        }
+        return dependencyStatus.getDependencyTreeNode();
+    }
+    
+    @Override
+    public int getChildCount(Object node)
+    {
+        DependencyTreeNode dependencyTreeNode = 
+            (DependencyTreeNode)node;
+        return dependencyTreeNode.getChildren().size();
+    }
+
+    @Override
+    public Object getChild(Object node, int childIndex)
+    {
+        DependencyTreeNode dependencyTreeNode = 
+            (DependencyTreeNode)node;
+        return dependencyTreeNode.getChildren().get(childIndex);
+    }
+
+    @Override
+    public int getColumnCount()
+    {
+        return 8;
+    }
+
+    @Override
+    public Object getValueAt(Object node, int column)
+    {
+        DependencyTreeNode dependencyTreeNode = 
+            (DependencyTreeNode)node;
+        Path path = dependencyTreeNode.getPath();
+        ArtifactInfo artifactInfo = 
+            dependencyTreeNode.getArtifactInfo();
+        switch (column) 
+        {
+            case 0:
+                return this;
+            case 1:
+                return artifactInfo == null ? "" : artifactInfo.getGroupId();
+            case 2:
+                return artifactInfo == null ? "" : 
+                    artifactInfo.getArtifactId();
+            case 3:
+                return artifactInfo == null ? "" : artifactInfo.getVersion();
+            case 4:
+                if (path == null)
+                {
+                    return "";
+                }
+                return dependencyStatus.getValidationStatus(path);
+            case 5:
+                return dependencyStatus.getValidationTier(path);
+            case 6: 
+                return dependencyStatus.isPathToRemove(path);
+            case 7: 
+                return path;
+        }
+        return "?";
+    }
+    
+    @Override
+    public void setValueAt(Object aValue, Object node, int column)
+    {
+        if (column == 6)
+        {
+            DependencyTreeNode dependencyTreeNode =
+                (DependencyTreeNode)node;
+            Path path = dependencyTreeNode.getPath();
+            boolean toRemove = Boolean.valueOf(String.valueOf(aValue));
+            dependencyStatus.setPathToRemove(path, toRemove);
+        }
+    }
+    
+    @Override
+    public boolean isCellEditable(Object node, int column)
+    {
+        return super.isCellEditable(node, column) || column == 6;
+    }
+
+    @Override
+    public String getColumnName(int column)
+    {
+        switch (column) 
+        {
+            case 0: 
+                return "Dependencies";
+            case 1:
+                return "group ID";
+            case 2:
+                return "artifact ID";
+            case 3:
+                return "version";
+            case 4:
+                return "valid?";
+            case 5:
+                return "tier";
+            case 6: 
+                return "remove?";
+            case 7: 
+                return "path";
+        }
+        return "?";
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column)
+    {
+        if (column == 0)
+        {
+            return TreeTableModel.class;                    
+        }
+        if (column == 6)
+        {
+            return Boolean.class;
+        }
+        return Object.class;
+    }
+
+    /**
+     * Notify all listeners that the children in the given index range 
+     * have been added to the root node
+     * 
+     * @param fromIndex The start index, inclusive
+     * @param toIndex The end index, exclusive
+     */
+    void fireRootChildrenAdded(int fromIndex, int toIndex)
+    {
+        DependencyTreeNode root = getRoot(dependencyStatus);
+        int[] childIndices = new int[toIndex - fromIndex];
+        Object[] children = new Object[toIndex - fromIndex];
+        for (int i = fromIndex; i < toIndex; i++)
+        {
+            childIndices[i - fromIndex] = i;
+            children[i - fromIndex] = root.getChildren().get(i);
+        }
+        fireTreeNodesInserted(this, new Object[] { root }, 
+            childIndices, children);
+    }
+    
+    /**
+     * Notify all listeners that the values that are displayed for the
+     * nodes may have changed
+     */
+    void fireValuesChanged()
+    {
+        DependencyTreeNode root = getRoot(dependencyStatus);
+        fireTreeNodesChanged(this, new Object[] { root }, null, null);
+    }
+}
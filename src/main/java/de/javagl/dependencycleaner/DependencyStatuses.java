@@ -26,24 +26,53 @@
  */
 package de.javagl.dependencycleaner;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
 
 import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.graph.DependencyNode;
 import org.eclipse.aether.resolution.DependencyResult;
+import org.eclipse.aether.util.artifact.JavaScopes;
 
 /**
  * Methods to create {@link DependencyStatus} instances
  */
 class DependencyStatuses
 {
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger = 
+        Logger.getLogger(DependencyStatuses.class.getName());
+    
+    /**
+     * The number of attempts for deleting a file
+     */
+    private static final int DELETE_ATTEMPTS = 3;
+    
+    /**
+     * The delay, in milliseconds, before retrying to delete a file
+     */
+    private static final long DELETE_RETRY_DELAY_MS = 100;
+    
     /**
      * Compute the {@link DependencyStatus} for the given {@link ArtifactInfo}
-     * objects
+     * objects, using default {@link ValidationOptions}
      * 
      * @param artifactInfos The {@link ArtifactInfo} objects
      * @return The {@link DependencyStatus}
@@ -51,88 +80,977 @@ class DependencyStatuses
     static DependencyStatus compute(
         Iterable<? extends ArtifactInfo> artifactInfos) 
     {
-        DependencyTreeNode root = new DependencyTreeNode("Root", null, null);
-        for (ArtifactInfo artifactInfo : artifactInfos)
+        return compute(artifactInfos, new ValidationOptions());
+    }
+    
+    /**
+     * Compute the {@link DependencyStatus} for the given {@link ArtifactInfo}
+     * objects
+     * 
+     * @param artifactInfos The {@link ArtifactInfo} objects
+     * @param validationOptions The {@link ValidationOptions}
+     * @return The {@link DependencyStatus}
+     */
+    static DependencyStatus compute(
+        Iterable<? extends ArtifactInfo> artifactInfos, 
+        ValidationOptions validationOptions) 
+    {
+        return compute(artifactInfos, validationOptions, null);
+    }
+    
+    /**
+     * Compute the {@link DependencyStatus} for the given {@link ArtifactInfo}
+     * objects.<br>
+     * <br>
+     * The paths of each resolved artifact are submitted for validation
+     * immediately, while the remaining artifacts are still being resolved.
+     * The given listener will be informed about each resolved artifact
+     * and each validated path.
+     * 
+     * @param artifactInfos The {@link ArtifactInfo} objects
+     * @param validationOptions The {@link ValidationOptions}
+     * @param listener The optional {@link DependencyStatusListener}
+     * @return The {@link DependencyStatus}
+     */
+    static DependencyStatus compute(
+        Iterable<? extends ArtifactInfo> artifactInfos, 
+        ValidationOptions validationOptions, 
+        DependencyStatusListener listener) 
+    {
+        return compute(null, artifactInfos, 
+            new ResolutionOptions(), validationOptions, listener);
+    }
+    
+    /**
+     * Compute the {@link DependencyStatus} for the given {@link ArtifactInfo}
+     * objects.<br>
+     * <br>
+     * The paths of each resolved artifact are submitted for validation
+     * immediately, while the remaining artifacts are still being resolved.
+     * The given listener will be informed about each resolved artifact
+     * and each validated path.<br>
+     * <br>
+     * If the {@link ResolutionOptions#isCombinedRequest()} flag is set,
+     * then all artifacts will be resolved with a single request, with 
+     * the given project artifact being the root. The children of the 
+     * root node of the resulting {@link DependencyStatus} will then be
+     * the (conflict-resolved) nodes of the given artifacts. 
+     * Otherwise, the trees of the artifacts will be taken from the 
+     * {@link GraphCache} if possible, and only the remaining artifacts
+     * will be resolved.<br>
+     * <br>
+     * Artifacts and dependencies that do not match the 
+     * {@link ResolutionOptions#getScopes() scopes} or the other filter 
+     * settings of the given options will be omitted.
+     * 
+     * @param projectArtifactInfo The optional {@link ArtifactInfo} of the 
+     * project that the given artifacts are dependencies of
+     * @param artifactInfos The {@link ArtifactInfo} objects
+     * @param resolutionOptions The {@link ResolutionOptions}
+     * @param validationOptions The {@link ValidationOptions}
+     * @param listener The optional {@link DependencyStatusListener}
+     * @return The {@link DependencyStatus}
+     */
+    static DependencyStatus compute(
+        ArtifactInfo projectArtifactInfo,
+        Iterable<? extends ArtifactInfo> artifactInfos, 
+        ResolutionOptions resolutionOptions,
+        ValidationOptions validationOptions, 
+        DependencyStatusListener listener) 
+    {
+        DependencyEngines dependencyEngines = 
+            new DependencyEngines(resolutionOptions, validationOptions);
+        try
+        {
+            return compute(dependencyEngines, 
+                projectArtifactInfo, artifactInfos, listener);
+        }
+        finally
+        {
+            dependencyEngines.shutdown();
+        }
+    }
+    
+    /**
+     * Compute the {@link DependencyStatus} for the given {@link ArtifactInfo}
+     * objects, like {@link #compute(ArtifactInfo, Iterable, 
+     * ResolutionOptions, ValidationOptions, DependencyStatusListener)},
+     * but with the given {@link DependencyEngines}, which are not shut
+     * down afterwards.
+     * 
+     * @param dependencyEngines The {@link DependencyEngines}
+     * @param projectArtifactInfo The optional {@link ArtifactInfo} of the 
+     * project that the given artifacts are dependencies of
+     * @param artifactInfos The {@link ArtifactInfo} objects
+     * @param listener The optional {@link DependencyStatusListener}
+     * @return The {@link DependencyStatus}
+     */
+    static DependencyStatus compute(
+        DependencyEngines dependencyEngines,
+        ArtifactInfo projectArtifactInfo,
+        Iterable<? extends ArtifactInfo> artifactInfos, 
+        DependencyStatusListener listener) 
+    {
+        Computation computation = 
+            new Computation("Root", dependencyEngines, listener);
+        ResolutionOptions resolutionOptions = 
+            dependencyEngines.getResolutionOptions();
+        if (resolutionOptions.isCombinedRequest())
         {
             DependencyResult dependencyResult = 
-                DependencyUtils.resolveDependencies(artifactInfo);
+                computation.resolutionEngine.resolveDependencies(
+                    projectArtifactInfo, artifactInfos);
             DependencyNode dependencyNode = dependencyResult.getRoot();
-            DependencyTreeNode dependencyTreeNode = buildTree(dependencyNode);
-            root.addChild(dependencyTreeNode);
+            for (DependencyNode child : dependencyNode.getChildren())
+            {
+                computation.addChild(computation.graphBuilder.build(child));
+            }
+        }
+        else
+        {
+            // Submit all artifacts for being resolved concurrently,
+            // but process the results in the order of the input,
+            // so that the order of the children is deterministic
+            List<CompletableFuture<DependencyTreeNode>> treeFutures =
+                new ArrayList<CompletableFuture<DependencyTreeNode>>();
+            for (ArtifactInfo artifactInfo : artifactInfos)
+            {
+                if (computation.resolutionEngine.isAccepted(artifactInfo))
+                {
+                    treeFutures.add(computation.resolveTree(artifactInfo));
+                }
+            }
+            for (CompletableFuture<DependencyTreeNode> treeFuture :
+                treeFutures)
+            {
+                computation.addChild(ValidationEngine.await(treeFuture));
+            }
+        }
+        return computation.finish();
+    }
+    
+    /**
+     * Compute the {@link DependencyStatus} for the given modules of a
+     * multi-module project.<br>
+     * <br>
+     * The dependencies of all modules are combined, and each distinct
+     * artifact is only resolved once, and each file is only validated
+     * once. Dependencies between the given modules are omitted. The 
+     * children of the root node of the resulting {@link DependencyStatus}
+     * will be one node for each module, without a path, whose children 
+     * are the (shared) nodes of the dependencies of the module. So the 
+     * results can be attributed to the modules.<br>
+     * <br>
+     * The dependencies are always resolved individually, even if the 
+     * {@link ResolutionOptions#isCombinedRequest()} flag is set.
+     * 
+     * @param rootName The name for the root node
+     * @param modules The {@link ReactorModule} objects
+     * @param resolutionOptions The {@link ResolutionOptions}
+     * @param validationOptions The {@link ValidationOptions}
+     * @param listener The optional {@link DependencyStatusListener}
+     * @return The {@link DependencyStatus}
+     */
+    static DependencyStatus computeForReactor(String rootName,
+        List<? extends ReactorModule> modules, 
+        ResolutionOptions resolutionOptions,
+        ValidationOptions validationOptions, 
+        DependencyStatusListener listener) 
+    {
+        DependencyEngines dependencyEngines = 
+            new DependencyEngines(resolutionOptions, validationOptions);
+        try
+        {
+            return computeForReactor(
+                dependencyEngines, rootName, modules, listener);
+        }
+        finally
+        {
+            dependencyEngines.shutdown();
+        }
+    }
+    
+    /**
+     * Compute the {@link DependencyStatus} for the given modules of a
+     * multi-module project, like {@link #computeForReactor(String, List, 
+     * ResolutionOptions, ValidationOptions, DependencyStatusListener)},
+     * but with the given {@link DependencyEngines}, which are not shut
+     * down afterwards.
+     * 
+     * @param dependencyEngines The {@link DependencyEngines}
+     * @param rootName The name for the root node
+     * @param modules The {@link ReactorModule} objects
+     * @param listener The optional {@link DependencyStatusListener}
+     * @return The {@link DependencyStatus}
+     */
+    static DependencyStatus computeForReactor(
+        DependencyEngines dependencyEngines, String rootName,
+        List<? extends ReactorModule> modules, 
+        DependencyStatusListener listener) 
+    {
+        Set<ArtifactInfo> moduleCoordinates = new HashSet<ArtifactInfo>();
+        for (ReactorModule module : modules)
+        {
+            moduleCoordinates.add(toCoordinates(module.getArtifactInfo()));
+        }
+        Map<ArtifactInfo, ArtifactInfo> distinctArtifactInfos = 
+            new LinkedHashMap<ArtifactInfo, ArtifactInfo>();
+        for (ReactorModule module : modules)
+        {
+            for (ArtifactInfo artifactInfo : 
+                module.getDependencyArtifactInfos())
+            {
+                if (!moduleCoordinates.contains(toCoordinates(artifactInfo)))
+                {
+                    distinctArtifactInfos.merge(toDeclarationKey(artifactInfo),
+                        artifactInfo, DependencyStatuses::mergeDeclarations);
+                }
+            }
         }
         
-        Set<Path> paths = computePaths(root);
+        Computation computation = 
+            new Computation(rootName, dependencyEngines, listener);
+        Map<ArtifactInfo, CompletableFuture<DependencyTreeNode>> 
+            treeFutures = new LinkedHashMap<ArtifactInfo, 
+                CompletableFuture<DependencyTreeNode>>();
+        for (Entry<ArtifactInfo, ArtifactInfo> entry : 
+            distinctArtifactInfos.entrySet())
+        {
+            ArtifactInfo artifactInfo = entry.getValue();
+            if (computation.resolutionEngine.isAccepted(artifactInfo))
+            {
+                treeFutures.put(entry.getKey(), 
+                    computation.resolveTree(artifactInfo));
+            }
+        }
+        for (ReactorModule module : modules)
+        {
+            ArtifactInfo moduleArtifactInfo = module.getArtifactInfo();
+            DependencyTreeNode moduleNode = new DependencyTreeNode(
+                moduleArtifactInfo.toString(), moduleArtifactInfo, null);
+            Set<ArtifactInfo> added = new HashSet<ArtifactInfo>();
+            for (ArtifactInfo artifactInfo : 
+                module.getDependencyArtifactInfos())
+            {
+                ArtifactInfo key = toDeclarationKey(artifactInfo);
+                CompletableFuture<DependencyTreeNode> treeFuture = 
+                    treeFutures.get(key);
+                if (treeFuture != null && added.add(key))
+                {
+                    moduleNode.addChild(ValidationEngine.await(treeFuture));
+                }
+            }
+            computation.addChild(moduleNode);
+        }
+        return computation.finish();
+    }
+    
+    /**
+     * Returns a plain {@link ArtifactInfo} with the coordinates of the
+     * given one, which is equal to all other {@link ArtifactInfo} objects
+     * with the same coordinates, regardless of the scope
+     * 
+     * @param artifactInfo The {@link ArtifactInfo}
+     * @return The coordinates
+     */
+    private static ArtifactInfo toCoordinates(ArtifactInfo artifactInfo)
+    {
+        return new ArtifactInfo(artifactInfo.getGroupId(), 
+            artifactInfo.getArtifactId(), artifactInfo.getVersion());
+    }
+    
+    /**
+     * Returns a {@link DependencyArtifactInfo} with the coordinates, the
+     * type and the classifier of the given {@link ArtifactInfo}, which is 
+     * equal to all other declarations of the same artifact, regardless of 
+     * the scope, the optional flag and the exclusions
+     * 
+     * @param artifactInfo The {@link ArtifactInfo}
+     * @return The key
+     */
+    private static ArtifactInfo toDeclarationKey(ArtifactInfo artifactInfo)
+    {
+        String type = "jar";
+        String classifier = "";
+        if (artifactInfo instanceof DependencyArtifactInfo)
+        {
+            DependencyArtifactInfo dependencyArtifactInfo = 
+                (DependencyArtifactInfo)artifactInfo;
+            type = dependencyArtifactInfo.getType();
+            classifier = dependencyArtifactInfo.getClassifier();
+        }
+        return new DependencyArtifactInfo(artifactInfo.getGroupId(), 
+            artifactInfo.getArtifactId(), artifactInfo.getVersion(), 
+            JavaScopes.COMPILE, false, type, classifier, 
+            Collections.<String>emptyList());
+    }
+    
+    /**
+     * Merge the given declarations of the same artifact as a dependency
+     * in different modules. If both are {@link DependencyArtifactInfo} 
+     * objects, then the result will have the scope that includes the 
+     * artifact in the most classpaths, will only be optional if both
+     * are optional, and will only exclude the artifacts that are excluded
+     * by both. Otherwise, the first one is returned.
+     * 
+     * @param a The first declaration
+     * @param b The second declaration
+     * @return The merged declaration
+     */
+    private static ArtifactInfo mergeDeclarations(
+        ArtifactInfo a, ArtifactInfo b)
+    {
+        if (!(a instanceof DependencyArtifactInfo) || 
+            !(b instanceof DependencyArtifactInfo))
+        {
+            return a;
+        }
+        DependencyArtifactInfo da = (DependencyArtifactInfo)a;
+        DependencyArtifactInfo db = (DependencyArtifactInfo)b;
+        List<String> scopeOrder = Arrays.asList(
+            JavaScopes.COMPILE, JavaScopes.RUNTIME, JavaScopes.PROVIDED,
+            JavaScopes.SYSTEM, JavaScopes.TEST);
+        String scope = da.getScope();
+        int indexA = scopeOrder.indexOf(da.getScope());
+        int indexB = scopeOrder.indexOf(db.getScope());
+        if (indexB != -1 && (indexA == -1 || indexB < indexA))
+        {
+            scope = db.getScope();
+        }
+        boolean optional = da.isOptional() && db.isOptional();
+        List<String> exclusions = new ArrayList<String>(da.getExclusions());
+        exclusions.retainAll(db.getExclusions());
+        if (scope.equals(da.getScope()) && optional == da.isOptional() &&
+            exclusions.equals(da.getExclusions()))
+        {
+            return da;
+        }
+        return new DependencyArtifactInfo(da.getGroupId(), 
+            da.getArtifactId(), da.getVersion(), scope, optional, 
+            da.getType(), da.getClassifier(), exclusions);
+    }
+    
+    /**
+     * Compute the {@link DependencyStatus} for all JAR files that are
+     * contained in the given local repository, without resolving any
+     * dependencies. 
+     * 
+     * @param repositoryRoot The root directory of the local repository
+     * @param validationOptions The {@link ValidationOptions}
+     * @return The {@link DependencyStatus}
+     */
+    static DependencyStatus computeForRepository(Path repositoryRoot, 
+        ValidationOptions validationOptions) 
+    {
+        return computeForRepository(repositoryRoot, validationOptions, null);
+    }
+    
+    /**
+     * Compute the {@link DependencyStatus} for all JAR files that are
+     * contained in the given local repository, without resolving any
+     * dependencies.<br>
+     * <br>
+     * The files are passed to the validation while the repository is still 
+     * being scanned. The given listener will be informed about each file 
+     * that is found, and each file that is validated, in no particular
+     * order. The root node of the resulting {@link DependencyStatus} will 
+     * have one child for each JAR file, ordered by the path.
+     * 
+     * @param repositoryRoot The root directory of the local repository
+     * @param validationOptions The {@link ValidationOptions}
+     * @param listener The optional {@link DependencyStatusListener}
+     * @return The {@link DependencyStatus}
+     */
+    static DependencyStatus computeForRepository(Path repositoryRoot, 
+        ValidationOptions validationOptions, 
+        DependencyStatusListener listener) 
+    {
+        ValidationCache validationCache = 
+            DependencyEngines.createValidationCache(
+                validationOptions, repositoryRoot);
+        ValidationEngine validationEngine = 
+            new ValidationEngine(validationOptions, validationCache);
+        try
+        {
+            return computeForRepository(validationEngine, repositoryRoot, 
+                validationOptions.getParallelism(), listener);
+        }
+        finally
+        {
+            boolean interrupted = Thread.interrupted();
+            if (interrupted)
+            {
+                validationEngine.shutdownNow();
+            }
+            else
+            {
+                validationEngine.shutdown();
+            }
+            if (validationCache != null)
+            {
+                validationCache.save();
+            }
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /**
+     * Compute the {@link DependencyStatus} for all JAR files that are
+     * contained in the given local repository, like 
+     * {@link #computeForRepository(Path, ValidationOptions, 
+     * DependencyStatusListener)}, but with the given 
+     * {@link DependencyEngines}, which are not shut down afterwards.
+     * 
+     * @param dependencyEngines The {@link DependencyEngines}
+     * @param repositoryRoot The root directory of the local repository
+     * @param listener The optional {@link DependencyStatusListener}
+     * @return The {@link DependencyStatus}
+     */
+    static DependencyStatus computeForRepository(
+        DependencyEngines dependencyEngines, Path repositoryRoot, 
+        DependencyStatusListener listener) 
+    {
+        return computeForRepository(dependencyEngines.getValidationEngine(), 
+            repositoryRoot, 
+            dependencyEngines.getValidationOptions().getParallelism(), 
+            listener);
+    }
+    
+    /**
+     * Compute the {@link DependencyStatus} for all JAR files that are
+     * contained in the given local repository, using the given
+     * {@link ValidationEngine}
+     * 
+     * @param validationEngine The {@link ValidationEngine}
+     * @param repositoryRoot The root directory of the local repository
+     * @param parallelism The number of threads for scanning the repository
+     * @param listener The optional {@link DependencyStatusListener}
+     * @return The {@link DependencyStatus}
+     */
+    private static DependencyStatus computeForRepository(
+        ValidationEngine validationEngine, Path repositoryRoot, 
+        int parallelism, DependencyStatusListener listener) 
+    {
+        DependencyTreeNode root = new DependencyTreeNode(
+            repositoryRoot.toString(), null, null);
+        Map<Path, DependencyTreeNode> dependencyTreeNodes = 
+            new ConcurrentHashMap<Path, DependencyTreeNode>();
+        ArtifactInfoPool artifactInfoPool = new ArtifactInfoPool();
+        Map<Path, CompletableFuture<ValidationResult>> futures = 
+            new ConcurrentHashMap<Path, 
+                CompletableFuture<ValidationResult>>();
+        LocalRepositories.walkJarFiles(repositoryRoot, parallelism, path -> 
+        {
+            DependencyTreeNode dependencyTreeNode = 
+                LocalRepositories.createDependencyTreeNode(
+                    repositoryRoot, path, artifactInfoPool);
+            dependencyTreeNodes.put(path, dependencyTreeNode);
+            if (listener != null)
+            {
+                listener.childAdded(dependencyTreeNode);
+            }
+            futures.put(path, submit(validationEngine, path, listener));
+        });
         
-        Set<Path> pathsToRefresh = new LinkedHashSet<Path>();
-        Map<Path, Boolean> validPaths = new LinkedHashMap<Path, Boolean>();
+        List<Path> paths = new ArrayList<Path>(futures.keySet());
+        Collections.sort(paths);
+        Map<Path, CompletableFuture<ValidationResult>> sortedFutures = 
+            new LinkedHashMap<Path, CompletableFuture<ValidationResult>>();
         for (Path path : paths)
         {
-            boolean valid = Utils.isValidJar(path);
-            validPaths.put(path, valid);
-            if (!valid)
+            root.addChild(dependencyTreeNodes.get(path));
+            sortedFutures.put(path, futures.get(path));
+        }
+        Map<Path, ValidationResult> validationResults = 
+            awaitAll(sortedFutures);
+        return create(root, validationResults);
+    }
+    
+    /**
+     * Compute the {@link DependencyStatus} for the given POM files or
+     * directories, with the given {@link DependencyEngines}, which are 
+     * not shut down afterwards.<br>
+     * <br>
+     * If a single POM file is given, then the result is computed like 
+     * in {@link #compute(DependencyEngines, ArtifactInfo, Iterable, 
+     * DependencyStatusListener)}, with the artifact of the POM being the 
+     * project. Otherwise, all POM files in the given directories, and 
+     * the given POM files, are treated as the modules of a multi-module
+     * project, like in {@link #computeForReactor(DependencyEngines, 
+     * String, List, DependencyStatusListener)}.
+     * 
+     * @param dependencyEngines The {@link DependencyEngines}
+     * @param effectiveModelReader The {@link EffectiveModelReader} for 
+     * reading the POMs
+     * @param pomPaths The paths of POM files or directories
+     * @param listener The optional {@link DependencyStatusListener}
+     * @return The {@link DependencyStatus}
+     * @throws DependencyCleanerException If the POMs can not be read
+     */
+    static DependencyStatus computeForPoms(
+        DependencyEngines dependencyEngines, 
+        EffectiveModelReader effectiveModelReader,
+        List<? extends Path> pomPaths, 
+        DependencyStatusListener listener)
+    {
+        if (pomPaths.size() == 1 && !Files.isDirectory(pomPaths.get(0)))
+        {
+            Path pomPath = pomPaths.get(0);
+            ReactorModule module = 
+                ReactorModules.readModule(effectiveModelReader, pomPath);
+            if (module == null)
             {
-                pathsToRefresh.add(path);
+                throw new DependencyCleanerException(
+                    "Could not read " + pomPath);
             }
+            return compute(dependencyEngines, module.getArtifactInfo(), 
+                module.getDependencyArtifactInfos(), listener);
         }
-        DependencyStatus dependencyStatus = 
-            new DependencyStatus(root, validPaths, pathsToRefresh);
-        return dependencyStatus;
+        List<Path> pomFiles = new ArrayList<Path>();
+        for (Path pomPath : pomPaths)
+        {
+            if (Files.isDirectory(pomPath))
+            {
+                pomFiles.addAll(ReactorModules.findPomFiles(pomPath));
+            }
+            else
+            {
+                pomFiles.add(pomPath);
+            }
+        }
+        List<ReactorModule> modules = ReactorModules.readModules(
+            effectiveModelReader, pomFiles, 
+            dependencyEngines.getResolutionOptions().getParallelism());
+        if (modules.isEmpty())
+        {
+            throw new DependencyCleanerException(
+                "No POM files could be read from " + pomPaths);
+        }
+        return computeForReactor(
+            dependencyEngines, "Reactor", modules, listener);
+    }
+    
+    /**
+     * Repair the given paths of the given {@link DependencyStatus}, 
+     * which usually are paths that have been removed.<br>
+     * <br>
+     * Only the artifacts for the given paths will be resolved (and
+     * thus, downloaded if they are not present in the local repository),
+     * without their dependencies. The artifacts are resolved concurrently,
+     * and each resolved file is validated immediately. The given listener 
+     * will be informed about each validated path.<br>
+     * <br>
+     * The given {@link DependencyStatus} is not modified. The caller is 
+     * responsible for applying the returned results to it. Paths whose 
+     * artifact could not be resolved will not be contained in the 
+     * returned map.
+     * 
+     * @param dependencyStatus The {@link DependencyStatus}
+     * @param paths The paths to repair
+     * @param resolutionOptions The {@link ResolutionOptions}
+     * @param validationOptions The {@link ValidationOptions}
+     * @param listener The optional {@link DependencyStatusListener}
+     * @return The {@link ValidationResult} for each repaired path
+     */
+    static Map<Path, ValidationResult> repair(
+        DependencyStatus dependencyStatus, 
+        Collection<? extends Path> paths,
+        ResolutionOptions resolutionOptions,
+        ValidationOptions validationOptions, 
+        DependencyStatusListener listener) 
+    {
+        DependencyEngines dependencyEngines = 
+            new DependencyEngines(resolutionOptions, validationOptions);
+        try
+        {
+            return repair(dependencyEngines, dependencyStatus, paths, 
+                listener);
+        }
+        finally
+        {
+            dependencyEngines.shutdown();
+        }
+    }
+    
+    /**
+     * Re-fetch and re-validate the artifacts with the given paths, like
+     * {@link #repair(DependencyStatus, Collection, ResolutionOptions, 
+     * ValidationOptions, DependencyStatusListener)}, but with the given 
+     * {@link DependencyEngines}, which are not shut down afterwards.
+     * 
+     * @param dependencyEngines The {@link DependencyEngines}
+     * @param dependencyStatus The {@link DependencyStatus}
+     * @param paths The paths to repair
+     * @param listener The optional {@link DependencyStatusListener}
+     * @return The {@link ValidationResult} for each repaired path
+     */
+    static Map<Path, ValidationResult> repair(
+        DependencyEngines dependencyEngines,
+        DependencyStatus dependencyStatus, 
+        Collection<? extends Path> paths,
+        DependencyStatusListener listener) 
+    {
+        Map<Path, Artifact> artifacts = new LinkedHashMap<Path, Artifact>();
+        collectArtifacts(dependencyStatus.getDependencyTreeNode(), 
+            new LinkedHashSet<Path>(paths), 
+            new HashSet<DependencyTreeNode>(), artifacts);
+        
+        ValidationEngine validationEngine = 
+            dependencyEngines.getValidationEngine();
+        ResolutionEngine resolutionEngine = 
+            dependencyEngines.getResolutionEngine();
+        Map<Path, CompletableFuture<ValidationResult>> futures = 
+            new LinkedHashMap<Path, CompletableFuture<ValidationResult>>();
+        for (Entry<Path, Artifact> entry : artifacts.entrySet())
+        {
+            Path path = entry.getKey();
+            Artifact artifact = entry.getValue();
+            futures.put(path, 
+                resolutionEngine.submitArtifact(artifact).thenCompose(
+                    resolvedPath -> submit(validationEngine, 
+                        resolvedPath, listener)));
+        }
+        Map<Path, ValidationResult> validationResults = 
+            new LinkedHashMap<Path, ValidationResult>();
+        for (Entry<Path, CompletableFuture<ValidationResult>> entry : 
+            futures.entrySet())
+        {
+            Path path = entry.getKey();
+            try
+            {
+                ValidationResult validationResult = 
+                    ValidationEngine.await(entry.getValue());
+                validationResults.put(path, validationResult);
+            }
+            catch (DependencyCleanerException e)
+            {
+                logger.warning("Could not repair " + path + ": " 
+                    + e.getMessage());
+            }
+        }
+        return validationResults;
+    }
+    
+    /**
+     * Apply the given validation results (for example, the results of
+     * a {@link #repair}) to the given {@link DependencyStatus}. Paths 
+     * whose result is not valid will be marked for removal.
+     * 
+     * @param dependencyStatus The {@link DependencyStatus}
+     * @param validationResults The {@link ValidationResult} objects
+     */
+    static void apply(DependencyStatus dependencyStatus, 
+        Map<Path, ValidationResult> validationResults)
+    {
+        for (Entry<Path, ValidationResult> entry : 
+            validationResults.entrySet())
+        {
+            Path path = entry.getKey();
+            ValidationResult validationResult = entry.getValue();
+            dependencyStatus.setValidationResult(path, validationResult);
+            dependencyStatus.setPathToRemove(path, 
+                validationResult.getValidationStatus() != 
+                    ValidationStatus.VALID);
+        }
+    }
+    
+    /**
+     * Compute all paths in the given {@link DependencyStatus} that do not
+     * have a {@link ValidationResult}, because the files do not exist
+     * 
+     * @param dependencyStatus The {@link DependencyStatus}
+     * @return The missing paths
+     */
+    static Set<Path> computeMissingPaths(DependencyStatus dependencyStatus)
+    {
+        Set<Path> missingPaths = new LinkedHashSet<Path>();
+        for (Path path : computePaths(dependencyStatus))
+        {
+            if (dependencyStatus.getValidationStatus(path) == null)
+            {
+                missingPaths.add(path);
+            }
+        }
+        return missingPaths;
+    }
+    
+    /**
+     * Compute all distinct paths that appear in the dependency graph of 
+     * the given {@link DependencyStatus}
+     * 
+     * @param dependencyStatus The {@link DependencyStatus}
+     * @return The paths
+     */
+    static Set<Path> computePaths(DependencyStatus dependencyStatus)
+    {
+        return computePaths(dependencyStatus.getDependencyTreeNode(), 
+            new HashSet<DependencyTreeNode>());
+    }
+    
+    /**
+     * Delete the files with the given paths, and update the given
+     * {@link DependencyStatus} accordingly
+     * 
+     * @param dependencyStatus The {@link DependencyStatus}
+     * @param paths The paths
+     * @return The paths that have been deleted
+     */
+    static Set<Path> remove(DependencyStatus dependencyStatus,
+        Iterable<? extends Path> paths)
+    {
+        // The given paths may be a view on the paths to remove of the
+        // dependency status, which is modified here
+        List<Path> pathList = new ArrayList<Path>();
+        paths.forEach(pathList::add);
+        Set<Path> deletedPaths = new LinkedHashSet<Path>();
+        for (Path path : pathList)
+        {
+            boolean deleted = delete(path);
+            if (!deleted)
+            {
+                logger.warning("Could not delete " + path);
+            }
+            else
+            {
+                dependencyStatus.setValidationResult(path, null);
+                dependencyStatus.setPathToRemove(path, false);
+                deletedPaths.add(path);
+            }
+        }
+        return deletedPaths;
+    }
+    
+    /**
+     * Delete the given file.<br>
+     * <br>
+     * On some operating systems, a file can not be deleted while it is
+     * mapped into memory, which may be the case when it was validated
+     * with {@link ValidationOptions#isMemoryMapping() memory mapping}. 
+     * The mapping is only released when the buffer is garbage collected.
+     * So if the file can not be deleted, a garbage collection is 
+     * requested, and the deletion is retried a few times.
+     * 
+     * @param path The path
+     * @return Whether the file was deleted
+     */
+    private static boolean delete(Path path)
+    {
+        for (int i = 0; i < DELETE_ATTEMPTS; i++)
+        {
+            if (path.toFile().delete())
+            {
+                return true;
+            }
+            if (!Files.exists(path))
+            {
+                return false;
+            }
+            System.gc();
+            try
+            {
+                Thread.sleep(DELETE_RETRY_DELAY_MS);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Collect the artifacts of all nodes in the given tree that have
+     * one of the given paths. The artifacts are created from the names
+     * of the nodes, which are the artifact coordinates.
+     * 
+     * @param node The current node
+     * @param paths The paths
+     * @param visitedNodes The nodes that have already been visited
+     * @param artifacts The mapping from paths to artifacts
+     */
+    private static void collectArtifacts(DependencyTreeNode node, 
+        Set<Path> paths, Set<DependencyTreeNode> visitedNodes, 
+        Map<Path, Artifact> artifacts)
+    {
+        if (!visitedNodes.add(node))
+        {
+            return;
+        }
+        Path path = node.getPath();
+        if (path != null && paths.contains(path) && 
+            !artifacts.containsKey(path))
+        {
+            try
+            {
+                artifacts.put(path, new DefaultArtifact(node.getName()));
+            }
+            catch (IllegalArgumentException e)
+            {
+                logger.warning("Could not determine the artifact for " 
+                    + path + ": " + e.getMessage());
+            }
+        }
+        for (DependencyTreeNode child : node.getChildren())
+        {
+            collectArtifacts(child, paths, visitedNodes, artifacts);
+        }
+    }
+    
+    /**
+     * Returns a future that receives the {@link DependencyTreeNode} tree
+     * for the given artifact. If the tree is contained in the given
+     * cache, then the returned future is already completed. Otherwise,
+     * the artifact is submitted to the given {@link ResolutionEngine},
+     * and the resulting tree is stored in the cache.
+     * 
+     * @param resolutionEngine The {@link ResolutionEngine}
+     * @param graphCache The optional {@link GraphCache}
+     * @param graphBuilder The {@link DependencyGraphBuilder} that 
+     * provides the shared nodes of the tree
+     * @param artifactInfo The {@link ArtifactInfo}
+     * @return The future
+     */
+    private static CompletableFuture<DependencyTreeNode> resolveTree(
+        ResolutionEngine resolutionEngine, GraphCache graphCache,
+        DependencyGraphBuilder graphBuilder, ArtifactInfo artifactInfo)
+    {
+        if (graphCache != null)
+        {
+            DependencyTreeNode cachedTree = graphCache.get(artifactInfo);
+            if (cachedTree != null)
+            {
+                return CompletableFuture.completedFuture(
+                    graphBuilder.intern(cachedTree));
+            }
+        }
+        return resolutionEngine.submit(artifactInfo).thenApply(
+            dependencyResult -> 
+        {
+            DependencyNode dependencyNode = dependencyResult.getRoot();
+            DependencyTreeNode dependencyTreeNode = 
+                graphBuilder.build(dependencyNode);
+            if (graphCache != null)
+            {
+                graphCache.put(artifactInfo, dependencyTreeNode, 
+                    resolutionEngine.getPomPaths(dependencyNode));
+            }
+            return dependencyTreeNode;
+        });
+    }
+    
+    /**
+     * Submit the given path to the given {@link ValidationEngine}, and 
+     * return a future that will inform the given listener about the 
+     * result before it completes
+     * 
+     * @param validationEngine The {@link ValidationEngine}
+     * @param path The path
+     * @param listener The optional {@link DependencyStatusListener}
+     * @return The future
+     */
+    private static CompletableFuture<ValidationResult> submit(
+        ValidationEngine validationEngine, Path path,
+        DependencyStatusListener listener)
+    {
+        CompletableFuture<ValidationResult> future = 
+            validationEngine.submit(path);
+        if (listener == null)
+        {
+            return future;
+        }
+        return future.thenApply(validationResult -> 
+        {
+            listener.validated(path, validationResult);
+            return validationResult;
+        });
     }
     
     /**
-     * Recursively build the {@link DependencyTreeNode} tree based on the
-     * given DependencyNode
+     * Wait for all the given futures to complete, and return a map 
+     * containing their results, in the same order
      * 
-     * @param node The node
-     * @return The resulting node
+     * @param futures The futures
+     * @return The results
      */
-    private static DependencyTreeNode buildTree(DependencyNode node)
+    private static Map<Path, ValidationResult> awaitAll(
+        Map<Path, CompletableFuture<ValidationResult>> futures)
     {
-        Artifact artifact = node.getArtifact();
-        String name = artifact.toString();
-        String groupId = artifact.getGroupId();
-        String artifactId = artifact.getArtifactId();
-        String version = artifact.getVersion();
-        Path path = null;
-        if (artifact.getFile() != null)
+        Map<Path, ValidationResult> validationResults = 
+            new LinkedHashMap<Path, ValidationResult>();
+        for (Entry<Path, CompletableFuture<ValidationResult>> entry : 
+            futures.entrySet())
         {
-            path = artifact.getFile().toPath();
+            ValidationResult validationResult = 
+                ValidationEngine.await(entry.getValue());
+            validationResults.put(entry.getKey(), validationResult);
         }
-        ArtifactInfo artifactInfo = 
-            new ArtifactInfo(groupId, artifactId, version);
-        DependencyTreeNode result = 
-            new DependencyTreeNode(name, artifactInfo, path);
-        for (DependencyNode child : node.getChildren())
+        return validationResults;
+    }
+    
+    /**
+     * Create a {@link DependencyStatus} from the given tree and validation
+     * results, where all paths that are not valid are marked for removal
+     * 
+     * @param root The root node
+     * @param validationResults The {@link ValidationResult} objects
+     * @return The {@link DependencyStatus}
+     */
+    private static DependencyStatus create(DependencyTreeNode root, 
+        Map<Path, ValidationResult> validationResults)
+    {
+        Set<Path> pathsToRefresh = new LinkedHashSet<Path>();
+        for (Entry<Path, ValidationResult> entry : 
+            validationResults.entrySet())
         {
-            DependencyTreeNode childTree = buildTree(child);
-            result.addChild(childTree);
+            ValidationResult validationResult = entry.getValue();
+            if (validationResult.getValidationStatus() != 
+                ValidationStatus.VALID)
+            {
+                pathsToRefresh.add(entry.getKey());
+            }
         }
-        return result;
+        DependencyStatus dependencyStatus = 
+            new DependencyStatus(root, validationResults, pathsToRefresh);
+        return dependencyStatus;
     }
     
     /**
-     * Compute all paths that appear in the given {@link DependencyTreeNode}
+     * Compute all paths that appear in the given {@link DependencyTreeNode},
+     * omitting the nodes that have already been visited
      * 
      * @param dependencyTreeNode The {@link DependencyTreeNode}
+     * @param visitedNodes The nodes that have already been visited. The
+     * visited nodes will be added to this set.
      * @return The paths
      */
     private static Set<Path> computePaths(
-        DependencyTreeNode dependencyTreeNode)
+        DependencyTreeNode dependencyTreeNode, 
+        Set<DependencyTreeNode> visitedNodes)
     {
         Set<Path> paths = new LinkedHashSet<Path>();
-        computePaths(dependencyTreeNode, paths);
+        computePaths(dependencyTreeNode, visitedNodes, paths);
         return paths;
     }
     
     /**
-     * Compute all paths that appear in the given {@link DependencyTreeNode}
+     * Compute all paths that appear in the given {@link DependencyTreeNode},
+     * omitting the nodes that have already been visited
      * 
      * @param dependencyTreeNode The {@link DependencyTreeNode}
+     * @param visitedNodes The nodes that have already been visited
      * @param paths The target set
      */
-    private static void computePaths(
-        DependencyTreeNode dependencyTreeNode, Set<Path> paths)
+    private static void computePaths(DependencyTreeNode dependencyTreeNode, 
+        Set<DependencyTreeNode> visitedNodes, Set<Path> paths)
     {
+        if (!visitedNodes.add(dependencyTreeNode))
+        {
+            return;
+        }
         Path path = dependencyTreeNode.getPath();
         if (path != null)
         {
@@ -140,11 +1058,133 @@ class DependencyStatuses
         }
         for (DependencyTreeNode child : dependencyTreeNode.getChildren())
         {
-            computePaths(child, paths);
+            computePaths(child, visitedNodes, paths);
         }
     }
     
 
+    /**
+     * The state of the computation of a {@link DependencyStatus} from 
+     * the dependency trees of resolved artifacts
+     */
+    private static class Computation
+    {
+        /**
+         * The root node of the resulting {@link DependencyStatus}
+         */
+        private final DependencyTreeNode root;
+        
+        /**
+         * The optional {@link DependencyStatusListener}
+         */
+        private final DependencyStatusListener listener;
+        
+        /**
+         * The {@link ValidationEngine}
+         */
+        private final ValidationEngine validationEngine;
+        
+        /**
+         * The {@link ResolutionEngine}
+         */
+        private final ResolutionEngine resolutionEngine;
+        
+        /**
+         * The optional {@link GraphCache}
+         */
+        private final GraphCache graphCache;
+        
+        /**
+         * The {@link DependencyGraphBuilder} for the shared nodes
+         */
+        private final DependencyGraphBuilder graphBuilder;
+        
+        /**
+         * The futures for the validation results of all paths that 
+         * have been submitted for validation
+         */
+        private final Map<Path, CompletableFuture<ValidationResult>> futures;
+        
+        /**
+         * The nodes whose paths have already been submitted
+         */
+        private final Set<DependencyTreeNode> visitedNodes;
+        
+        /**
+         * Creates a new computation
+         * 
+         * @param rootName The name of the root node
+         * @param dependencyEngines The {@link DependencyEngines}
+         * @param listener The optional {@link DependencyStatusListener}
+         */
+        Computation(String rootName, DependencyEngines dependencyEngines,
+            DependencyStatusListener listener)
+        {
+            this.root = new DependencyTreeNode(rootName, null, null);
+            this.listener = listener;
+            this.validationEngine = dependencyEngines.getValidationEngine();
+            this.resolutionEngine = dependencyEngines.getResolutionEngine();
+            this.graphCache = dependencyEngines.getGraphCache();
+            this.graphBuilder = new DependencyGraphBuilder();
+            this.futures = new LinkedHashMap<Path, 
+                CompletableFuture<ValidationResult>>();
+            this.visitedNodes = new HashSet<DependencyTreeNode>();
+        }
+        
+        /**
+         * Returns a future that receives the {@link DependencyTreeNode} 
+         * tree for the given artifact
+         * 
+         * @param artifactInfo The {@link ArtifactInfo}
+         * @return The future
+         */
+        CompletableFuture<DependencyTreeNode> resolveTree(
+            ArtifactInfo artifactInfo)
+        {
+            return DependencyStatuses.resolveTree(
+                resolutionEngine, graphCache, graphBuilder, artifactInfo);
+        }
+        
+        /**
+         * Add the given node as a child of the root node, inform the 
+         * listener, and submit all paths in the given tree that have not 
+         * been submitted yet for being validated. Files that do not exist 
+         * are not validated, and will be reported as missing.
+         * 
+         * @param dependencyTreeNode The node
+         */
+        void addChild(DependencyTreeNode dependencyTreeNode)
+        {
+            root.addChild(dependencyTreeNode);
+            if (listener != null)
+            {
+                listener.childAdded(dependencyTreeNode);
+            }
+            for (Path path : 
+                computePaths(dependencyTreeNode, visitedNodes))
+            {
+                if (!futures.containsKey(path) && Files.exists(path))
+                {
+                    futures.put(path, submit(
+                        validationEngine, path, listener));
+                }
+            }
+        }
+        
+        /**
+         * Wait for all validation results, and create the resulting 
+         * {@link DependencyStatus}
+         * 
+         * @return The {@link DependencyStatus}
+         */
+        DependencyStatus finish()
+        {
+            Map<Path, ValidationResult> validationResults = 
+                awaitAll(futures);
+            return create(root, validationResults);
+        }
+    }
+    
     /**
      * Private constructor to prevent instantiation
      */
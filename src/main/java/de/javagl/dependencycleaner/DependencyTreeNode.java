@@ -32,7 +32,12 @@ import java.util.Collections;
 import java.util.List;
 
 /**
- * A simple model for a node in a dependency hierarchy
+ * A simple model for a node in a dependency hierarchy.<br>
+ * <br>
+ * The hierarchy is a directed acyclic graph: A node may be the child 
+ * of multiple nodes (see {@link DependencyGraphBuilder}). Code that
+ * traverses the hierarchy should therefore keep track of the nodes 
+ * that have already been visited.
  */
 class DependencyTreeNode
 {
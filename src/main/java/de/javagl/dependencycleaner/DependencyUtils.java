@@ -27,32 +27,23 @@
 package de.javagl.dependencycleaner;
 
 import java.io.File;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Arrays;
-import java.util.List;
 
 import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.eclipse.aether.DefaultRepositoryCache;
 import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositorySystem;
-import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
-import org.eclipse.aether.collection.CollectRequest;
 import org.eclipse.aether.connector.basic.BasicRepositoryConnectorFactory;
-import org.eclipse.aether.graph.Dependency;
-import org.eclipse.aether.graph.DependencyFilter;
 import org.eclipse.aether.impl.DefaultServiceLocator;
 import org.eclipse.aether.repository.LocalRepository;
 import org.eclipse.aether.repository.RemoteRepository;
-import org.eclipse.aether.resolution.ArtifactResult;
-import org.eclipse.aether.resolution.DependencyRequest;
-import org.eclipse.aether.resolution.DependencyResolutionException;
-import org.eclipse.aether.resolution.DependencyResult;
 import org.eclipse.aether.spi.connector.RepositoryConnectorFactory;
 import org.eclipse.aether.spi.connector.transport.TransporterFactory;
 import org.eclipse.aether.transport.file.FileTransporterFactory;
 import org.eclipse.aether.transport.http.HttpTransporterFactory;
-import org.eclipse.aether.util.artifact.JavaScopes;
 
 /**
  * Utility methods for resolving Maven artifact dependencies, mostly
@@ -61,74 +52,39 @@ import org.eclipse.aether.util.artifact.JavaScopes;
 class DependencyUtils
 {
     /**
-     * Returns the dependencies of the specified artifact
+     * Create the Artifact for the given {@link ArtifactInfo}
      * 
      * @param artifactInfo The {@link ArtifactInfo}
-     * @return The DependencyResult
+     * @return The Artifact
      */
-    static DependencyResult resolveDependencies(ArtifactInfo artifactInfo) 
+    static Artifact createArtifact(ArtifactInfo artifactInfo)
     {
-        Artifact artifact = new DefaultArtifact(
+        return new DefaultArtifact(
             artifactInfo.getGroupId() 
             + ":" + artifactInfo.getArtifactId() 
             + ":" + artifactInfo.getVersion());
-        try
-        {
-            DependencyResult dependencyResult = 
-                resolveDependenciesInternal(artifact);
-            //print(dependencyResult);
-            return dependencyResult;
-        }
-        catch (DependencyResolutionException e)
-        {
-            throw new DependencyCleanerException(e);
-        }
     }
     
     /**
-     * Implementation of the dependency resolution
+     * Create the RemoteRepository for Maven Central
      * 
-     * @param artifact The Artifact
-     * @return The DependencyResult
-     * @throws DependencyResolutionException If the dependency could not be 
-     * resolved
+     * @return The RemoteRepository
      */
-    private static DependencyResult resolveDependenciesInternal(
-        Artifact artifact)
-        throws DependencyResolutionException
+    static RemoteRepository createCentralRepository()
     {
-        // Based on https://stackoverflow.com/a/40820480/3182664
-        DefaultServiceLocator locator =
-            MavenRepositorySystemUtils.newServiceLocator();
-        RepositorySystem system = newRepositorySystem(locator);
-        RepositorySystemSession session =
-            newLocalRepositorySystemSession(system);
-        RemoteRepository central = new RemoteRepository.Builder("central",
-            "default", "http://repo1.maven.org/maven2/").build();
-
-        Dependency dependency = new Dependency(artifact, JavaScopes.COMPILE);
-        CollectRequest collectRequest = 
-            new CollectRequest(dependency, Arrays.asList(central));
-        DependencyFilter dependencyFilter = null;
-        // TODO Could offer the option to define filters here:
-        //    DependencyFilterUtils.classpathFilter(JavaScopes.COMPILE);
-        DependencyRequest dependencyRequest =
-            new DependencyRequest(collectRequest, dependencyFilter);
-        DependencyResult dependencyResult =
-            system.resolveDependencies(session, dependencyRequest);
-
-        return dependencyResult;
+        return new RemoteRepository.Builder("central",
+            "default", "https://repo.maven.apache.org/maven2/").build();
     }
-
+    
     /**
      * Create a new RepositorySystem
      * 
-     * @param locator The DefaultServiceLocator
      * @return The RepositorySystem
      */
-    private static RepositorySystem newRepositorySystem(
-        DefaultServiceLocator locator)
+    static RepositorySystem newRepositorySystem()
     {
+        DefaultServiceLocator locator =
+            MavenRepositorySystemUtils.newServiceLocator();
         // From https://stackoverflow.com/a/40820480/3182664
         locator.addService(
             RepositoryConnectorFactory.class,
@@ -143,20 +99,25 @@ class DependencyUtils
     }
 
     /**
-     * Create a new RepositorySystemSession
+     * Create a new RepositorySystemSession for the given local 
+     * repository.<br>
+     * <br>
+     * The session will have a RepositoryCache, so that artifact 
+     * descriptors and version information that are read once are
+     * re-used when the session is used for resolving multiple artifacts.
      * 
      * @param system The RepositorySystem
+     * @param localRepositoryPath The path of the local repository
      * @return The RepositorySystemSession
      */
-    private static RepositorySystemSession
-        newLocalRepositorySystemSession(RepositorySystem system)
+    static DefaultRepositorySystemSession newLocalRepositorySystemSession(
+        RepositorySystem system, Path localRepositoryPath)
     {
         // Based on https://stackoverflow.com/a/40820480/3182664
         DefaultRepositorySystemSession session =
             MavenRepositorySystemUtils.newSession();
-        File localRepositoryFile =
-            Paths.get(System.getProperty("user.home"), 
-                ".m2/repository").toFile();
+        session.setCache(new DefaultRepositoryCache());
+        File localRepositoryFile = localRepositoryPath.toFile();
         LocalRepository localRepository = 
             new LocalRepository(localRepositoryFile);
         session.setLocalRepositoryManager(
@@ -165,21 +126,16 @@ class DependencyUtils
     }
 
     /**
-     * Debug print 
-     * @param dependencyResult The DependencyResult
+     * Returns the path of the default local repository, which is
+     * <code>.m2/repository</code> in the user home directory
+     * 
+     * @return The path
      */
-    private static void print(DependencyResult dependencyResult)
+    static Path getDefaultLocalRepositoryPath()
     {
-        System.out.println("DependencyResult " + dependencyResult);
-        List<ArtifactResult> artifactResults = 
-            dependencyResult.getArtifactResults();
-        for (ArtifactResult artifactResult : artifactResults)
-        {
-            File file = artifactResult.getArtifact().getFile();
-            System.out.println("   "+file);
-        }
+        return Paths.get(System.getProperty("user.home"), ".m2/repository");
     }
-    
+
     /**
      * Private constructor to prevent instantiation
      */
@@ -0,0 +1,375 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.Repository;
+import org.apache.maven.model.building.DefaultModelBuilderFactory;
+import org.apache.maven.model.building.DefaultModelBuildingRequest;
+import org.apache.maven.model.building.FileModelSource;
+import org.apache.maven.model.building.ModelBuilder;
+import org.apache.maven.model.building.ModelBuildingException;
+import org.apache.maven.model.building.ModelBuildingRequest;
+import org.apache.maven.model.building.ModelCache;
+import org.apache.maven.model.building.ModelSource2;
+import org.apache.maven.model.resolution.ModelResolver;
+import org.apache.maven.model.resolution.UnresolvableModelException;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.util.artifact.JavaScopes;
+
+/**
+ * A class for reading the effective model of POMs.<br>
+ * <br>
+ * The effective model is the model that Maven uses for a POM: It 
+ * contains the elements that are inherited from the parent POMs and 
+ * the dependency management that is imported from BOMs, and all 
+ * expressions, like <code>${project.version}</code>, are replaced
+ * with their values.<br>
+ * <br>
+ * Parent POMs and BOMs that are not found via the relative path of the
+ * parent are resolved with a {@link ResolutionEngine}. So they are only
+ * downloaded once, and afterwards read from the local repository. The
+ * parsed parent POMs and BOMs are cached in memory, so that when the 
+ * POMs of many modules that share a parent are read with the same 
+ * instance, the parent is only parsed once. Repositories that are 
+ * declared in the POMs are not used for the resolution.<br>
+ * <br>
+ * This class is thread-safe.
+ */
+class EffectiveModelReader
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger = 
+        Logger.getLogger(EffectiveModelReader.class.getName());
+    
+    /**
+     * The model builder
+     */
+    private final ModelBuilder modelBuilder;
+    
+    /**
+     * The model resolver for parent POMs and BOMs
+     */
+    private final ModelResolver modelResolver;
+    
+    /**
+     * The model cache for parent POMs and BOMs
+     */
+    private final ModelCache modelCache;
+    
+    /**
+     * The system properties that are available for the interpolation
+     */
+    private final Properties systemProperties;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param resolutionEngine The {@link ResolutionEngine} that will be 
+     * used for resolving parent POMs and BOMs
+     */
+    EffectiveModelReader(ResolutionEngine resolutionEngine)
+    {
+        this.modelBuilder = new DefaultModelBuilderFactory().newInstance();
+        this.modelResolver = new EngineModelResolver(resolutionEngine);
+        this.modelCache = new MemoryModelCache();
+        this.systemProperties = new Properties();
+        systemProperties.putAll(System.getProperties());
+        for (Entry<String, String> entry : System.getenv().entrySet())
+        {
+            systemProperties.put("env." + entry.getKey(), entry.getValue());
+        }
+    }
+    
+    /**
+     * Read the effective model of the specified POM
+     * 
+     * @param pom The POM
+     * @return The effective model
+     * @throws DependencyCleanerException If the effective model can not
+     * be built, for example, because a parent POM can not be resolved
+     */
+    Model readEffectiveModel(Path pom)
+    {
+        DefaultModelBuildingRequest request = 
+            new DefaultModelBuildingRequest();
+        request.setPomFile(pom.toFile());
+        request.setValidationLevel(
+            ModelBuildingRequest.VALIDATION_LEVEL_MINIMAL);
+        request.setProcessPlugins(false);
+        request.setTwoPhaseBuilding(false);
+        request.setSystemProperties(systemProperties);
+        request.setModelResolver(modelResolver);
+        request.setModelCache(modelCache);
+        try
+        {
+            return modelBuilder.build(request).getEffectiveModel();
+        }
+        catch (ModelBuildingException e)
+        {
+            throw new DependencyCleanerException(
+                "Could not build the effective model of " + pom, e);
+        }
+    }
+    
+    /**
+     * Read the {@link ArtifactInfo} for the specified POM, from its 
+     * effective model. If the effective model can not be built, then 
+     * the POM will be read with 
+     * {@link MavenModelUtils#readArtifactInfo(Path)}.
+     * 
+     * @param pom The POM
+     * @return The {@link ArtifactInfo}
+     */
+    ArtifactInfo readArtifactInfo(Path pom)
+    {
+        Model model = null;
+        try
+        {
+            model = readEffectiveModel(pom);
+        }
+        catch (DependencyCleanerException e)
+        {
+            logger.warning(e.getMessage() + ": " + e.getCause().getMessage());
+            return MavenModelUtils.readArtifactInfo(pom);
+        }
+        return createArtifactInfo(model);
+    }
+    
+    /**
+     * Read the {@link DependencyArtifactInfo} objects for the dependencies
+     * of the specified POM, from its effective model. This includes the
+     * dependencies that are inherited from parent POMs, and versions 
+     * that are defined in the dependency management. If the effective 
+     * model can not be built, then the POM will be read with 
+     * {@link MavenModelUtils#readDependencyArtifactInfos(Path)}.
+     * 
+     * @param pom The POM
+     * @return The {@link ArtifactInfo} objects
+     */
+    List<ArtifactInfo> readDependencyArtifactInfos(Path pom)
+    {
+        Model model = null;
+        try
+        {
+            model = readEffectiveModel(pom);
+        }
+        catch (DependencyCleanerException e)
+        {
+            logger.warning(e.getMessage() + ": " + e.getCause().getMessage());
+            return MavenModelUtils.readDependencyArtifactInfos(pom);
+        }
+        return createDependencyArtifactInfos(model);
+    }
+    
+    /**
+     * Create the {@link ArtifactInfo} for the given effective model
+     * 
+     * @param model The model
+     * @return The {@link ArtifactInfo}
+     */
+    static ArtifactInfo createArtifactInfo(Model model)
+    {
+        return new ArtifactInfo(
+            model.getGroupId(), model.getArtifactId(), model.getVersion());
+    }
+    
+    /**
+     * Create the {@link DependencyArtifactInfo} objects for the 
+     * dependencies of the given effective model
+     * 
+     * @param model The model
+     * @return The {@link ArtifactInfo} objects
+     */
+    static List<ArtifactInfo> createDependencyArtifactInfos(Model model)
+    {
+        List<ArtifactInfo> artifactInfos = new ArrayList<ArtifactInfo>();
+        for (Dependency dependency : model.getDependencies())
+        {
+            String scope = dependency.getScope();
+            if (scope == null)
+            {
+                scope = JavaScopes.COMPILE;
+            }
+            String classifier = dependency.getClassifier();
+            if (classifier == null)
+            {
+                classifier = "";
+            }
+            List<String> exclusions = new ArrayList<String>();
+            for (Exclusion exclusion : dependency.getExclusions())
+            {
+                String artifactId = exclusion.getArtifactId();
+                if (artifactId == null || artifactId.isEmpty())
+                {
+                    artifactId = "*";
+                }
+                exclusions.add(exclusion.getGroupId() + ":" + artifactId);
+            }
+            artifactInfos.add(new DependencyArtifactInfo(
+                dependency.getGroupId(), dependency.getArtifactId(), 
+                dependency.getVersion(), scope, dependency.isOptional(),
+                dependency.getType(), classifier, exclusions));
+        }
+        return artifactInfos;
+    }
+    
+    /**
+     * Implementation of a ModelResolver that resolves the POMs with a
+     * {@link ResolutionEngine}
+     */
+    private static class EngineModelResolver implements ModelResolver
+    {
+        /**
+         * The {@link ResolutionEngine}
+         */
+        private final ResolutionEngine resolutionEngine;
+        
+        /**
+         * The paths of the POMs that have already been resolved, 
+         * mapping <code>groupId:artifactId:version</code> to the path
+         */
+        private final Map<String, Path> resolvedPaths;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param resolutionEngine The {@link ResolutionEngine}
+         */
+        EngineModelResolver(ResolutionEngine resolutionEngine)
+        {
+            this.resolutionEngine = resolutionEngine;
+            this.resolvedPaths = new ConcurrentHashMap<String, Path>();
+        }
+        
+        @Override
+        public ModelSource2 resolveModel(
+            String groupId, String artifactId, String version)
+            throws UnresolvableModelException
+        {
+            String key = groupId + ":" + artifactId + ":" + version;
+            Path path = resolvedPaths.get(key);
+            if (path == null)
+            {
+                try
+                {
+                    path = resolutionEngine.resolveArtifact(
+                        new DefaultArtifact(
+                            groupId, artifactId, "pom", version));
+                }
+                catch (DependencyCleanerException e)
+                {
+                    throw new UnresolvableModelException(e.getMessage(), 
+                        groupId, artifactId, version, e);
+                }
+                resolvedPaths.put(key, path);
+            }
+            return new FileModelSource(path.toFile());
+        }
+        
+        @Override
+        public ModelSource2 resolveModel(Parent parent)
+            throws UnresolvableModelException
+        {
+            return resolveModel(parent.getGroupId(), 
+                parent.getArtifactId(), parent.getVersion());
+        }
+        
+        @Override
+        public void addRepository(Repository repository)
+        {
+            // Repositories that are declared in POMs are not used
+        }
+        
+        @Override
+        public void addRepository(Repository repository, boolean replace)
+        {
+            // Repositories that are declared in POMs are not used
+        }
+        
+        @Override
+        public ModelResolver newCopy()
+        {
+            return this;
+        }
+    }
+    
+    /**
+     * Implementation of a ModelCache that stores the data in memory
+     */
+    private static class MemoryModelCache implements ModelCache
+    {
+        /**
+         * The cached data
+         */
+        private final Map<String, Object> data = 
+            new ConcurrentHashMap<String, Object>();
+        
+        @Override
+        public void put(String groupId, String artifactId, String version, 
+            String tag, Object data)
+        {
+            this.data.put(createKey(groupId, artifactId, version, tag), data);
+        }
+        
+        @Override
+        public Object get(String groupId, String artifactId, String version,
+            String tag)
+        {
+            return data.get(createKey(groupId, artifactId, version, tag));
+        }
+        
+        /**
+         * Create the key for the given elements
+         * 
+         * @param groupId The group ID
+         * @param artifactId The artifact ID
+         * @param version The version
+         * @param tag The tag
+         * @return The key
+         */
+        private static String createKey(String groupId, String artifactId, 
+            String version, String tag)
+        {
+            return groupId + ":" + artifactId + ":" + version + ":" + tag;
+        }
+    }
+}
@@ -0,0 +1,678 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A persistent cache for the dependency trees of artifacts.<br>
+ * <br>
+ * The cache stores the {@link DependencyTreeNode} tree that was built 
+ * from the resolved dependency graph of an artifact, together with the 
+ * paths of all POMs in the local repository that the graph was built 
+ * from, and a hash of the contents of these POMs. A cached tree is only 
+ * returned when the POMs did not change, and all files that appear in 
+ * the tree still exist.<br>
+ * <br>
+ * The cache file is written and merged in the same way as the file of 
+ * the {@link ValidationCache}. 
+ */
+class GraphCache
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger = 
+        Logger.getLogger(GraphCache.class.getName());
+    
+    /**
+     * The magic header of the cache file
+     */
+    private static final int MAGIC = 0x44434743;
+    
+    /**
+     * The version of the cache file format
+     */
+    private static final int FORMAT_VERSION = 1;
+    
+    /**
+     * The default time, in milliseconds, after which entries that have 
+     * not been used are evicted
+     */
+    private static final long DEFAULT_MAX_AGE_MS = TimeUnit.DAYS.toMillis(90);
+    
+    /**
+     * A lock for serializing the accesses to the lock file within this 
+     * JVM, because file locks are held on behalf of the whole JVM
+     */
+    private static final Object LOCK = new Object();
+    
+    /**
+     * A single cache entry
+     */
+    private static final class CacheEntry
+    {
+        /**
+         * The paths of the POMs that the tree was built from
+         */
+        private final List<String> pomPaths;
+        
+        /**
+         * The hash of the POMs
+         */
+        private final byte[] pomHash;
+        
+        /**
+         * The root of the tree
+         */
+        private final DependencyTreeNode root;
+        
+        /**
+         * The time when this entry was last used, in milliseconds
+         */
+        private volatile long lastAccess;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param pomPaths The POM paths
+         * @param pomHash The POM hash
+         * @param root The root of the tree
+         * @param lastAccess The last access time
+         */
+        CacheEntry(List<String> pomPaths, byte[] pomHash, 
+            DependencyTreeNode root, long lastAccess)
+        {
+            this.pomPaths = pomPaths;
+            this.pomHash = pomHash;
+            this.root = root;
+            this.lastAccess = lastAccess;
+        }
+    }
+    
+    /**
+     * The cache file
+     */
+    private final Path cacheFile;
+    
+    /**
+     * The prefix for the keys, which identifies the local repository
+     * and the configuration of the resolution
+     */
+    private final String keyPrefix;
+    
+    /**
+     * The time after which unused entries are evicted
+     */
+    private final long maxAgeMs;
+    
+    /**
+     * The entries, mapping keys to entries
+     */
+    private final Map<String, CacheEntry> entries;
+    
+    /**
+     * The hashes of the POMs that have already been read by this 
+     * instance. Most POMs appear in the trees of many artifacts, so
+     * they only have to be read once. The keys consist of the path, 
+     * the size and the last modification time of the POM, so that a
+     * POM that was changed is read again.
+     */
+    private final Map<String, byte[]> pomHashes;
+    
+    /**
+     * Creates a new instance. The contents of the given cache file will
+     * be read, if it exists.
+     * 
+     * @param cacheFile The cache file
+     * @param localRepositoryPath The path of the local repository that
+     * the trees are resolved in
+     * @param configuration A string describing the configuration of the
+     * resolution (for example, the dependency filters) that the trees 
+     * depend on
+     */
+    GraphCache(Path cacheFile, Path localRepositoryPath, 
+        String configuration)
+    {
+        this.cacheFile = cacheFile;
+        this.keyPrefix = localRepositoryPath.toAbsolutePath().normalize() 
+            + "|" + configuration + "|";
+        this.maxAgeMs = DEFAULT_MAX_AGE_MS;
+        this.entries = new ConcurrentHashMap<String, CacheEntry>();
+        this.pomHashes = new ConcurrentHashMap<String, byte[]>();
+        entries.putAll(readEntries(cacheFile));
+    }
+    
+    /**
+     * Returns the path of the default cache file. This is a relative 
+     * path, which will be resolved against the local repository
+     * 
+     * @return The path
+     */
+    static Path getDefaultCacheFile()
+    {
+        return Paths.get(".dependency-cleaner", "graph-cache.bin");
+    }
+    
+    /**
+     * Returns the cached tree for the given artifact, or <code>null</code>
+     * if there is no cached tree, one of the POMs that it was built from
+     * was changed or removed, or one of the files that appear in the
+     * tree does not exist.
+     * 
+     * @param artifactInfo The {@link ArtifactInfo}
+     * @return The cached tree
+     */
+    DependencyTreeNode get(ArtifactInfo artifactInfo)
+    {
+        String key = createKey(artifactInfo);
+        CacheEntry entry = entries.get(key);
+        if (entry == null)
+        {
+            return null;
+        }
+        byte[] pomHash = computePomHash(entry.pomPaths);
+        if (!Arrays.equals(pomHash, entry.pomHash) || 
+            !allPathsExist(entry.root, new HashSet<DependencyTreeNode>()))
+        {
+            entries.remove(key, entry);
+            return null;
+        }
+        entry.lastAccess = System.currentTimeMillis();
+        return entry.root;
+    }
+    
+    /**
+     * Store the given tree for the given artifact. If one of the given
+     * POMs or one of the files in the tree does not exist, then the tree
+     * is assumed to be incomplete, and it is not stored.<br>
+     * <br>
+     * If the given POM paths are <code>null</code>, then the POMs that 
+     * the tree was built from are not known, and it is not stored either.
+     * 
+     * @param artifactInfo The {@link ArtifactInfo}
+     * @param root The root of the tree
+     * @param pomPaths The paths of the POMs that the tree was built from
+     */
+    void put(ArtifactInfo artifactInfo, DependencyTreeNode root,
+        List<Path> pomPaths)
+    {
+        if (pomPaths == null || 
+            !allPathsExist(root, new HashSet<DependencyTreeNode>()))
+        {
+            return;
+        }
+        List<String> pomPathStrings = new ArrayList<String>();
+        for (Path pomPath : pomPaths)
+        {
+            pomPathStrings.add(pomPath.toAbsolutePath().toString());
+        }
+        byte[] pomHash = computePomHash(pomPathStrings);
+        if (pomHash == null)
+        {
+            return;
+        }
+        String key = createKey(artifactInfo);
+        entries.put(key, new CacheEntry(pomPathStrings, pomHash, root, 
+            System.currentTimeMillis()));
+    }
+    
+    /**
+     * Returns whether all paths in the given tree exist
+     * 
+     * @param node The root node of the tree
+     * @param visited The nodes that have already been visited
+     * @return Whether all paths exist
+     */
+    private static boolean allPathsExist(
+        DependencyTreeNode node, Set<DependencyTreeNode> visited)
+    {
+        if (!visited.add(node))
+        {
+            return true;
+        }
+        Path path = node.getPath();
+        if (path != null && !Files.exists(path))
+        {
+            return false;
+        }
+        for (DependencyTreeNode child : node.getChildren())
+        {
+            if (!allPathsExist(child, visited))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Compute the hash of the POMs with the given paths. Returns 
+     * <code>null</code> if one of the POMs can not be read.
+     * 
+     * @param pomPaths The POM paths
+     * @return The hash
+     */
+    private byte[] computePomHash(List<String> pomPaths)
+    {
+        MessageDigest messageDigest = createMessageDigest();
+        for (String pomPath : pomPaths)
+        {
+            Path path = Paths.get(pomPath);
+            BasicFileAttributes attributes = null;
+            try
+            {
+                attributes = 
+                    Files.readAttributes(path, BasicFileAttributes.class);
+            }
+            catch (IOException e)
+            {
+                return null;
+            }
+            String pomKey = pomPath + "|" + attributes.size() + "|" 
+                + attributes.lastModifiedTime().toMillis();
+            byte[] pomHash = pomHashes.computeIfAbsent(pomKey, k -> 
+            {
+                try
+                {
+                    return createMessageDigest().digest(
+                        Files.readAllBytes(path));
+                }
+                catch (IOException e)
+                {
+                    return new byte[0];
+                }
+            });
+            if (pomHash.length == 0)
+            {
+                return null;
+            }
+            messageDigest.update(pomHash);
+        }
+        return messageDigest.digest();
+    }
+    
+    /**
+     * Create the message digest for computing the POM hashes
+     * 
+     * @return The message digest
+     */
+    private static MessageDigest createMessageDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // SHA-1 must be supported by every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * Save this cache to its file. The file will be locked while it is
+     * written. Entries that have been written by other processes since
+     * this cache was read will be retained, unless they have been 
+     * replaced by this cache. Entries that have not been used within 
+     * the maximum age will be evicted. Errors will only be logged.
+     */
+    void save()
+    {
+        synchronized (LOCK)
+        {
+            try
+            {
+                Files.createDirectories(cacheFile.getParent());
+                Path lockFile = Paths.get(cacheFile + ".lock");
+                try (FileChannel lockChannel = FileChannel.open(lockFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE))
+                {
+                    FileLock fileLock = lockChannel.lock();
+                    try
+                    {
+                        saveLocked();
+                    }
+                    finally
+                    {
+                        fileLock.release();
+                    }
+                }
+            }
+            catch (IOException e)
+            {
+                logger.log(Level.WARNING, 
+                    "Could not save graph cache: " + e.getMessage(), e);
+            }
+        }
+    }
+    
+    /**
+     * Implementation of {@link #save()}, called while holding the lock
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    private void saveLocked() throws IOException
+    {
+        Map<String, CacheEntry> merged = readEntries(cacheFile);
+        for (Entry<String, CacheEntry> entry : entries.entrySet())
+        {
+            String key = entry.getKey();
+            CacheEntry cacheEntry = entry.getValue();
+            CacheEntry other = merged.get(key);
+            if (other == null || other.lastAccess <= cacheEntry.lastAccess)
+            {
+                merged.put(key, cacheEntry);
+            }
+        }
+        long minAccess = System.currentTimeMillis() - maxAgeMs;
+        merged.values().removeIf(e -> e.lastAccess < minAccess);
+        
+        Path tempFile = Files.createTempFile(
+            cacheFile.getParent(), "graph-cache", ".tmp");
+        try
+        {
+            writeEntries(tempFile, merged);
+            Files.move(tempFile, cacheFile, 
+                StandardCopyOption.REPLACE_EXISTING, 
+                StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+    
+    /**
+     * Create the key for the given {@link ArtifactInfo}
+     * 
+     * @param artifactInfo The {@link ArtifactInfo}
+     * @return The key
+     */
+    private String createKey(ArtifactInfo artifactInfo)
+    {
+        String key = keyPrefix + artifactInfo.getGroupId() + ":" 
+            + artifactInfo.getArtifactId() + ":" + artifactInfo.getVersion();
+        if (artifactInfo instanceof DependencyArtifactInfo)
+        {
+            // The scope and the optional flag are inherited by the 
+            // dependencies, and thus affect the filtering of the tree,
+            // and the exclusions are applied to the whole tree
+            DependencyArtifactInfo dependencyArtifactInfo = 
+                (DependencyArtifactInfo)artifactInfo;
+            key += ":" + dependencyArtifactInfo.getScope() 
+                + ":" + dependencyArtifactInfo.isOptional()
+                + ":" + dependencyArtifactInfo.getType()
+                + ":" + dependencyArtifactInfo.getClassifier()
+                + ":" + dependencyArtifactInfo.getExclusions();
+        }
+        return key;
+    }
+    
+    /**
+     * Read the entries from the given file. If the file does not exist,
+     * or cannot be read, then an empty map is returned.
+     * 
+     * @param file The file
+     * @return The entries
+     */
+    private static Map<String, CacheEntry> readEntries(Path file)
+    {
+        Map<String, CacheEntry> result = new HashMap<String, CacheEntry>();
+        ArtifactInfoPool artifactInfoPool = new ArtifactInfoPool();
+        try (InputStream inputStream = Files.newInputStream(file);
+            DataInputStream in = new DataInputStream(
+                new BufferedInputStream(inputStream)))
+        {
+            int magic = in.readInt();
+            int formatVersion = in.readInt();
+            if (magic != MAGIC || formatVersion != FORMAT_VERSION)
+            {
+                logger.warning("Ignoring graph cache " + file 
+                    + " with unknown format");
+                return result;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++)
+            {
+                String key = in.readUTF();
+                long lastAccess = in.readLong();
+                int pomCount = in.readInt();
+                List<String> pomPaths = new ArrayList<String>(pomCount);
+                for (int j = 0; j < pomCount; j++)
+                {
+                    pomPaths.add(in.readUTF());
+                }
+                byte[] pomHash = new byte[in.readUnsignedByte()];
+                in.readFully(pomHash);
+                DependencyTreeNode root = readTree(in, artifactInfoPool);
+                result.put(key, 
+                    new CacheEntry(pomPaths, pomHash, root, lastAccess));
+            }
+        }
+        catch (NoSuchFileException e)
+        {
+            // The cache file was not written yet
+        }
+        catch (IOException e)
+        {
+            logger.log(Level.WARNING, 
+                "Could not read graph cache: " + e.getMessage(), e);
+            result.clear();
+        }
+        return result;
+    }
+    
+    /**
+     * Write the given entries to the given file
+     * 
+     * @param file The file
+     * @param entries The entries
+     * @throws IOException If an IO error occurs
+     */
+    private static void writeEntries(Path file, 
+        Map<String, CacheEntry> entries) throws IOException
+    {
+        try (OutputStream outputStream = Files.newOutputStream(file);
+            DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(outputStream)))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(entries.size());
+            for (Entry<String, CacheEntry> entry : entries.entrySet())
+            {
+                CacheEntry cacheEntry = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeLong(cacheEntry.lastAccess);
+                out.writeInt(cacheEntry.pomPaths.size());
+                for (String pomPath : cacheEntry.pomPaths)
+                {
+                    out.writeUTF(pomPath);
+                }
+                out.writeByte(cacheEntry.pomHash.length);
+                out.write(cacheEntry.pomHash);
+                writeTree(out, cacheEntry.root);
+            }
+        }
+    }
+    
+    /**
+     * Write the tree with the given root to the given output.<br>
+     * <br>
+     * The tree is written as a table of nodes, where each node refers
+     * to its children by their index in the table. Children are written
+     * before their parents, and the root is the last node in the table.
+     * A node that appears multiple times in the tree is only written once.
+     * 
+     * @param out The output
+     * @param root The root node
+     * @throws IOException If an IO error occurs
+     */
+    private static void writeTree(DataOutputStream out, 
+        DependencyTreeNode root) throws IOException
+    {
+        Map<DependencyTreeNode, Integer> indices = 
+            new IdentityHashMap<DependencyTreeNode, Integer>();
+        List<DependencyTreeNode> nodes = new ArrayList<DependencyTreeNode>();
+        collectNodes(root, indices, nodes);
+        out.writeInt(nodes.size());
+        for (DependencyTreeNode node : nodes)
+        {
+            out.writeUTF(node.getName());
+            ArtifactInfo artifactInfo = node.getArtifactInfo();
+            out.writeBoolean(artifactInfo != null);
+            if (artifactInfo != null)
+            {
+                out.writeUTF(artifactInfo.getGroupId());
+                out.writeUTF(artifactInfo.getArtifactId());
+                out.writeUTF(artifactInfo.getVersion());
+            }
+            Path path = node.getPath();
+            out.writeBoolean(path != null);
+            if (path != null)
+            {
+                out.writeUTF(path.toString());
+            }
+            List<DependencyTreeNode> children = node.getChildren();
+            out.writeInt(children.size());
+            for (DependencyTreeNode child : children)
+            {
+                out.writeInt(indices.get(child));
+            }
+        }
+    }
+    
+    /**
+     * Collect all nodes of the tree with the given root in the given 
+     * list, with children being added before their parents, and store
+     * the index of each node in the given map
+     * 
+     * @param node The current node
+     * @param indices The mapping from nodes to indices
+     * @param nodes The nodes
+     */
+    private static void collectNodes(DependencyTreeNode node, 
+        Map<DependencyTreeNode, Integer> indices, 
+        List<DependencyTreeNode> nodes)
+    {
+        if (indices.containsKey(node))
+        {
+            return;
+        }
+        for (DependencyTreeNode child : node.getChildren())
+        {
+            collectNodes(child, indices, nodes);
+        }
+        indices.put(node, nodes.size());
+        nodes.add(node);
+    }
+    
+    /**
+     * Read a tree that was written with 
+     * {@link #writeTree(DataOutputStream, DependencyTreeNode)}
+     * 
+     * @param in The input
+     * @param artifactInfoPool The pool for the {@link ArtifactInfo} 
+     * objects of the nodes
+     * @return The root node
+     * @throws IOException If an IO error occurs, or the data is invalid
+     */
+    private static DependencyTreeNode readTree(DataInputStream in, 
+        ArtifactInfoPool artifactInfoPool) throws IOException
+    {
+        int count = in.readInt();
+        if (count <= 0)
+        {
+            throw new IOException("Invalid node count: " + count);
+        }
+        DependencyTreeNode[] nodes = new DependencyTreeNode[count];
+        for (int i = 0; i < count; i++)
+        {
+            String name = in.readUTF();
+            ArtifactInfo artifactInfo = null;
+            if (in.readBoolean())
+            {
+                String groupId = in.readUTF();
+                String artifactId = in.readUTF();
+                String version = in.readUTF();
+                artifactInfo = 
+                    artifactInfoPool.get(groupId, artifactId, version);
+            }
+            Path path = null;
+            if (in.readBoolean())
+            {
+                path = Paths.get(in.readUTF());
+            }
+            DependencyTreeNode node = 
+                new DependencyTreeNode(name, artifactInfo, path);
+            int childCount = in.readInt();
+            for (int j = 0; j < childCount; j++)
+            {
+                int childIndex = in.readInt();
+                if (childIndex < 0 || childIndex >= i)
+                {
+                    throw new IOException(
+                        "Invalid child index: " + childIndex);
+                }
+                node.addChild(nodes[childIndex]);
+            }
+            nodes[i] = node;
+        }
+        return nodes[count - 1];
+    }
+}
@@ -0,0 +1,345 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Utility methods related to the contents of a local Maven repository
+ */
+class LocalRepositories
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger = 
+        Logger.getLogger(LocalRepositories.class.getName());
+    
+    /**
+     * The extension of the files that are found in the repository
+     */
+    private static final String EXTENSION = "jar";
+    
+    /**
+     * The suffix of the directory names of snapshot versions
+     */
+    private static final String SNAPSHOT_SUFFIX = "-SNAPSHOT";
+    
+    /**
+     * The pattern for the timestamp and build number that replace the
+     * <code>"SNAPSHOT"</code> in the file names of timestamped snapshots,
+     * as in <code>artifactId-1.0-20200101.123456-1.jar</code>
+     */
+    private static final Pattern SNAPSHOT_TIMESTAMP_PATTERN = 
+        Pattern.compile("\\d{8}\\.\\d{6}-\\d+");
+    
+    /**
+     * Walk through the given local repository directory, using a pool of
+     * threads, and pass all JAR files that are found to the given consumer.
+     * The consumer may be called from multiple threads concurrently. 
+     * Directories whose name starts with a <code>"."</code> are skipped.
+     * 
+     * @param repositoryRoot The root directory of the repository
+     * @param parallelism The maximum number of threads
+     * @param consumer The consumer for the paths of the JAR files
+     */
+    static void walkJarFiles(Path repositoryRoot, int parallelism, 
+        Consumer<? super Path> consumer)
+    {
+        ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+        try
+        {
+            forkJoinPool.invoke(new DirectoryWalk(repositoryRoot, consumer));
+        }
+        finally
+        {
+            forkJoinPool.shutdown();
+        }
+    }
+    
+    /**
+     * A recursive action that walks through a directory, forking a new 
+     * action for each subdirectory
+     */
+    private static class DirectoryWalk extends RecursiveAction
+    {
+        /**
+         * Serial UID
+         */
+        private static final long serialVersionUID = -7467309281427493925L;
+
+        /**
+         * The directory
+         */
+        private final Path directory;
+        
+        /**
+         * The consumer for the paths of the JAR files
+         */
+        private final Consumer<? super Path> consumer;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param directory The directory
+         * @param consumer The consumer for the paths of the JAR files
+         */
+        DirectoryWalk(Path directory, Consumer<? super Path> consumer)
+        {
+            this.directory = directory;
+            this.consumer = consumer;
+        }
+        
+        @Override
+        protected void compute()
+        {
+            List<DirectoryWalk> subWalks = new ArrayList<DirectoryWalk>();
+            try (DirectoryStream<Path> directoryStream = 
+                Files.newDirectoryStream(directory))
+            {
+                for (Path path : directoryStream)
+                {
+                    String fileName = path.getFileName().toString();
+                    if (Files.isDirectory(path))
+                    {
+                        if (!fileName.startsWith("."))
+                        {
+                            subWalks.add(new DirectoryWalk(path, consumer));
+                        }
+                    }
+                    else if (fileName.endsWith("." + EXTENSION))
+                    {
+                        consumer.accept(path);
+                    }
+                }
+            }
+            catch (IOException e)
+            {
+                logger.warning("Could not read " + directory 
+                    + ": " + e.getMessage());
+            }
+            invokeAll(subWalks);
+        }
+    }
+    
+    /**
+     * Create a {@link DependencyTreeNode} for the given JAR file in the
+     * given local repository. The {@link ArtifactInfo} of the node will 
+     * be derived from the repository layout, which is
+     * <code>groupId/artifactId/version/artifactId-version[-classifier].jar
+     * </code>, where the <code>groupId</code> consists of one directory 
+     * for each of its components. The name of the node will be the 
+     * artifact coordinates, in the form 
+     * <code>groupId:artifactId:jar[:classifier]:version</code>, where
+     * the version of a timestamped snapshot is the one from the file 
+     * name. If the path does not match the repository layout, then the 
+     * node will not have an {@link ArtifactInfo}, and its name will be 
+     * the relative path.
+     * 
+     * @param repositoryRoot The root directory of the repository
+     * @param path The path of the JAR file
+     * @param artifactInfoPool The pool that the {@link ArtifactInfo}
+     * is obtained from
+     * @return The {@link DependencyTreeNode}
+     */
+    static DependencyTreeNode createDependencyTreeNode(
+        Path repositoryRoot, Path path, ArtifactInfoPool artifactInfoPool)
+    {
+        Path relativePath = repositoryRoot.relativize(path);
+        String name = createCoordinates(relativePath);
+        if (name == null)
+        {
+            return new DependencyTreeNode(
+                relativePath.toString(), null, path);
+        }
+        int n = relativePath.getNameCount();
+        String groupId = name.substring(0, name.indexOf(':'));
+        String artifactId = relativePath.getName(n - 3).toString();
+        String version = relativePath.getName(n - 2).toString();
+        ArtifactInfo artifactInfo = 
+            artifactInfoPool.get(groupId, artifactId, version);
+        return new DependencyTreeNode(name, artifactInfo, path);
+    }
+    
+    /**
+     * Returns the artifact coordinates of the given JAR file in the given
+     * local repository, in the form 
+     * <code>groupId:artifactId:jar[:classifier]:version</code>, or 
+     * <code>null</code> if the file is not contained in the repository,
+     * or its path does not match the repository layout. For timestamped
+     * snapshots, like <code>artifactId-1.0-20200101.123456-1.jar</code>
+     * in the directory <code>1.0-SNAPSHOT</code>, the version is the one
+     * from the file name.
+     * 
+     * @param repositoryRoot The root directory of the repository
+     * @param path The path of the JAR file
+     * @return The coordinates
+     */
+    static String createCoordinates(Path repositoryRoot, Path path)
+    {
+        if (!path.startsWith(repositoryRoot))
+        {
+            return null;
+        }
+        return createCoordinates(repositoryRoot.relativize(path));
+    }
+    
+    /**
+     * Returns the artifact coordinates of the JAR file with the given
+     * path relative to the root of the local repository, or 
+     * <code>null</code> if the path does not match the repository layout.
+     * 
+     * @param relativePath The relative path
+     * @return The coordinates
+     */
+    private static String createCoordinates(Path relativePath)
+    {
+        int n = relativePath.getNameCount();
+        if (n < 4)
+        {
+            return null;
+        }
+        String fileName = relativePath.getName(n - 1).toString();
+        String version = relativePath.getName(n - 2).toString();
+        String artifactId = relativePath.getName(n - 3).toString();
+        String prefix = artifactId + "-";
+        String suffix = "." + EXTENSION;
+        if (!fileName.startsWith(prefix) || !fileName.endsWith(suffix))
+        {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n - 3; i++)
+        {
+            if (i > 0)
+            {
+                sb.append(".");
+            }
+            sb.append(relativePath.getName(i));
+        }
+        String groupId = sb.toString();
+        
+        // The classifier is whatever follows the version in the file name
+        String versionAndClassifier = fileName.substring(
+            prefix.length(), fileName.length() - suffix.length());
+        String fileVersion = 
+            getFileVersion(versionAndClassifier, version);
+        if (fileVersion == null)
+        {
+            return null;
+        }
+        if (versionAndClassifier.length() == fileVersion.length())
+        {
+            return groupId + ":" + artifactId + ":" + EXTENSION + ":" 
+                + fileVersion;
+        }
+        String classifier = 
+            versionAndClassifier.substring(fileVersion.length() + 1);
+        if (classifier.isEmpty())
+        {
+            return null;
+        }
+        return groupId + ":" + artifactId + ":" + EXTENSION + ":" 
+            + classifier + ":" + fileVersion;
+    }
+    
+    /**
+     * Returns the version at the start of the given string, which is 
+     * the part of a file name that follows the artifact ID. This is 
+     * either the given directory version, or, if the directory version 
+     * is a snapshot version, the timestamped form of this version. 
+     * Returns <code>null</code> if the string does not start with one 
+     * of these versions, followed by the end of the string or by a
+     * <code>"-"</code>.
+     * 
+     * @param versionAndClassifier The version and the optional classifier
+     * @param version The version from the directory name
+     * @return The version
+     */
+    private static String getFileVersion(
+        String versionAndClassifier, String version)
+    {
+        if (startsWithVersion(versionAndClassifier, version))
+        {
+            return version;
+        }
+        if (!version.endsWith(SNAPSHOT_SUFFIX))
+        {
+            return null;
+        }
+        String baseVersion = version.substring(
+            0, version.length() - SNAPSHOT_SUFFIX.length()) + "-";
+        if (!versionAndClassifier.startsWith(baseVersion))
+        {
+            return null;
+        }
+        Matcher matcher = SNAPSHOT_TIMESTAMP_PATTERN.matcher(
+            versionAndClassifier.substring(baseVersion.length()));
+        if (!matcher.lookingAt())
+        {
+            return null;
+        }
+        String timestampedVersion = baseVersion + matcher.group();
+        if (startsWithVersion(versionAndClassifier, timestampedVersion))
+        {
+            return timestampedVersion;
+        }
+        return null;
+    }
+    
+    /**
+     * Returns whether the given string starts with the given version,
+     * followed by the end of the string or by a <code>"-"</code>
+     * 
+     * @param s The string
+     * @param version The version
+     * @return Whether the string starts with the version
+     */
+    private static boolean startsWithVersion(String s, String version)
+    {
+        return s.equals(version) || s.startsWith(version + "-");
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private LocalRepositories()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
@@ -0,0 +1,552 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Methods for validating the structure of ZIP (and thus, JAR) files, based
+ * on a memory-mapped file.<br>
+ * <br>
+ * The validation reads the End Of Central Directory record, walks through 
+ * the central directory, and checks the local file header that each entry
+ * of the central directory refers to. This detects the same kind of 
+ * corruption that causes a <code>java.util.zip.ZipException: invalid LOC 
+ * header</code> when the file is read with a <code>JarFile</code>, but
+ * without opening a stream for each entry.<br>
+ * <br>
+ * Depending on the {@link ValidationTier}, only the End Of Central 
+ * Directory record may be checked, or the data of all entries may be
+ * inflated and compared to the CRC-32 that is stored in the central 
+ * directory.<br>
+ * <br>
+ * The format is described in the 
+ * <a href="https://pkware.cachefly.net/webdocs/casestudies/APPNOTE.TXT">
+ * ZIP File Format Specification</a>.
+ */
+class MappedZipScanner
+{
+    /**
+     * The signature of the End Of Central Directory record
+     */
+    private static final int END_HEADER_SIGNATURE = 0x06054b50;
+    
+    /**
+     * The size of the End Of Central Directory record, without the comment
+     */
+    private static final int END_HEADER_SIZE = 22;
+    
+    /**
+     * The maximum length of the ZIP file comment
+     */
+    private static final int MAX_COMMENT_LENGTH = 0xFFFF;
+    
+    /**
+     * The signature of the ZIP64 End Of Central Directory locator
+     */
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    
+    /**
+     * The size of the ZIP64 End Of Central Directory locator
+     */
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    
+    /**
+     * The signature of the ZIP64 End Of Central Directory record
+     */
+    private static final int ZIP64_END_HEADER_SIGNATURE = 0x06064b50;
+    
+    /**
+     * The size of the ZIP64 End Of Central Directory record, without
+     * the extensible data sector
+     */
+    private static final int ZIP64_END_HEADER_SIZE = 56;
+    
+    /**
+     * The header ID of the ZIP64 extended information extra field
+     */
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    
+    /**
+     * The signature of a central directory file header
+     */
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    
+    /**
+     * The size of a central directory file header, without the variable
+     * length fields
+     */
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    
+    /**
+     * The signature of a local file header
+     */
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    
+    /**
+     * The size of a local file header, without the variable length fields
+     */
+    private static final int LOCAL_HEADER_SIZE = 30;
+    
+    /**
+     * The compression method for stored (uncompressed) entries
+     */
+    private static final int METHOD_STORED = 0;
+    
+    /**
+     * The compression method for deflated entries
+     */
+    private static final int METHOD_DEFLATED = 8;
+    
+    /**
+     * The general purpose flag that indicates an encrypted entry
+     */
+    private static final int FLAG_ENCRYPTED = 0x0001;
+    
+    /**
+     * The size of the buffers that are used for inflating entries
+     */
+    private static final int BUFFER_SIZE = 16 * 1024;
+    
+    /**
+     * The inflater for each thread
+     */
+    private static final ThreadLocal<Inflater> INFLATER = 
+        ThreadLocal.withInitial(() -> new Inflater(true));
+    
+    /**
+     * The CRC-32 for each thread
+     */
+    private static final ThreadLocal<CRC32> CRC = 
+        ThreadLocal.withInitial(() -> new CRC32());
+    
+    /**
+     * The buffer for the input of the inflater, for each thread
+     */
+    private static final ThreadLocal<byte[]> INPUT_BUFFER = 
+        ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+    
+    /**
+     * The buffer for the output of the inflater, for each thread
+     */
+    private static final ThreadLocal<byte[]> OUTPUT_BUFFER = 
+        ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+    
+    /**
+     * The value that indicates that a 16 bit value is stored in the
+     * ZIP64 fields
+     */
+    private static final int ZIP64_MAGIC_SHORT = 0xFFFF;
+    
+    /**
+     * The value that indicates that a 32 bit value is stored in the
+     * ZIP64 fields
+     */
+    private static final long ZIP64_MAGIC_INT = 0xFFFFFFFFL;
+    
+    /**
+     * Returns whether the given buffer contains a valid ZIP file. 
+     * 
+     * @param buffer The buffer. Its byte order will be set to 
+     * little endian
+     * @param validationTier The {@link ValidationTier}
+     * @return Whether the buffer contains a valid ZIP file
+     */
+    static boolean isValidZip(ByteBuffer buffer, 
+        ValidationTier validationTier)
+    {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int endPosition = findEndHeader(buffer);
+        if (endPosition < 0)
+        {
+            return false;
+        }
+        long entries = readUnsignedShort(buffer, endPosition + 10);
+        long centralSize = readUnsignedInt(buffer, endPosition + 12);
+        long centralOffset = readUnsignedInt(buffer, endPosition + 16);
+        long centralEnd = endPosition;
+        if (entries == ZIP64_MAGIC_SHORT || 
+            centralSize == ZIP64_MAGIC_INT || 
+            centralOffset == ZIP64_MAGIC_INT)
+        {
+            int zip64EndPosition = findZip64EndHeader(buffer, endPosition);
+            if (zip64EndPosition >= 0)
+            {
+                entries = buffer.getLong(zip64EndPosition + 32);
+                centralSize = buffer.getLong(zip64EndPosition + 40);
+                centralOffset = buffer.getLong(zip64EndPosition + 48);
+                centralEnd = zip64EndPosition;
+            }
+        }
+        
+        // There may be data prepended to the ZIP file (for example, for
+        // self-extracting archives). All offsets are relative to the
+        // start of the ZIP data. The values may have been read from the 
+        // 64 bit fields, so they are checked before computing with them.
+        if (entries < 0 || centralSize < 0 || centralOffset < 0 ||
+            centralSize > centralEnd || 
+            centralOffset > centralEnd - centralSize)
+        {
+            return false;
+        }
+        long centralStart = centralEnd - centralSize;
+        long prefix = centralStart - centralOffset;
+        if (validationTier == ValidationTier.QUICK)
+        {
+            return entries == 0 || (centralStart + 4 <= centralEnd && 
+                buffer.getInt((int)centralStart) == CENTRAL_HEADER_SIGNATURE);
+        }
+        long position = centralStart;
+        for (long i = 0; i < entries; i++)
+        {
+            if (position + CENTRAL_HEADER_SIZE > centralEnd)
+            {
+                return false;
+            }
+            int p = (int)position;
+            if (buffer.getInt(p) != CENTRAL_HEADER_SIGNATURE)
+            {
+                return false;
+            }
+            int flags = readUnsignedShort(buffer, p + 8);
+            int method = readUnsignedShort(buffer, p + 10);
+            if (method != METHOD_STORED && method != METHOD_DEFLATED)
+            {
+                return false;
+            }
+            long crc = readUnsignedInt(buffer, p + 16);
+            long compressedSize = readUnsignedInt(buffer, p + 20);
+            long uncompressedSize = readUnsignedInt(buffer, p + 24);
+            int nameLength = readUnsignedShort(buffer, p + 28);
+            int extraLength = readUnsignedShort(buffer, p + 30);
+            int commentLength = readUnsignedShort(buffer, p + 32);
+            long localOffset = readUnsignedInt(buffer, p + 42);
+            long next = position + CENTRAL_HEADER_SIZE 
+                + nameLength + extraLength + commentLength;
+            if (next > centralEnd)
+            {
+                return false;
+            }
+            if (uncompressedSize == ZIP64_MAGIC_INT || 
+                compressedSize == ZIP64_MAGIC_INT || 
+                localOffset == ZIP64_MAGIC_INT)
+            {
+                int extraPosition = p + CENTRAL_HEADER_SIZE + nameLength;
+                int zip64Position = findExtraField(
+                    buffer, extraPosition, extraLength, ZIP64_EXTRA_ID);
+                if (zip64Position < 0)
+                {
+                    return false;
+                }
+                // The ZIP64 extra field contains only the values whose
+                // regular fields contain the magic value, in this order
+                int fieldPosition = zip64Position + 4;
+                int fieldLength = 
+                    readUnsignedShort(buffer, zip64Position + 2);
+                int fieldEnd = Math.min(
+                    fieldPosition + fieldLength, extraPosition + extraLength);
+                if (uncompressedSize == ZIP64_MAGIC_INT)
+                {
+                    if (fieldPosition + 8 > fieldEnd)
+                    {
+                        return false;
+                    }
+                    uncompressedSize = buffer.getLong(fieldPosition);
+                    fieldPosition += 8;
+                }
+                if (compressedSize == ZIP64_MAGIC_INT)
+                {
+                    if (fieldPosition + 8 > fieldEnd)
+                    {
+                        return false;
+                    }
+                    compressedSize = buffer.getLong(fieldPosition);
+                    fieldPosition += 8;
+                }
+                if (localOffset == ZIP64_MAGIC_INT)
+                {
+                    if (fieldPosition + 8 > fieldEnd)
+                    {
+                        return false;
+                    }
+                    localOffset = buffer.getLong(fieldPosition);
+                }
+            }
+            if (localOffset < 0 || localOffset > centralStart - prefix)
+            {
+                return false;
+            }
+            long dataPosition = computeDataPosition(buffer, 
+                prefix + localOffset, compressedSize, centralStart);
+            if (dataPosition < 0)
+            {
+                return false;
+            }
+            if (validationTier == ValidationTier.DEEP)
+            {
+                if ((flags & FLAG_ENCRYPTED) != 0)
+                {
+                    return false;
+                }
+                if (!isValidData(buffer, (int)dataPosition, method, 
+                    compressedSize, uncompressedSize, crc))
+                {
+                    return false;
+                }
+            }
+            position = next;
+        }
+        return true;
+    }
+    
+    /**
+     * Checks whether there is a valid local file header at the given
+     * position, and the data of the entry ends before the given limit.
+     * If this is the case, then the position where the data of the 
+     * entry starts is returned. Otherwise, -1 is returned.
+     * 
+     * @param buffer The buffer
+     * @param position The position of the local file header
+     * @param compressedSize The compressed size of the entry, as stored
+     * in the central directory
+     * @param limit The position where the central directory starts
+     * @return The position of the data, or -1 if the header is not valid
+     */
+    private static long computeDataPosition(ByteBuffer buffer, 
+        long position, long compressedSize, long limit)
+    {
+        if (position < 0 || position > limit - LOCAL_HEADER_SIZE)
+        {
+            return -1;
+        }
+        int p = (int)position;
+        if (buffer.getInt(p) != LOCAL_HEADER_SIGNATURE)
+        {
+            return -1;
+        }
+        int nameLength = readUnsignedShort(buffer, p + 26);
+        int extraLength = readUnsignedShort(buffer, p + 28);
+        long dataPosition = position + LOCAL_HEADER_SIZE 
+            + nameLength + extraLength;
+        if (compressedSize < 0 || compressedSize > limit - dataPosition)
+        {
+            return -1;
+        }
+        return dataPosition;
+    }
+    
+    /**
+     * Returns whether the data of an entry, starting at the given position,
+     * can be inflated, and has the given uncompressed size and CRC-32.
+     * 
+     * @param buffer The buffer
+     * @param position The position where the data starts
+     * @param method The compression method
+     * @param compressedSize The compressed size
+     * @param uncompressedSize The uncompressed size
+     * @param expectedCrc The expected CRC-32
+     * @return Whether the data is valid
+     */
+    private static boolean isValidData(ByteBuffer buffer, int position, 
+        int method, long compressedSize, long uncompressedSize, 
+        long expectedCrc)
+    {
+        ByteBuffer data = buffer.duplicate();
+        data.position(position);
+        data.limit((int)(position + compressedSize));
+        CRC32 crc = CRC.get();
+        crc.reset();
+        if (method == METHOD_STORED)
+        {
+            if (compressedSize != uncompressedSize)
+            {
+                return false;
+            }
+            crc.update(data);
+            return crc.getValue() == expectedCrc;
+        }
+        
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        byte[] input = INPUT_BUFFER.get();
+        byte[] output = OUTPUT_BUFFER.get();
+        long totalSize = 0;
+        try
+        {
+            while (!inflater.finished())
+            {
+                if (inflater.needsInput())
+                {
+                    int length = Math.min(input.length, data.remaining());
+                    if (length == 0)
+                    {
+                        // The data ended before the inflater was finished
+                        return false;
+                    }
+                    data.get(input, 0, length);
+                    inflater.setInput(input, 0, length);
+                }
+                int length = inflater.inflate(output);
+                if (length == 0 && 
+                    (inflater.needsDictionary() || !inflater.needsInput()))
+                {
+                    return false;
+                }
+                crc.update(output, 0, length);
+                totalSize += length;
+            }
+        }
+        catch (DataFormatException e)
+        {
+            return false;
+        }
+        return totalSize == uncompressedSize && crc.getValue() == expectedCrc;
+    }
+    
+    /**
+     * Find the position of the End Of Central Directory record in the 
+     * given buffer, or return -1 if it can not be found.
+     * 
+     * @param buffer The buffer
+     * @return The position
+     */
+    private static int findEndHeader(ByteBuffer buffer)
+    {
+        int size = buffer.limit();
+        int max = size - END_HEADER_SIZE;
+        int min = Math.max(0, max - MAX_COMMENT_LENGTH);
+        for (int position = max; position >= min; position--)
+        {
+            if (buffer.getInt(position) == END_HEADER_SIGNATURE)
+            {
+                // Make sure that the comment length matches, to not
+                // accidentally find the signature inside a comment
+                int commentLength = readUnsignedShort(buffer, position + 20);
+                if (position + END_HEADER_SIZE + commentLength == size)
+                {
+                    return position;
+                }
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Find the position of the ZIP64 End Of Central Directory record,
+     * based on the locator that precedes the given End Of Central Directory
+     * record. Returns -1 if there is no (valid) ZIP64 record.
+     * 
+     * @param buffer The buffer
+     * @param endPosition The position of the End Of Central Directory record
+     * @return The position
+     */
+    private static int findZip64EndHeader(ByteBuffer buffer, int endPosition)
+    {
+        int locatorPosition = endPosition - ZIP64_LOCATOR_SIZE;
+        if (locatorPosition < 0 || 
+            buffer.getInt(locatorPosition) != ZIP64_LOCATOR_SIGNATURE)
+        {
+            return -1;
+        }
+        long zip64EndPosition = buffer.getLong(locatorPosition + 8);
+        if (zip64EndPosition < 0 || 
+            zip64EndPosition > locatorPosition - ZIP64_END_HEADER_SIZE)
+        {
+            return -1;
+        }
+        int p = (int)zip64EndPosition;
+        if (buffer.getInt(p) != ZIP64_END_HEADER_SIGNATURE)
+        {
+            return -1;
+        }
+        return p;
+    }
+    
+    /**
+     * Find the position of the extra field with the given header ID 
+     * in the given range, or return -1 if it can not be found
+     * 
+     * @param buffer The buffer
+     * @param position The start position of the extra fields
+     * @param length The total length of the extra fields
+     * @param headerId The header ID
+     * @return The position of the extra field
+     */
+    private static int findExtraField(
+        ByteBuffer buffer, int position, int length, int headerId)
+    {
+        int end = position + length;
+        int p = position;
+        while (p + 4 <= end)
+        {
+            int id = readUnsignedShort(buffer, p);
+            int size = readUnsignedShort(buffer, p + 2);
+            if (id == headerId)
+            {
+                return p;
+            }
+            p += 4 + size;
+        }
+        return -1;
+    }
+    
+    /**
+     * Read an unsigned 16 bit value from the given position
+     * 
+     * @param buffer The buffer
+     * @param position The position
+     * @return The value
+     */
+    private static int readUnsignedShort(ByteBuffer buffer, int position)
+    {
+        return buffer.getShort(position) & 0xFFFF;
+    }
+    
+    /**
+     * Read an unsigned 32 bit value from the given position
+     * 
+     * @param buffer The buffer
+     * @param position The position
+     * @return The value
+     */
+    private static long readUnsignedInt(ByteBuffer buffer, int position)
+    {
+        return buffer.getInt(position) & 0xFFFFFFFFL;
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private MappedZipScanner()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
@@ -41,10 +41,12 @@ import java.util.logging.Logger;
 
 import org.apache.commons.lang3.text.StrSubstitutor;
 import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.Parent;
 import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.eclipse.aether.util.artifact.JavaScopes;
 
 /**
  * Utility methods related to Maven models
@@ -99,9 +101,56 @@ class MavenModelUtils
         }
     }
     
+    /**
+     * Read the {@link ArtifactInfo} for the parent of the specified POM. 
+     * Returns <code>null</code> if the POM does not have a parent, or 
+     * an error occurs.
+     * 
+     * @param pom The POM
+     * @return The {@link ArtifactInfo}
+     */
+    static ArtifactInfo readParentArtifactInfo(Path pom)
+    {
+        try (Reader reader = new FileReader(pom.toFile()))
+        {
+            MavenXpp3Reader xpp3Reader = new MavenXpp3Reader();
+            Model model = xpp3Reader.read(reader);
+            Parent parent = model.getParent();
+            if (parent == null || parent.getGroupId() == null ||
+                parent.getArtifactId() == null || parent.getVersion() == null)
+            {
+                return null;
+            }
+            ArtifactInfo artifactInfo = new ArtifactInfo(
+                parent.getGroupId(), parent.getArtifactId(), 
+                parent.getVersion());
+            return artifactInfo;
+        }
+        catch (IOException e) 
+        {
+            logger.log(Level.SEVERE, e.getMessage(), e);
+            return null;
+        }
+        catch (XmlPullParserException e)
+        {
+            logger.log(Level.SEVERE, e.getMessage(), e);
+            return null;
+        }
+    }
+    
     /**
      * Read the {@link ArtifactInfo} for the dependencies of the specified 
-     * POM. Returns <code>null</code> if an error occurs.
+     * POM. Returns <code>null</code> if an error occurs.<br>
+     * <br>
+     * The returned objects will be {@link DependencyArtifactInfo} objects
+     * that contain the scope (defaulting to <code>"compile"</code>) and 
+     * the optional flag of the dependencies.<br>
+     * <br>
+     * Only the properties of the POM itself are substituted, and parent
+     * POMs are not taken into account. Dependencies that do not have a
+     * version (because it is defined in a parent POM) are skipped. The
+     * {@link EffectiveModelReader} can be used for reading the effective 
+     * dependencies.
      * 
      * @param pom The POM
      * @return The {@link ArtifactInfo} objects
@@ -114,22 +163,7 @@ class MavenModelUtils
             Model model = xpp3Reader.read(reader);
             List<Dependency> dependencies = model.getDependencies();
             List<ArtifactInfo> artifactInfos = new ArrayList<ArtifactInfo>();
-            
-            Properties properties = model.getProperties();
-            Map<String, String> substitutions = 
-                new LinkedHashMap<String, String>();
-            for (Entry<Object, Object> entry : properties.entrySet())
-            {
-                Object key = entry.getKey();
-                Object value = entry.getValue();
-                if ((key instanceof String) && (value instanceof String))
-                {
-                    substitutions.put(
-                        String.valueOf(key), String.valueOf(value));
-                }
-            }
-            StrSubstitutor strSubstitutor = new StrSubstitutor(substitutions);
-            
+            StrSubstitutor strSubstitutor = createSubstitutor(model);
             for (Dependency dependency : dependencies)
             {
                 String groupId = dependency.getGroupId();
@@ -139,9 +173,25 @@ class MavenModelUtils
                 groupId = strSubstitutor.replace(groupId);
                 artifactId = strSubstitutor.replace(artifactId);
                 version = strSubstitutor.replace(version);
+                if (version == null)
+                {
+                    // The version is defined in the dependency management
+                    // of a parent POM, which is not read here
+                    logger.warning("No version for dependency " 
+                        + groupId + ":" + artifactId + " in " + pom);
+                    continue;
+                }
                 
-                ArtifactInfo artifactInfo = new ArtifactInfo(
-                    groupId, artifactId, version);
+                String scope = dependency.getScope();
+                if (scope == null)
+                {
+                    scope = JavaScopes.COMPILE;
+                }
+                scope = strSubstitutor.replace(scope);
+                
+                ArtifactInfo artifactInfo = new DependencyArtifactInfo(
+                    groupId, artifactId, version, 
+                    scope, dependency.isOptional());
                 artifactInfos.add(artifactInfo);
             }
             return artifactInfos;
@@ -158,6 +208,125 @@ class MavenModelUtils
         }
     }
     
+    /**
+     * Read the {@link ArtifactInfo} objects for the BOMs that are imported
+     * in the dependency management of the specified POM, which are the
+     * managed dependencies with the scope <code>"import"</code>.<br>
+     * <br>
+     * Only the properties of the POM itself are substituted. Returns 
+     * <code>null</code> if an error occurs, or if the coordinates of 
+     * one of the BOMs can not be determined, because they refer to 
+     * properties that are defined elsewhere.
+     * 
+     * @param pom The POM
+     * @return The {@link ArtifactInfo} objects
+     */
+    static List<ArtifactInfo> readImportedArtifactInfos(Path pom)
+    {
+        try (Reader reader = new FileReader(pom.toFile()))
+        {
+            MavenXpp3Reader xpp3Reader = new MavenXpp3Reader();
+            Model model = xpp3Reader.read(reader);
+            List<ArtifactInfo> artifactInfos = new ArrayList<ArtifactInfo>();
+            DependencyManagement dependencyManagement = 
+                model.getDependencyManagement();
+            if (dependencyManagement == null)
+            {
+                return artifactInfos;
+            }
+            StrSubstitutor strSubstitutor = createSubstitutor(model);
+            for (Dependency dependency : 
+                dependencyManagement.getDependencies())
+            {
+                String scope = strSubstitutor.replace(dependency.getScope());
+                if (!"import".equals(scope))
+                {
+                    continue;
+                }
+                String groupId = 
+                    strSubstitutor.replace(dependency.getGroupId());
+                String artifactId = 
+                    strSubstitutor.replace(dependency.getArtifactId());
+                String version = 
+                    strSubstitutor.replace(dependency.getVersion());
+                if (!isResolved(groupId) || !isResolved(artifactId) || 
+                    !isResolved(version))
+                {
+                    return null;
+                }
+                artifactInfos.add(
+                    new ArtifactInfo(groupId, artifactId, version));
+            }
+            return artifactInfos;
+        }
+        catch (IOException e) 
+        {
+            logger.log(Level.SEVERE, e.getMessage(), e);
+            return null;
+        }
+        catch (XmlPullParserException e)
+        {
+            logger.log(Level.SEVERE, e.getMessage(), e);
+            return null;
+        }
+    }
+    
+    /**
+     * Returns whether the given value is not <code>null</code>, and does
+     * not contain any unresolved property references
+     * 
+     * @param value The value
+     * @return Whether the value is resolved
+     */
+    private static boolean isResolved(String value)
+    {
+        return value != null && !value.contains("${");
+    }
+    
+    /**
+     * Create a substitutor for the properties of the given model. This
+     * includes the properties that are defined in the model, and the
+     * <code>project.groupId</code> and <code>project.version</code>.
+     * 
+     * @param model The model
+     * @return The substitutor
+     */
+    private static StrSubstitutor createSubstitutor(Model model)
+    {
+        Map<String, String> substitutions = 
+            new LinkedHashMap<String, String>();
+        Parent parent = model.getParent();
+        String groupId = model.getGroupId();
+        if (groupId == null && parent != null)
+        {
+            groupId = parent.getGroupId();
+        }
+        String version = model.getVersion();
+        if (version == null && parent != null)
+        {
+            version = parent.getVersion();
+        }
+        if (groupId != null)
+        {
+            substitutions.put("project.groupId", groupId);
+        }
+        if (version != null)
+        {
+            substitutions.put("project.version", version);
+        }
+        Properties properties = model.getProperties();
+        for (Entry<Object, Object> entry : properties.entrySet())
+        {
+            Object key = entry.getKey();
+            Object value = entry.getValue();
+            if ((key instanceof String) && (value instanceof String))
+            {
+                substitutions.put(
+                    String.valueOf(key), String.valueOf(value));
+            }
+        }
+        return new StrSubstitutor(substitutions);
+    }
     
     /**
      * Private constructor to prevent instantiation
@@ -0,0 +1,354 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.lang3.text.StrSubstitutor;
+import org.apache.maven.settings.Activation;
+import org.apache.maven.settings.Mirror;
+import org.apache.maven.settings.Profile;
+import org.apache.maven.settings.Repository;
+import org.apache.maven.settings.Server;
+import org.apache.maven.settings.Settings;
+import org.apache.maven.settings.io.xpp3.SettingsXpp3Reader;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.eclipse.aether.repository.Authentication;
+import org.eclipse.aether.repository.AuthenticationSelector;
+import org.eclipse.aether.repository.MirrorSelector;
+import org.eclipse.aether.repository.Proxy;
+import org.eclipse.aether.repository.ProxySelector;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.repository.RepositoryPolicy;
+import org.eclipse.aether.util.repository.AuthenticationBuilder;
+import org.eclipse.aether.util.repository.DefaultAuthenticationSelector;
+import org.eclipse.aether.util.repository.DefaultMirrorSelector;
+import org.eclipse.aether.util.repository.DefaultProxySelector;
+
+/**
+ * Utility methods related to Maven <code>settings.xml</code> files
+ */
+class MavenSettingsUtils
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger = 
+        Logger.getLogger(MavenSettingsUtils.class.getName());
+    
+    /**
+     * Returns the path of the default settings file, which is
+     * <code>.m2/settings.xml</code> in the user home directory
+     * 
+     * @return The path
+     */
+    static Path getDefaultSettingsFile()
+    {
+        return Paths.get(System.getProperty("user.home"), ".m2/settings.xml");
+    }
+    
+    /**
+     * Read the Maven settings from the given file.<br>
+     * <br>
+     * Expressions like <code>${user.home}</code> or 
+     * <code>${env.HOME}</code> in the file will be replaced with the 
+     * values of the respective system properties or environment 
+     * variables.<br>
+     * <br>
+     * If the given path is <code>null</code> or does not exist, or the
+     * file can not be read, then default (empty) settings are returned.
+     * 
+     * @param settingsFile The settings file
+     * @return The settings
+     */
+    static Settings readSettings(Path settingsFile)
+    {
+        if (settingsFile == null || !Files.exists(settingsFile))
+        {
+            return new Settings();
+        }
+        try
+        {
+            String content = new String(
+                Files.readAllBytes(settingsFile), StandardCharsets.UTF_8);
+            Map<String, String> substitutions = 
+                new LinkedHashMap<String, String>();
+            for (Entry<String, String> entry : System.getenv().entrySet())
+            {
+                substitutions.put("env." + entry.getKey(), entry.getValue());
+            }
+            for (String name : System.getProperties().stringPropertyNames())
+            {
+                substitutions.put(name, System.getProperty(name));
+            }
+            StrSubstitutor strSubstitutor = new StrSubstitutor(substitutions);
+            content = strSubstitutor.replace(content);
+            
+            SettingsXpp3Reader xpp3Reader = new SettingsXpp3Reader();
+            return xpp3Reader.read(new StringReader(content));
+        }
+        catch (IOException e) 
+        {
+            logger.log(Level.SEVERE, e.getMessage(), e);
+            return new Settings();
+        }
+        catch (XmlPullParserException e)
+        {
+            logger.log(Level.SEVERE, e.getMessage(), e);
+            return new Settings();
+        }
+    }
+    
+    /**
+     * Returns the path of the local repository from the given settings,
+     * or the {@link DependencyUtils#getDefaultLocalRepositoryPath() 
+     * default local repository path} if the settings do not define a 
+     * local repository.
+     * 
+     * @param settings The settings
+     * @return The local repository path
+     */
+    static Path getLocalRepositoryPath(Settings settings)
+    {
+        String localRepository = settings.getLocalRepository();
+        if (localRepository == null || localRepository.trim().isEmpty())
+        {
+            return DependencyUtils.getDefaultLocalRepositoryPath();
+        }
+        return Paths.get(localRepository.trim());
+    }
+    
+    /**
+     * Create the list of remote repositories from the given settings.<br>
+     * <br>
+     * The list will contain the repositories of all active profiles, 
+     * followed by Maven Central, unless it was overridden by a repository
+     * with the ID <code>"central"</code>. The mirrors, authentication and
+     * proxies from the given selectors will already be applied to the
+     * resulting repositories.
+     * 
+     * @param settings The settings
+     * @param mirrorSelector The MirrorSelector
+     * @param authenticationSelector The AuthenticationSelector
+     * @param proxySelector The ProxySelector
+     * @return The repositories
+     */
+    static List<RemoteRepository> createRepositories(Settings settings,
+        MirrorSelector mirrorSelector, 
+        AuthenticationSelector authenticationSelector,
+        ProxySelector proxySelector)
+    {
+        Map<String, RemoteRepository> repositories = 
+            new LinkedHashMap<String, RemoteRepository>();
+        for (Profile profile : settings.getProfiles())
+        {
+            if (!isActive(settings, profile))
+            {
+                continue;
+            }
+            for (Repository repository : profile.getRepositories())
+            {
+                repositories.put(repository.getId(), 
+                    createRemoteRepository(repository));
+            }
+        }
+        if (!repositories.containsKey("central"))
+        {
+            repositories.put("central", 
+                DependencyUtils.createCentralRepository());
+        }
+        
+        // Replace the repositories with their mirrors. If multiple 
+        // repositories are mirrored by the same mirror, then the
+        // mirror is only contained once
+        Map<String, RemoteRepository> result = 
+            new LinkedHashMap<String, RemoteRepository>();
+        for (RemoteRepository repository : repositories.values())
+        {
+            RemoteRepository mirror = mirrorSelector.getMirror(repository);
+            if (mirror != null)
+            {
+                repository = mirror;
+            }
+            if (result.containsKey(repository.getId()))
+            {
+                continue;
+            }
+            RemoteRepository.Builder builder = 
+                new RemoteRepository.Builder(repository);
+            builder.setAuthentication(
+                authenticationSelector.getAuthentication(repository));
+            builder.setProxy(proxySelector.getProxy(repository));
+            result.put(repository.getId(), builder.build());
+        }
+        return new ArrayList<RemoteRepository>(result.values());
+    }
+    
+    /**
+     * Returns whether the given profile is active in the given settings
+     * 
+     * @param settings The settings
+     * @param profile The profile
+     * @return Whether the profile is active
+     */
+    private static boolean isActive(Settings settings, Profile profile)
+    {
+        if (settings.getActiveProfiles().contains(profile.getId()))
+        {
+            return true;
+        }
+        Activation activation = profile.getActivation();
+        return activation != null && activation.isActiveByDefault();
+    }
+    
+    /**
+     * Create a RemoteRepository from the given settings repository
+     * 
+     * @param repository The settings repository
+     * @return The RemoteRepository
+     */
+    private static RemoteRepository createRemoteRepository(
+        Repository repository)
+    {
+        RemoteRepository.Builder builder = new RemoteRepository.Builder(
+            repository.getId(), repository.getLayout(), repository.getUrl());
+        builder.setReleasePolicy(
+            createRepositoryPolicy(repository.getReleases()));
+        builder.setSnapshotPolicy(
+            createRepositoryPolicy(repository.getSnapshots()));
+        return builder.build();
+    }
+    
+    /**
+     * Create a RepositoryPolicy from the given settings repository policy
+     * 
+     * @param policy The settings repository policy. May be 
+     * <code>null</code>.
+     * @return The RepositoryPolicy
+     */
+    private static RepositoryPolicy createRepositoryPolicy(
+        org.apache.maven.settings.RepositoryPolicy policy)
+    {
+        if (policy == null)
+        {
+            return new RepositoryPolicy();
+        }
+        return new RepositoryPolicy(policy.isEnabled(), 
+            policy.getUpdatePolicy(), policy.getChecksumPolicy());
+    }
+    
+    /**
+     * Create the MirrorSelector for the mirrors that are defined in the
+     * given settings
+     * 
+     * @param settings The settings
+     * @return The MirrorSelector
+     */
+    static MirrorSelector createMirrorSelector(Settings settings)
+    {
+        DefaultMirrorSelector mirrorSelector = new DefaultMirrorSelector();
+        for (Mirror mirror : settings.getMirrors())
+        {
+            mirrorSelector.add(mirror.getId(), mirror.getUrl(), 
+                mirror.getLayout(), false, mirror.getMirrorOf(), 
+                mirror.getMirrorOfLayouts());
+        }
+        return mirrorSelector;
+    }
+    
+    /**
+     * Create the AuthenticationSelector for the servers that are defined 
+     * in the given settings
+     * 
+     * @param settings The settings
+     * @return The AuthenticationSelector
+     */
+    static AuthenticationSelector createAuthenticationSelector(
+        Settings settings)
+    {
+        DefaultAuthenticationSelector authenticationSelector = 
+            new DefaultAuthenticationSelector();
+        for (Server server : settings.getServers())
+        {
+            Authentication authentication = new AuthenticationBuilder()
+                .addUsername(server.getUsername())
+                .addPassword(server.getPassword())
+                .addPrivateKey(server.getPrivateKey(), server.getPassphrase())
+                .build();
+            authenticationSelector.add(server.getId(), authentication);
+        }
+        return authenticationSelector;
+    }
+    
+    /**
+     * Create the ProxySelector for the active proxies that are defined 
+     * in the given settings
+     * 
+     * @param settings The settings
+     * @return The ProxySelector
+     */
+    static ProxySelector createProxySelector(Settings settings)
+    {
+        DefaultProxySelector proxySelector = new DefaultProxySelector();
+        for (org.apache.maven.settings.Proxy proxy : settings.getProxies())
+        {
+            if (!proxy.isActive())
+            {
+                continue;
+            }
+            Authentication authentication = new AuthenticationBuilder()
+                .addUsername(proxy.getUsername())
+                .addPassword(proxy.getPassword())
+                .build();
+            proxySelector.add(new Proxy(proxy.getProtocol(), 
+                proxy.getHost(), proxy.getPort(), authentication), 
+                proxy.getNonProxyHosts());
+        }
+        return proxySelector;
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private MavenSettingsUtils()
+    {
+        // Private constructor to prevent instantiation
+    }
+    
+}
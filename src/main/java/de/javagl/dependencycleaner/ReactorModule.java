@@ -0,0 +1,105 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * POJO summarizing a module of a multi-module project
+ */
+class ReactorModule
+{
+    /**
+     * The path of the POM of the module
+     */
+    private final Path pomPath;
+    
+    /**
+     * The {@link ArtifactInfo} of the module
+     */
+    private final ArtifactInfo artifactInfo;
+    
+    /**
+     * The {@link ArtifactInfo} objects of the dependencies of the module
+     */
+    private final List<ArtifactInfo> dependencyArtifactInfos;
+    
+    /**
+     * Create a new instance
+     * 
+     * @param pomPath The path of the POM
+     * @param artifactInfo The {@link ArtifactInfo} of the module
+     * @param dependencyArtifactInfos The {@link ArtifactInfo} objects of 
+     * the dependencies of the module
+     */
+    ReactorModule(Path pomPath, ArtifactInfo artifactInfo, 
+        List<ArtifactInfo> dependencyArtifactInfos)
+    {
+        this.pomPath = pomPath;
+        this.artifactInfo = artifactInfo;
+        this.dependencyArtifactInfos = dependencyArtifactInfos;
+    }
+    
+    /**
+     * Returns the path of the POM of the module
+     * 
+     * @return The path
+     */
+    Path getPomPath()
+    {
+        return pomPath;
+    }
+    
+    /**
+     * Returns the {@link ArtifactInfo} of the module
+     * 
+     * @return The {@link ArtifactInfo}
+     */
+    ArtifactInfo getArtifactInfo()
+    {
+        return artifactInfo;
+    }
+    
+    /**
+     * Returns an unmodifiable view on the {@link ArtifactInfo} objects of 
+     * the dependencies of the module
+     * 
+     * @return The {@link ArtifactInfo} objects
+     */
+    List<ArtifactInfo> getDependencyArtifactInfos()
+    {
+        return Collections.unmodifiableList(dependencyArtifactInfos);
+    }
+    
+    @Override
+    public String toString()
+    {
+        return String.valueOf(artifactInfo);
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+
+import org.apache.maven.model.Model;
+
+/**
+ * Utility methods for the modules of multi-module projects
+ */
+class ReactorModules
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger = 
+        Logger.getLogger(ReactorModules.class.getName());
+    
+    /**
+     * The name of the POM files
+     */
+    private static final String POM_FILE_NAME = "pom.xml";
+    
+    /**
+     * Find all <code>pom.xml</code> files in the given directory and 
+     * its subdirectories. Directories whose name starts with a 
+     * <code>"."</code>, and build output directories (called 
+     * <code>"target"</code>) are skipped.
+     * 
+     * @param root The root directory
+     * @return The paths of the POM files, in lexicographical order
+     * @throws DependencyCleanerException If the directory can not be read
+     */
+    static List<Path> findPomFiles(Path root)
+    {
+        List<Path> pomFiles = new ArrayList<Path>();
+        try
+        {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>()
+            {
+                @Override
+                public FileVisitResult preVisitDirectory(
+                    Path directory, BasicFileAttributes attributes)
+                {
+                    Path fileName = directory.getFileName();
+                    if (!directory.equals(root) && fileName != null)
+                    {
+                        String name = fileName.toString();
+                        if (name.startsWith(".") || name.equals("target"))
+                        {
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+                
+                @Override
+                public FileVisitResult visitFile(
+                    Path file, BasicFileAttributes attributes)
+                {
+                    if (file.getFileName().toString().equals(POM_FILE_NAME))
+                    {
+                        pomFiles.add(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+                
+                @Override
+                public FileVisitResult visitFileFailed(
+                    Path file, IOException e)
+                {
+                    logger.warning("Could not read " + file 
+                        + ": " + e.getMessage());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        catch (IOException e)
+        {
+            throw new DependencyCleanerException(
+                "Could not read " + root, e);
+        }
+        pomFiles.sort(null);
+        return pomFiles;
+    }
+    
+    /**
+     * Read the {@link ReactorModule} objects for the given POM files, 
+     * from their effective models, using a pool of threads. The parent
+     * POMs that are shared by the modules will only be parsed once.
+     * POMs that can not be read are skipped.
+     * 
+     * @param pomFiles The POM files
+     * @param resolutionOptions The {@link ResolutionOptions} for 
+     * resolving parent POMs and BOMs
+     * @return The {@link ReactorModule} objects, in the order of the
+     * given POM files
+     */
+    static List<ReactorModule> readModules(Collection<? extends Path> pomFiles,
+        ResolutionOptions resolutionOptions)
+    {
+        ResolutionEngine resolutionEngine = 
+            new ResolutionEngine(resolutionOptions);
+        try
+        {
+            EffectiveModelReader effectiveModelReader = 
+                new EffectiveModelReader(resolutionEngine);
+            return readModules(effectiveModelReader, pomFiles, 
+                resolutionOptions.getParallelism());
+        }
+        finally
+        {
+            resolutionEngine.shutdown();
+        }
+    }
+    
+    /**
+     * Read the {@link ReactorModule} objects for the given POM files, 
+     * from their effective models, using a pool of threads. POMs that 
+     * can not be read are skipped.
+     * 
+     * @param effectiveModelReader The {@link EffectiveModelReader}
+     * @param pomFiles The POM files
+     * @param parallelism The number of threads
+     * @return The {@link ReactorModule} objects, in the order of the
+     * given POM files
+     */
+    static List<ReactorModule> readModules(
+        EffectiveModelReader effectiveModelReader, 
+        Collection<? extends Path> pomFiles, int parallelism)
+    {
+        ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+        try
+        {
+            List<CompletableFuture<ReactorModule>> futures = 
+                new ArrayList<CompletableFuture<ReactorModule>>();
+            for (Path pomFile : pomFiles)
+            {
+                futures.add(CompletableFuture.supplyAsync(
+                    () -> readModule(effectiveModelReader, pomFile), 
+                    forkJoinPool));
+            }
+            List<ReactorModule> modules = new ArrayList<ReactorModule>();
+            for (CompletableFuture<ReactorModule> future : futures)
+            {
+                ReactorModule module = ValidationEngine.await(future);
+                if (module != null)
+                {
+                    modules.add(module);
+                }
+            }
+            return modules;
+        }
+        finally
+        {
+            forkJoinPool.shutdown();
+        }
+    }
+    
+    /**
+     * Read the {@link ReactorModule} for the given POM file, from its
+     * effective model. If the effective model can not be built, then 
+     * the POM is read with the {@link MavenModelUtils}. Returns 
+     * <code>null</code> if the POM can not be read at all.
+     * 
+     * @param effectiveModelReader The {@link EffectiveModelReader}
+     * @param pomFile The POM file
+     * @return The {@link ReactorModule}
+     */
+    static ReactorModule readModule(
+        EffectiveModelReader effectiveModelReader, Path pomFile)
+    {
+        ArtifactInfo artifactInfo = null;
+        List<ArtifactInfo> dependencyArtifactInfos = null;
+        try
+        {
+            Model model = effectiveModelReader.readEffectiveModel(pomFile);
+            artifactInfo = EffectiveModelReader.createArtifactInfo(model);
+            dependencyArtifactInfos = 
+                EffectiveModelReader.createDependencyArtifactInfos(model);
+        }
+        catch (DependencyCleanerException e)
+        {
+            logger.warning(e.getMessage() + ": " + e.getCause().getMessage());
+            artifactInfo = MavenModelUtils.readArtifactInfo(pomFile);
+            dependencyArtifactInfos = 
+                MavenModelUtils.readDependencyArtifactInfos(pomFile);
+        }
+        if (artifactInfo == null || dependencyArtifactInfos == null)
+        {
+            logger.warning("Skipping module " + pomFile);
+            return null;
+        }
+        return new ReactorModule(
+            pomFile, artifactInfo, dependencyArtifactInfos);
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private ReactorModules()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
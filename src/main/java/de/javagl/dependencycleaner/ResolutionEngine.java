@@ -0,0 +1,908 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import org.apache.maven.settings.Settings;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.RepositorySystem;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.Artifact;
+import org.eclipse.aether.artifact.ArtifactType;
+import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.artifact.DefaultArtifactType;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.CollectResult;
+import org.eclipse.aether.collection.DependencyCollectionException;
+import org.eclipse.aether.graph.DefaultDependencyNode;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.graph.DependencyFilter;
+import org.eclipse.aether.graph.DependencyNode;
+import org.eclipse.aether.graph.Exclusion;
+import org.eclipse.aether.repository.LocalRepositoryManager;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.resolution.ArtifactRequest;
+import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
+import org.eclipse.aether.resolution.DependencyRequest;
+import org.eclipse.aether.resolution.DependencyResolutionException;
+import org.eclipse.aether.resolution.DependencyResult;
+import org.eclipse.aether.util.artifact.JavaScopes;
+import org.eclipse.aether.util.filter.DependencyFilterUtils;
+import org.eclipse.aether.util.filter.PatternExclusionsDependencyFilter;
+import org.eclipse.aether.util.filter.ScopeDependencyFilter;
+
+/**
+ * A class for resolving the dependencies of artifacts.<br>
+ * <br>
+ * An instance of this class holds a RepositorySystem and a 
+ * RepositorySystemSession that are re-used for all artifacts that 
+ * are resolved with this instance. The session contains a cache that 
+ * is shared between all resolution requests, so that the artifact 
+ * descriptors (POMs) and version information of artifacts that are 
+ * part of the dependency graph of multiple artifacts are only read once.<br>
+ * <br>
+ * When the {@link ResolutionOptions#isOffline() offline} flag is set,
+ * then the session is in offline mode, and all artifacts are resolved 
+ * from the local repository. Artifacts that are not available there 
+ * will not cause the resolution to fail, but only have a file that 
+ * does not exist.<br>
+ * <br>
+ * When the {@link ResolutionOptions#isCollectOnly() collect-only} flag
+ * is set, then the dependency graph is only collected, in offline mode,
+ * and all artifacts are mapped to the files that they are expected at 
+ * in the local repository.<br>
+ * <br>
+ * The dependencies are filtered according to the 
+ * {@link ResolutionOptions#getScopes() scopes}, the 
+ * {@link ResolutionOptions#isIncludeOptional() optional flag} and the
+ * {@link ResolutionOptions#getExcludedGroupIdPatterns() excluded group 
+ * IDs}. Dependencies that are not accepted by the filter are removed 
+ * from the resulting graph, together with all their dependencies, and 
+ * are not downloaded.<br>
+ * <br>
+ * The RepositorySystem and the session are only created when the first
+ * artifact is resolved, so that no resolution infrastructure has to be 
+ * set up when all dependency trees can be taken from a 
+ * {@link GraphCache}.<br>
+ * <br>
+ * Artifacts may be {@link #submit(ArtifactInfo) submitted} for being 
+ * resolved concurrently, using a pool of worker threads. Instances of 
+ * this class should be {@link #shutdown() shut down} when they are no 
+ * longer needed.
+ */
+class ResolutionEngine
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger = 
+        Logger.getLogger(ResolutionEngine.class.getName());
+    
+    /**
+     * The Maven settings
+     */
+    private final Settings settings;
+    
+    /**
+     * The path of the local repository
+     */
+    private final Path localRepositoryPath;
+    
+    /**
+     * Whether the session should be offline
+     */
+    private final boolean offline;
+    
+    /**
+     * Whether the dependency graph should only be collected
+     */
+    private final boolean collectOnly;
+    
+    /**
+     * The number of threads for downloading artifacts
+     */
+    private final int downloadThreads;
+    
+    /**
+     * The filter for the dependencies. This may be <code>null</code>
+     * if all dependencies are accepted.
+     */
+    private final DependencyFilter dependencyFilter;
+    
+    /**
+     * A string describing the {@link #dependencyFilter}
+     */
+    private final String dependencyFilterDescription;
+    
+    /**
+     * Whether the {@link #system}, {@link #session} and 
+     * {@link #repositories} have been initialized
+     */
+    private volatile boolean initialized;
+    
+    /**
+     * The RepositorySystem
+     */
+    private RepositorySystem system;
+    
+    /**
+     * The RepositorySystemSession
+     */
+    private RepositorySystemSession session;
+    
+    /**
+     * The remote repositories
+     */
+    private List<RemoteRepository> repositories;
+    
+    /**
+     * The executor service that performs the resolution of submitted
+     * artifacts
+     */
+    private final ExecutorService executorService;
+    
+    /**
+     * Creates a new instance with the given options.<br>
+     * <br>
+     * The local repository, the remote repositories, mirrors, server 
+     * authentication and proxies will be taken from the 
+     * {@link ResolutionOptions#getSettingsFile() settings file}. If 
+     * there is no settings file, then the artifacts will be resolved 
+     * from Maven Central into the default local repository.
+     * 
+     * @param resolutionOptions The {@link ResolutionOptions}
+     */
+    ResolutionEngine(ResolutionOptions resolutionOptions)
+    {
+        this.executorService = Executors.newFixedThreadPool(
+            resolutionOptions.getParallelism(), 
+            createThreadFactory());
+        
+        this.settings = MavenSettingsUtils.readSettings(
+            resolutionOptions.getSettingsFile());
+        this.localRepositoryPath = 
+            MavenSettingsUtils.getLocalRepositoryPath(settings);
+        this.collectOnly = resolutionOptions.isCollectOnly();
+        this.offline = resolutionOptions.isOffline() 
+            || resolutionOptions.isCollectOnly() || settings.isOffline();
+        this.downloadThreads = resolutionOptions.getDownloadThreads();
+        this.dependencyFilter = createDependencyFilter(resolutionOptions);
+        this.dependencyFilterDescription = 
+            createDependencyFilterDescription(resolutionOptions);
+    }
+    
+    /**
+     * Create the filter for the dependencies from the given options. 
+     * Returns <code>null</code> if all dependencies are accepted.
+     * 
+     * @param resolutionOptions The {@link ResolutionOptions}
+     * @return The filter
+     */
+    private static DependencyFilter createDependencyFilter(
+        ResolutionOptions resolutionOptions)
+    {
+        List<DependencyFilter> filters = new ArrayList<DependencyFilter>();
+        Set<String> scopes = resolutionOptions.getScopes();
+        List<String> allScopes = Arrays.asList(
+            JavaScopes.COMPILE, JavaScopes.PROVIDED, JavaScopes.RUNTIME,
+            JavaScopes.TEST, JavaScopes.SYSTEM);
+        if (!scopes.containsAll(allScopes))
+        {
+            filters.add(new ScopeDependencyFilter(
+                scopes, Collections.<String>emptySet()));
+        }
+        if (!resolutionOptions.isIncludeOptional())
+        {
+            filters.add((node, parents) -> 
+                !node.getDependency().isOptional());
+        }
+        List<String> patterns = 
+            resolutionOptions.getExcludedGroupIdPatterns();
+        if (!patterns.isEmpty())
+        {
+            filters.add(new PatternExclusionsDependencyFilter(patterns));
+        }
+        if (filters.isEmpty())
+        {
+            return null;
+        }
+        return DependencyFilterUtils.andFilter(filters);
+    }
+    
+    /**
+     * Create a string that describes the filter for the dependencies 
+     * that is created from the given options
+     * 
+     * @param resolutionOptions The {@link ResolutionOptions}
+     * @return The description
+     */
+    private static String createDependencyFilterDescription(
+        ResolutionOptions resolutionOptions)
+    {
+        return "scopes=" + new TreeSet<String>(resolutionOptions.getScopes())
+            + ",optional=" + resolutionOptions.isIncludeOptional()
+            + ",excluded=" + resolutionOptions.getExcludedGroupIdPatterns();
+    }
+    
+    /**
+     * Make sure that the {@link #system}, {@link #session} and 
+     * {@link #repositories} have been initialized
+     */
+    private void ensureInitialized()
+    {
+        if (initialized)
+        {
+            return;
+        }
+        synchronized (this)
+        {
+            if (!initialized)
+            {
+                initialize();
+                initialized = true;
+            }
+        }
+    }
+    
+    /**
+     * Initialize the {@link #system}, {@link #session} and 
+     * {@link #repositories}
+     */
+    private void initialize()
+    {
+        this.system = DependencyUtils.newRepositorySystem();
+        DefaultRepositorySystemSession defaultSession = 
+            DependencyUtils.newLocalRepositorySystemSession(
+                system, localRepositoryPath);
+        defaultSession.setOffline(offline);
+        defaultSession.setMirrorSelector(
+            MavenSettingsUtils.createMirrorSelector(settings));
+        defaultSession.setAuthenticationSelector(
+            MavenSettingsUtils.createAuthenticationSelector(settings));
+        defaultSession.setProxySelector(
+            MavenSettingsUtils.createProxySelector(settings));
+        defaultSession.setConfigProperty(
+            "aether.connector.basic.threads", downloadThreads);
+        defaultSession.setReadOnly();
+        this.session = defaultSession;
+        this.repositories = MavenSettingsUtils.createRepositories(settings,
+            session.getMirrorSelector(), 
+            session.getAuthenticationSelector(),
+            session.getProxySelector());
+    }
+    
+    /**
+     * Create the thread factory for the resolution threads. The threads
+     * will be daemon threads, so that they do not prevent the application
+     * from exiting.
+     * 
+     * @return The thread factory
+     */
+    private static ThreadFactory createThreadFactory()
+    {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> 
+        {
+            Thread thread = new Thread(runnable, 
+                "ResolutionEngine-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    /**
+     * Submit the given artifact for being resolved. The returned future
+     * will be completed exceptionally with a 
+     * {@link DependencyCleanerException} if the dependencies could not
+     * be resolved.
+     * 
+     * @param artifactInfo The {@link ArtifactInfo}
+     * @return The future that will receive the DependencyResult
+     */
+    CompletableFuture<DependencyResult> submit(ArtifactInfo artifactInfo)
+    {
+        return CompletableFuture.supplyAsync(
+            () -> resolveDependencies(artifactInfo), executorService);
+    }
+    
+    /**
+     * Submit the given artifact for being resolved, without its 
+     * dependencies. The returned future will be completed exceptionally 
+     * with a {@link DependencyCleanerException} if the artifact could 
+     * not be resolved.
+     * 
+     * @param artifact The artifact
+     * @return The future that will receive the path of the artifact
+     * in the local repository
+     */
+    CompletableFuture<Path> submitArtifact(Artifact artifact)
+    {
+        return CompletableFuture.supplyAsync(
+            () -> resolveArtifact(artifact), executorService);
+    }
+    
+    /**
+     * Resolve the given artifact, without its dependencies. If the 
+     * artifact is not available in the local repository, then it will
+     * be downloaded (unless the resolution is offline).
+     * 
+     * @param artifact The artifact
+     * @return The path of the artifact in the local repository
+     * @throws DependencyCleanerException If the artifact could not be 
+     * resolved
+     */
+    Path resolveArtifact(Artifact artifact)
+    {
+        ensureInitialized();
+        ArtifactRequest artifactRequest = 
+            new ArtifactRequest(artifact, repositories, null);
+        try
+        {
+            ArtifactResult artifactResult = 
+                system.resolveArtifact(session, artifactRequest);
+            return artifactResult.getArtifact().getFile().toPath();
+        }
+        catch (ArtifactResolutionException e)
+        {
+            throw new DependencyCleanerException(e);
+        }
+    }
+    
+    /**
+     * Returns the dependencies of the specified artifact
+     * 
+     * @param artifactInfo The {@link ArtifactInfo}
+     * @return The DependencyResult
+     * @throws DependencyCleanerException If the dependencies could not
+     * be resolved
+     */
+    DependencyResult resolveDependencies(ArtifactInfo artifactInfo) 
+    {
+        ensureInitialized();
+        Dependency dependency = createDependency(artifactInfo);
+        CollectRequest collectRequest = 
+            new CollectRequest(dependency, repositories);
+        DependencyResult dependencyResult = 
+            resolveDependencies(collectRequest);
+        return dependencyResult;
+    }
+    
+    /**
+     * Returns the dependencies of the specified artifacts, resolved with
+     * a single request.<br>
+     * <br>
+     * The root node of the resulting graph will be the node for the given
+     * root artifact, or a node without an artifact if the given root 
+     * artifact is <code>null</code>. The children of the root node will
+     * be the nodes for the given dependencies. 
+     * 
+     * @param rootArtifactInfo The optional {@link ArtifactInfo} of the 
+     * root artifact
+     * @param artifactInfos The {@link ArtifactInfo} objects of the 
+     * dependencies
+     * @return The DependencyResult
+     * @throws DependencyCleanerException If the dependencies could not
+     * be resolved
+     */
+    DependencyResult resolveDependencies(ArtifactInfo rootArtifactInfo,
+        Iterable<? extends ArtifactInfo> artifactInfos) 
+    {
+        ensureInitialized();
+        CollectRequest collectRequest = new CollectRequest();
+        if (rootArtifactInfo != null)
+        {
+            collectRequest.setRootArtifact(
+                DependencyUtils.createArtifact(rootArtifactInfo));
+        }
+        for (ArtifactInfo artifactInfo : artifactInfos)
+        {
+            collectRequest.addDependency(createDependency(artifactInfo));
+        }
+        collectRequest.setRepositories(repositories);
+        return resolveDependencies(collectRequest);
+    }
+    
+    /**
+     * Create the dependency for the given {@link ArtifactInfo}. If it is
+     * a {@link DependencyArtifactInfo}, then its scope, optional flag, 
+     * type, classifier and exclusions will be used, where the type is 
+     * mapped to the extension and default classifier with the artifact 
+     * type registry of the session. Otherwise, the dependency will be 
+     * a JAR with the compile scope.
+     * 
+     * @param artifactInfo The {@link ArtifactInfo}
+     * @return The dependency
+     */
+    private Dependency createDependency(ArtifactInfo artifactInfo)
+    {
+        if (!(artifactInfo instanceof DependencyArtifactInfo))
+        {
+            Artifact artifact = DependencyUtils.createArtifact(artifactInfo);
+            return new Dependency(artifact, JavaScopes.COMPILE);
+        }
+        ensureInitialized();
+        DependencyArtifactInfo dependencyArtifactInfo = 
+            (DependencyArtifactInfo)artifactInfo;
+        String type = dependencyArtifactInfo.getType();
+        ArtifactType artifactType = 
+            session.getArtifactTypeRegistry().get(type);
+        if (artifactType == null)
+        {
+            artifactType = new DefaultArtifactType(type);
+        }
+        String classifier = dependencyArtifactInfo.getClassifier();
+        if (classifier.isEmpty())
+        {
+            classifier = artifactType.getClassifier();
+        }
+        Artifact artifact = new DefaultArtifact(
+            dependencyArtifactInfo.getGroupId(), 
+            dependencyArtifactInfo.getArtifactId(), classifier, 
+            artifactType.getExtension(), 
+            dependencyArtifactInfo.getVersion(), artifactType);
+        List<Exclusion> exclusions = new ArrayList<Exclusion>();
+        for (String exclusion : dependencyArtifactInfo.getExclusions())
+        {
+            exclusions.add(createExclusion(exclusion));
+        }
+        return new Dependency(artifact, 
+            dependencyArtifactInfo.getScope(), 
+            dependencyArtifactInfo.isOptional(), exclusions);
+    }
+    
+    /**
+     * Create the exclusion for the given string, which has the form
+     * <code>"groupId:artifactId"</code>. If the string only consists
+     * of a group ID, then all artifacts of this group are excluded.
+     * 
+     * @param exclusion The exclusion string
+     * @return The exclusion
+     * @throws DependencyCleanerException If the string does not have
+     * the expected form
+     */
+    static Exclusion createExclusion(String exclusion)
+    {
+        String[] tokens = exclusion.split(":", -1);
+        if (tokens.length == 1 && !tokens[0].isEmpty())
+        {
+            return new Exclusion(tokens[0], "*", "*", "*");
+        }
+        if (tokens.length == 2 && 
+            !tokens[0].isEmpty() && !tokens[1].isEmpty())
+        {
+            return new Exclusion(tokens[0], tokens[1], "*", "*");
+        }
+        throw new DependencyCleanerException("Invalid exclusion: '" 
+            + exclusion + "', expected groupId:artifactId");
+    }
+    
+    /**
+     * Returns whether the given artifact is accepted by the filter for
+     * the dependencies, as a dependency of a project. Artifacts that are 
+     * not accepted should not be resolved.
+     * 
+     * @param artifactInfo The {@link ArtifactInfo}
+     * @return Whether the artifact is accepted
+     */
+    boolean isAccepted(ArtifactInfo artifactInfo)
+    {
+        if (dependencyFilter == null)
+        {
+            return true;
+        }
+        DependencyNode node = 
+            new DefaultDependencyNode(createDependency(artifactInfo));
+        return dependencyFilter.accept(
+            node, Collections.<DependencyNode>emptyList());
+    }
+    
+    /**
+     * Returns a string that describes the filter for the dependencies. 
+     * Engines with equal descriptions resolve equal dependency graphs.
+     * 
+     * @return The description
+     */
+    String getDependencyFilterDescription()
+    {
+        return dependencyFilterDescription;
+    }
+    
+    /**
+     * Returns whether the given node and all its parents are accepted by 
+     * the filter for the dependencies. Nodes without a dependency (like
+     * the root node of a combined request) are always accepted.
+     * 
+     * @param node The node
+     * @param parents The parents of the node, starting with the
+     * immediate parent
+     * @return Whether the node is accepted
+     */
+    private boolean acceptsPath(
+        DependencyNode node, List<DependencyNode> parents)
+    {
+        if (dependencyFilter == null)
+        {
+            return true;
+        }
+        if (node.getDependency() != null 
+            && !dependencyFilter.accept(node, parents))
+        {
+            return false;
+        }
+        for (int i = 0; i < parents.size(); i++)
+        {
+            DependencyNode parent = parents.get(i);
+            if (parent.getDependency() != null && !dependencyFilter.accept(
+                parent, parents.subList(i + 1, parents.size())))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Remove all children from the nodes in the given graph that are not
+     * accepted by the filter for the dependencies
+     * 
+     * @param node The current node
+     * @param parents The parents of the current node, starting with 
+     * the immediate parent
+     * @param visited The nodes that have already been visited
+     */
+    private void removeRejected(DependencyNode node, 
+        List<DependencyNode> parents, Set<DependencyNode> visited)
+    {
+        if (!visited.add(node))
+        {
+            return;
+        }
+        List<DependencyNode> childParents = 
+            new ArrayList<DependencyNode>(parents.size() + 1);
+        childParents.add(node);
+        childParents.addAll(parents);
+        List<DependencyNode> acceptedChildren = 
+            new ArrayList<DependencyNode>();
+        for (DependencyNode child : node.getChildren())
+        {
+            if (dependencyFilter.accept(child, childParents))
+            {
+                acceptedChildren.add(child);
+                removeRejected(child, childParents, visited);
+            }
+        }
+        node.setChildren(acceptedChildren);
+    }
+    
+    /**
+     * Implementation of the dependency resolution.<br>
+     * <br>
+     * If not all dependencies can be resolved (for example, because they
+     * are not available in the local repository in offline mode), then
+     * the partial result is returned, as long as it contains a dependency 
+     * graph. The artifacts in this graph that could not be resolved will 
+     * have the file that they are expected at in the local repository.<br>
+     * <br>
+     * If only the dependency graph should be collected, then the result
+     * will contain only the graph, and all artifacts will have the file
+     * that they are expected at in the local repository.
+     * 
+     * @param collectRequest The CollectRequest
+     * @return The DependencyResult
+     * @throws DependencyCleanerException If the dependencies could not be 
+     * resolved
+     */
+    private DependencyResult resolveDependencies(
+        CollectRequest collectRequest)
+    {
+        if (collectOnly)
+        {
+            return collectDependencies(collectRequest);
+        }
+        // The filter of the request only determines which artifacts are
+        // resolved. The rejected nodes are removed from the graph below.
+        DependencyRequest dependencyRequest =
+            new DependencyRequest(collectRequest, this::acceptsPath);
+        DependencyResult dependencyResult = null;
+        try
+        {
+            dependencyResult = 
+                system.resolveDependencies(session, dependencyRequest);
+        }
+        catch (DependencyResolutionException e)
+        {
+            dependencyResult = e.getResult();
+            if (dependencyResult == null || dependencyResult.getRoot() == null)
+            {
+                throw new DependencyCleanerException(e);
+            }
+            logger.warning(e.getMessage());
+        }
+        applyDependencyFilter(dependencyResult.getRoot());
+        assignLocalFiles(dependencyResult.getRoot(), 
+            new HashSet<DependencyNode>());
+        return dependencyResult;
+    }
+    
+    /**
+     * Remove all nodes from the given graph that are not accepted by the
+     * filter for the dependencies, together with their dependencies
+     * 
+     * @param root The root of the graph
+     */
+    private void applyDependencyFilter(DependencyNode root)
+    {
+        if (dependencyFilter != null)
+        {
+            removeRejected(root, Collections.<DependencyNode>emptyList(), 
+                new HashSet<DependencyNode>());
+        }
+    }
+    
+    /**
+     * Returns the path of the local repository that artifacts are
+     * resolved into
+     * 
+     * @return The local repository path
+     */
+    Path getLocalRepositoryPath()
+    {
+        return localRepositoryPath;
+    }
+    
+    /**
+     * Returns the paths of the POMs in the local repository for all 
+     * artifacts in the given dependency graph, including their parent 
+     * POMs, and the BOMs that they import. These are the POMs that the 
+     * dependency graph was built from.<br>
+     * <br>
+     * Returns <code>null</code> if these POMs can not be determined 
+     * completely, because the coordinates of an imported BOM can not 
+     * be determined.
+     * 
+     * @param root The root of the dependency graph
+     * @return The POM paths
+     */
+    List<Path> getPomPaths(DependencyNode root)
+    {
+        ensureInitialized();
+        Set<Path> pomPaths = new LinkedHashSet<Path>();
+        if (!collectPomPaths(root, new HashSet<DependencyNode>(), pomPaths))
+        {
+            return null;
+        }
+        return new ArrayList<Path>(pomPaths);
+    }
+    
+    /**
+     * Collect the paths of the POMs in the local repository for all
+     * artifacts in the given dependency graph
+     * 
+     * @param node The current node
+     * @param visited The nodes that have already been visited
+     * @param pomPaths The POM paths
+     * @return Whether all POMs could be determined
+     */
+    private boolean collectPomPaths(DependencyNode node, 
+        Set<DependencyNode> visited, Set<Path> pomPaths)
+    {
+        if (!visited.add(node))
+        {
+            return true;
+        }
+        boolean complete = true;
+        Artifact artifact = node.getArtifact();
+        if (artifact != null)
+        {
+            complete &= collectPomPaths(artifact.getGroupId(), 
+                artifact.getArtifactId(), artifact.getVersion(), pomPaths);
+        }
+        for (DependencyNode child : node.getChildren())
+        {
+            complete &= collectPomPaths(child, visited, pomPaths);
+        }
+        return complete;
+    }
+    
+    /**
+     * Collect the path of the POM with the given coordinates in the local
+     * repository, the paths of its parent POMs, and the paths of the 
+     * BOMs that are imported in any of them
+     * 
+     * @param groupId The group ID
+     * @param artifactId The artifact ID
+     * @param version The version
+     * @param pomPaths The POM paths
+     * @return Whether all POMs could be determined
+     */
+    private boolean collectPomPaths(String groupId, String artifactId, 
+        String version, Set<Path> pomPaths)
+    {
+        boolean complete = true;
+        Path pomPath = getLocalPomPath(groupId, artifactId, version);
+        while (pomPath != null && pomPaths.add(pomPath))
+        {
+            List<ArtifactInfo> boms = 
+                MavenModelUtils.readImportedArtifactInfos(pomPath);
+            if (boms == null)
+            {
+                complete = false;
+            }
+            else
+            {
+                for (ArtifactInfo bom : boms)
+                {
+                    complete &= collectPomPaths(bom.getGroupId(), 
+                        bom.getArtifactId(), bom.getVersion(), pomPaths);
+                }
+            }
+            ArtifactInfo parent = 
+                MavenModelUtils.readParentArtifactInfo(pomPath);
+            if (parent == null)
+            {
+                break;
+            }
+            pomPath = getLocalPomPath(parent.getGroupId(), 
+                parent.getArtifactId(), parent.getVersion());
+        }
+        return complete;
+    }
+    
+    /**
+     * Returns the path of the POM with the given coordinates in the
+     * local repository. Returns <code>null</code> if the POM does 
+     * not exist.
+     * 
+     * @param groupId The group ID
+     * @param artifactId The artifact ID
+     * @param version The version
+     * @return The POM path
+     */
+    private Path getLocalPomPath(
+        String groupId, String artifactId, String version)
+    {
+        Artifact pomArtifact = 
+            new DefaultArtifact(groupId, artifactId, "pom", version);
+        Path pomPath = getLocalRepositoryPath().resolve(
+            session.getLocalRepositoryManager()
+                .getPathForLocalArtifact(pomArtifact));
+        if (!Files.exists(pomPath))
+        {
+            return null;
+        }
+        return pomPath;
+    }
+    
+    /**
+     * Collect the dependency graph for the given request, without 
+     * resolving the artifacts, and return it as the root of a 
+     * DependencyResult.<br>
+     * <br>
+     * If the graph can not be collected completely, then the partial 
+     * graph is returned, as long as there is one. All artifacts will 
+     * have the file that they are expected at in the local repository.
+     * 
+     * @param collectRequest The CollectRequest
+     * @return The DependencyResult
+     * @throws DependencyCleanerException If the dependencies could not be 
+     * collected
+     */
+    private DependencyResult collectDependencies(
+        CollectRequest collectRequest)
+    {
+        CollectResult collectResult = null;
+        try
+        {
+            collectResult = system.collectDependencies(
+                session, collectRequest);
+        }
+        catch (DependencyCollectionException e)
+        {
+            collectResult = e.getResult();
+            if (collectResult == null || collectResult.getRoot() == null)
+            {
+                throw new DependencyCleanerException(e);
+            }
+            logger.warning(e.getMessage());
+        }
+        applyDependencyFilter(collectResult.getRoot());
+        assignLocalFiles(collectResult.getRoot(), 
+            new HashSet<DependencyNode>());
+        DependencyResult dependencyResult = new DependencyResult(
+            new DependencyRequest(collectRequest, null));
+        dependencyResult.setRoot(collectResult.getRoot());
+        return dependencyResult;
+    }
+    
+    /**
+     * Assign the file that an artifact is expected at in the local 
+     * repository to all artifacts in the given graph that do not have 
+     * a file.
+     * 
+     * @param node The current node
+     * @param visited The nodes that have already been visited
+     */
+    private void assignLocalFiles(
+        DependencyNode node, Set<DependencyNode> visited)
+    {
+        if (!visited.add(node))
+        {
+            return;
+        }
+        Artifact artifact = node.getArtifact();
+        if (node.getDependency() != null && artifact.getFile() == null)
+        {
+            LocalRepositoryManager localRepositoryManager = 
+                session.getLocalRepositoryManager();
+            File basedir = localRepositoryManager.getRepository().getBasedir();
+            String localPath = 
+                localRepositoryManager.getPathForLocalArtifact(artifact);
+            node.setArtifact(artifact.setFile(new File(basedir, localPath)));
+        }
+        for (DependencyNode child : node.getChildren())
+        {
+            assignLocalFiles(child, visited);
+        }
+    }
+    
+    /**
+     * Shut down this engine. Resolution tasks that are currently running
+     * will be completed, but no new tasks will be accepted.
+     */
+    void shutdown()
+    {
+        executorService.shutdown();
+    }
+    
+    /**
+     * Shut down this engine immediately. Resolution tasks that have not 
+     * been started yet will be discarded, and tasks that are currently 
+     * running will be interrupted.
+     */
+    void shutdownNow()
+    {
+        executorService.shutdownNow();
+    }
+}
@@ -0,0 +1,396 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.aether.util.artifact.JavaScopes;
+
+/**
+ * Options for the resolution of dependencies
+ */
+class ResolutionOptions
+{
+    /**
+     * Whether all dependencies should be resolved with a single request
+     */
+    private boolean combinedRequest;
+    
+    /**
+     * The maximum number of artifacts that may be resolved concurrently
+     */
+    private int parallelism;
+    
+    /**
+     * Whether the resolution should only use the local repository
+     */
+    private boolean offline;
+    
+    /**
+     * Whether the dependency graph should only be collected, without
+     * resolving the artifacts
+     */
+    private boolean collectOnly;
+    
+    /**
+     * The Maven settings file
+     */
+    private Path settingsFile;
+    
+    /**
+     * The number of threads for downloading the artifacts of one 
+     * resolution request
+     */
+    private int downloadThreads;
+    
+    /**
+     * The file for the {@link GraphCache}
+     */
+    private Path graphCacheFile;
+    
+    /**
+     * The scopes of the dependencies that should be included
+     */
+    private Set<String> scopes;
+    
+    /**
+     * Whether optional dependencies should be included
+     */
+    private boolean includeOptional;
+    
+    /**
+     * The patterns for the group IDs of dependencies that should be
+     * excluded
+     */
+    private List<String> excludedGroupIdPatterns;
+    
+    /**
+     * Creates a new instance with default options
+     */
+    ResolutionOptions()
+    {
+        this.combinedRequest = false;
+        this.parallelism = 4;
+        this.offline = false;
+        this.collectOnly = false;
+        this.settingsFile = MavenSettingsUtils.getDefaultSettingsFile();
+        this.downloadThreads = 5;
+        this.graphCacheFile = GraphCache.getDefaultCacheFile();
+        this.scopes = new LinkedHashSet<String>(Arrays.asList(
+            JavaScopes.COMPILE, JavaScopes.PROVIDED, JavaScopes.RUNTIME,
+            JavaScopes.TEST, JavaScopes.SYSTEM));
+        this.includeOptional = true;
+        this.excludedGroupIdPatterns = new ArrayList<String>();
+    }
+    
+    /**
+     * Returns whether all dependencies should be resolved with a single
+     * request
+     * 
+     * @return Whether a combined request is used
+     */
+    boolean isCombinedRequest()
+    {
+        return combinedRequest;
+    }
+    
+    /**
+     * Set whether all dependencies should be resolved with a single 
+     * request.<br>
+     * <br>
+     * If this is <code>true</code>, then the dependency graph of all
+     * dependencies will be collected at once, as a graph whose root is 
+     * the project artifact, and conflicts between the versions of 
+     * dependencies will be resolved in the same way as in Maven. 
+     * Otherwise, the dependencies of each artifact will be resolved
+     * individually, so that each of them will show its own, complete 
+     * dependency tree.
+     * 
+     * @param combinedRequest Whether a combined request should be used
+     */
+    void setCombinedRequest(boolean combinedRequest)
+    {
+        this.combinedRequest = combinedRequest;
+    }
+    
+    /**
+     * Returns the maximum number of artifacts that may be resolved
+     * concurrently
+     * 
+     * @return The parallelism
+     */
+    int getParallelism()
+    {
+        return parallelism;
+    }
+    
+    /**
+     * Set the maximum number of artifacts that may be resolved 
+     * concurrently. This only affects the resolution when no
+     * {@link #isCombinedRequest() combined request} is used. Most 
+     * of the time of the resolution is spent with waiting for the 
+     * network, so this may be larger than the number of processors. 
+     * 
+     * @param parallelism The parallelism
+     * @throws IllegalArgumentException If the given value is not positive
+     */
+    void setParallelism(int parallelism)
+    {
+        if (parallelism <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The parallelism must be positive, but is " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+    
+    /**
+     * Returns whether the resolution should only use the local repository
+     * 
+     * @return Whether the resolution is offline
+     */
+    boolean isOffline()
+    {
+        return offline;
+    }
+    
+    /**
+     * Set whether the resolution should only use the local repository.<br>
+     * <br>
+     * If this is <code>true</code>, then no remote repositories will be
+     * accessed. Artifacts that are not available in the local repository
+     * will be reported as missing, instead of causing the resolution 
+     * to fail.
+     * 
+     * @param offline Whether the resolution should be offline
+     */
+    void setOffline(boolean offline)
+    {
+        this.offline = offline;
+    }
+    
+    /**
+     * Returns whether the dependency graph should only be collected, 
+     * without resolving the artifacts
+     * 
+     * @return Whether only the dependency graph is collected
+     */
+    boolean isCollectOnly()
+    {
+        return collectOnly;
+    }
+    
+    /**
+     * Set whether the dependency graph should only be collected, without
+     * resolving the artifacts.<br>
+     * <br>
+     * If this is <code>true</code>, then the dependency graph is built 
+     * from the POMs in the local repository, and each artifact is 
+     * mapped to the file that it is expected at in the local repository. 
+     * No artifacts will be downloaded. This implies that the resolution 
+     * is {@link #setOffline(boolean) offline}, so that the local 
+     * repository is not modified at all.
+     * 
+     * @param collectOnly Whether only the dependency graph is collected
+     */
+    void setCollectOnly(boolean collectOnly)
+    {
+        this.collectOnly = collectOnly;
+    }
+    
+    /**
+     * Returns the Maven settings file that the repositories, mirrors and 
+     * the local repository are read from. If this is <code>null</code>,
+     * then no settings file is used.
+     * 
+     * @return The settings file
+     */
+    Path getSettingsFile()
+    {
+        return settingsFile;
+    }
+    
+    /**
+     * Set the Maven settings file that the repositories, mirrors and 
+     * the local repository are read from. If this is <code>null</code>,
+     * or the file does not exist, then the artifacts are resolved from 
+     * Maven Central into the default local repository.
+     * 
+     * @param settingsFile The settings file
+     */
+    void setSettingsFile(Path settingsFile)
+    {
+        this.settingsFile = settingsFile;
+    }
+    
+    /**
+     * Returns the number of threads that are used for downloading the 
+     * artifacts of one resolution request
+     * 
+     * @return The number of download threads
+     */
+    int getDownloadThreads()
+    {
+        return downloadThreads;
+    }
+    
+    /**
+     * Set the number of threads that are used for downloading the 
+     * artifacts of one resolution request. 
+     * 
+     * @param downloadThreads The number of download threads
+     * @throws IllegalArgumentException If the given value is not positive
+     */
+    void setDownloadThreads(int downloadThreads)
+    {
+        if (downloadThreads <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The number of download threads must be positive, but is " 
+                + downloadThreads);
+        }
+        this.downloadThreads = downloadThreads;
+    }
+    
+    /**
+     * Returns the file that the {@link GraphCache} is stored in.
+     * If this is <code>null</code>, then no cache is used. If this is
+     * a relative path, then it is resolved against the local repository.
+     * By default, this is a file in the local repository.
+     * 
+     * @return The graph cache file
+     */
+    Path getGraphCacheFile()
+    {
+        return graphCacheFile;
+    }
+    
+    /**
+     * Set the file that the {@link GraphCache} is stored in. If this is 
+     * <code>null</code>, then no cache will be used, and the dependencies
+     * of all artifacts will be resolved. If this is a relative path, then 
+     * it is resolved against the local repository.<br>
+     * <br>
+     * The cache is only used when the artifacts are not resolved with
+     * a {@link #isCombinedRequest() combined request}.
+     * 
+     * @param graphCacheFile The graph cache file
+     */
+    void setGraphCacheFile(Path graphCacheFile)
+    {
+        this.graphCacheFile = graphCacheFile;
+    }
+    
+    /**
+     * Returns an unmodifiable view on the scopes of the dependencies that
+     * should be included
+     * 
+     * @return The scopes
+     */
+    Set<String> getScopes()
+    {
+        return Collections.unmodifiableSet(scopes);
+    }
+    
+    /**
+     * Set the scopes of the dependencies that should be included.<br>
+     * <br>
+     * Dependencies whose scope is not contained in the given collection
+     * will be removed from the dependency trees, together with all their
+     * dependencies, and will not be downloaded or validated. The scope 
+     * of a transitive dependency is derived from the scopes along the
+     * path to it, as in Maven. By default, all scopes are included.
+     * 
+     * @param scopes The scopes
+     */
+    void setScopes(Collection<String> scopes)
+    {
+        this.scopes = new LinkedHashSet<String>(scopes);
+    }
+    
+    /**
+     * Returns whether optional dependencies should be included
+     * 
+     * @return Whether optional dependencies are included
+     */
+    boolean isIncludeOptional()
+    {
+        return includeOptional;
+    }
+    
+    /**
+     * Set whether optional dependencies should be included.<br>
+     * <br>
+     * If this is <code>false</code>, then dependencies that are declared
+     * as optional will be removed from the dependency trees, together
+     * with all their dependencies. Note that optional dependencies of 
+     * dependencies are never included, as in Maven.
+     * 
+     * @param includeOptional Whether optional dependencies are included
+     */
+    void setIncludeOptional(boolean includeOptional)
+    {
+        this.includeOptional = includeOptional;
+    }
+    
+    /**
+     * Returns an unmodifiable view on the patterns for the group IDs of 
+     * dependencies that should be excluded
+     * 
+     * @return The patterns
+     */
+    List<String> getExcludedGroupIdPatterns()
+    {
+        return Collections.unmodifiableList(excludedGroupIdPatterns);
+    }
+    
+    /**
+     * Set the patterns for the group IDs of dependencies that should be 
+     * excluded.<br>
+     * <br>
+     * Each pattern may be a group ID, or a group ID that starts or ends
+     * with a <code>*</code> wildcard, like <code>"com.example.*"</code>.
+     * Dependencies whose group ID matches one of the patterns will be 
+     * removed from the dependency trees, together with all their 
+     * dependencies.
+     * 
+     * @param excludedGroupIdPatterns The patterns
+     */
+    void setExcludedGroupIdPatterns(
+        Collection<String> excludedGroupIdPatterns)
+    {
+        this.excludedGroupIdPatterns = 
+            new ArrayList<String>(excludedGroupIdPatterns);
+    }
+}
@@ -26,12 +26,15 @@
  */
 package de.javagl.dependencycleaner;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.Enumeration;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.zip.CRC32;
+import java.util.zip.ZipException;
 
 /**
  * Utility methods
@@ -43,8 +46,11 @@ class Utils
      * 
      * @param path The path
      * @return Whether the path is a valid ZIP file
+     * @throws IOException If the file could not be read. Exceptions that
+     * indicate that the contents are not valid will not be passed to 
+     * the caller.
      */
-    static boolean isValidJar(Path path)
+    static boolean isValidJar(Path path) throws IOException
     {
         try (JarFile jarFile = new JarFile(path.toFile()))
         {
@@ -63,8 +69,90 @@ class Utils
         catch (IOException e)
         {
             //e.printStackTrace();
+            return handleReadException(e);
+        }
+        catch (RuntimeException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Returns whether the given path describes a valid JAR file, where
+     * the data of each entry is read completely, and compared to the 
+     * CRC-32 that is stored for the entry.<br>
+     * <br>
+     * The signatures of signed JAR files are not verified, so that 
+     * the result is the same as for the {@link ValidationTier#DEEP} 
+     * tier of the {@link MappedZipScanner}.
+     * 
+     * @param path The path
+     * @return Whether the path is a valid ZIP file
+     * @throws IOException If the file could not be read. Exceptions that
+     * indicate that the contents are not valid will not be passed to 
+     * the caller.
+     */
+    static boolean isValidJarDeep(Path path) throws IOException
+    {
+        byte[] buffer = new byte[8192];
+        CRC32 crc = new CRC32();
+        try (JarFile jarFile = new JarFile(path.toFile(), false))
+        {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements())
+            {
+                JarEntry entry = entries.nextElement();
+                crc.reset();
+                try (InputStream inputStream = jarFile.getInputStream(entry))
+                {
+                    while (true)
+                    {
+                        int read = inputStream.read(buffer);
+                        if (read < 0)
+                        {
+                            break;
+                        }
+                        crc.update(buffer, 0, read);
+                    }
+                }
+                if (entry.getCrc() != -1 && crc.getValue() != entry.getCrc())
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        catch (IOException e)
+        {
+            return handleReadException(e);
+        }
+        catch (RuntimeException e)
+        {
+            // Reading a malformed file may also cause runtime exceptions,
+            // for example, a SecurityException for an invalid manifest
+            return false;
+        }
+    }
+    
+    /**
+     * Handle the given exception that was caused by reading a JAR file.
+     * If the exception indicates that the contents of the file are not 
+     * valid, then <code>false</code> is returned. Otherwise, the given
+     * exception is thrown.
+     * 
+     * @param e The exception
+     * @return Always <code>false</code>
+     * @throws IOException The given exception, if it does not indicate
+     * that the contents of the file are not valid
+     */
+    private static boolean handleReadException(IOException e) 
+        throws IOException
+    {
+        if (e instanceof ZipException || e instanceof EOFException)
+        {
             return false;
         }
+        throw e;
     }
 
     /**
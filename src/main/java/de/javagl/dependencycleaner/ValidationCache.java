@@ -0,0 +1,499 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A persistent cache for the results of validating JAR files.<br>
+ * <br>
+ * The cache stores the validation result for each path, including the 
+ * reason why a file is not valid, together with the size and the last 
+ * modification time of the file, and the version 
+ * of the validator that computed the result. A cached result is only 
+ * returned when all of these still match.<br>
+ * <br>
+ * The cache is stored in a compact binary file. When it is 
+ * {@link #save() saved}, the entries that have been written by other 
+ * processes in the meantime are merged into the file, and entries that 
+ * have not been used for a certain time are evicted. Concurrent writers
+ * are serialized with a lock file, and the cache file itself is replaced 
+ * atomically, so that readers always see a complete file.
+ */
+class ValidationCache
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger = 
+        Logger.getLogger(ValidationCache.class.getName());
+    
+    /**
+     * The magic header of the cache file
+     */
+    private static final int MAGIC = 0x44435643;
+    
+    /**
+     * The version of the cache file format
+     */
+    private static final int FORMAT_VERSION = 4;
+    
+    /**
+     * The maximum length of the reason that is stored for a result
+     */
+    private static final int MAX_REASON_LENGTH = 1024;
+    
+    /**
+     * The default time, in milliseconds, after which entries that have 
+     * not been used are evicted
+     */
+    private static final long DEFAULT_MAX_AGE_MS = TimeUnit.DAYS.toMillis(90);
+    
+    /**
+     * A lock for serializing the accesses to the lock file within this 
+     * JVM, because file locks are held on behalf of the whole JVM
+     */
+    private static final Object LOCK = new Object();
+    
+    /**
+     * A single cache entry
+     */
+    private static final class CacheEntry
+    {
+        /**
+         * The size of the file
+         */
+        private final long size;
+        
+        /**
+         * The last modification time of the file, in milliseconds
+         */
+        private final long lastModified;
+        
+        /**
+         * The version of the validator that computed the result
+         */
+        private final int validatorVersion;
+        
+        /**
+         * Whether checksums have been verified for the result
+         */
+        private final boolean checksumsVerified;
+        
+        /**
+         * The {@link ValidationResult}
+         */
+        private final ValidationResult validationResult;
+        
+        /**
+         * The time when this entry was last used, in milliseconds
+         */
+        private volatile long lastAccess;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param size The size
+         * @param lastModified The last modification time
+         * @param validatorVersion The validator version
+         * @param checksumsVerified Whether checksums have been verified
+         * @param validationResult The {@link ValidationResult}
+         * @param lastAccess The last access time
+         */
+        CacheEntry(long size, long lastModified, int validatorVersion,
+            boolean checksumsVerified, ValidationResult validationResult, 
+            long lastAccess)
+        {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.validatorVersion = validatorVersion;
+            this.checksumsVerified = checksumsVerified;
+            this.validationResult = validationResult;
+            this.lastAccess = lastAccess;
+        }
+    }
+    
+    /**
+     * The cache file
+     */
+    private final Path cacheFile;
+    
+    /**
+     * The current validator version
+     */
+    private final int validatorVersion;
+    
+    /**
+     * The time after which unused entries are evicted
+     */
+    private final long maxAgeMs;
+    
+    /**
+     * The entries, mapping normalized path strings to entries
+     */
+    private final Map<String, CacheEntry> entries;
+
+    
+    /**
+     * Creates a new instance. The contents of the given cache file will
+     * be read, if it exists.
+     * 
+     * @param cacheFile The cache file
+     * @param validatorVersion The version of the validator. Entries that
+     * have been computed with a different version will be ignored.
+     */
+    ValidationCache(Path cacheFile, int validatorVersion)
+    {
+        this.cacheFile = cacheFile;
+        this.validatorVersion = validatorVersion;
+        this.maxAgeMs = DEFAULT_MAX_AGE_MS;
+        this.entries = new ConcurrentHashMap<String, CacheEntry>();
+        entries.putAll(readEntries(cacheFile));
+    }
+    
+    /**
+     * Returns the path of the default cache file. This is a relative 
+     * path, which will be resolved against the local repository
+     * 
+     * @return The path
+     */
+    static Path getDefaultCacheFile()
+    {
+        return Paths.get(".dependency-cleaner", "validation-cache.bin");
+    }
+    
+    /**
+     * Returns the cached {@link ValidationResult} for the given path, or 
+     * <code>null</code> if there is no cached result, the file was 
+     * modified since the result was stored, or the cached result is
+     * not applicable for the requested tier or checksum verification.<br>
+     * <br>
+     * A cached result that says that a file is valid is applicable for
+     * all tiers up to the tier with which it was computed. A cached 
+     * result that says that a file is invalid is applicable for all
+     * tiers starting at the tier with which it was computed. The returned
+     * result will have the requested tier.
+     * 
+     * @param path The path
+     * @param attributes The current attributes of the file
+     * @param validationTier The requested {@link ValidationTier}
+     * @param verifyChecksums Whether checksums should be verified
+     * @return The cached {@link ValidationResult}
+     */
+    ValidationResult get(Path path, BasicFileAttributes attributes,
+        ValidationTier validationTier, boolean verifyChecksums)
+    {
+        String key = createKey(path);
+        CacheEntry entry = entries.get(key);
+        if (entry == null)
+        {
+            return null;
+        }
+        if (entry.size != attributes.size() ||
+            entry.lastModified != attributes.lastModifiedTime().toMillis() ||
+            entry.validatorVersion != validatorVersion)
+        {
+            entries.remove(key, entry);
+            return null;
+        }
+        if (verifyChecksums && !entry.checksumsVerified)
+        {
+            return null;
+        }
+        ValidationResult validationResult = entry.validationResult;
+        ValidationStatus validationStatus = 
+            validationResult.getValidationStatus();
+        if (!verifyChecksums && 
+            validationStatus == ValidationStatus.CHECKSUM_MISMATCH)
+        {
+            return null;
+        }
+        int cachedTier = validationResult.getValidationTier().ordinal();
+        int requestedTier = validationTier.ordinal();
+        if (validationStatus == ValidationStatus.INVALID)
+        {
+            if (cachedTier > requestedTier)
+            {
+                return null;
+            }
+        }
+        else
+        {
+            if (cachedTier < requestedTier)
+            {
+                return null;
+            }
+        }
+        entry.lastAccess = System.currentTimeMillis();
+        return new ValidationResult(validationStatus, validationTier, 
+            validationResult.getReason(), 0);
+    }
+    
+    /**
+     * Store the {@link ValidationResult} for the given path
+     * 
+     * @param path The path
+     * @param attributes The attributes of the file at the time when
+     * the validation started
+     * @param checksumsVerified Whether checksums have been verified
+     * @param validationResult The {@link ValidationResult}
+     */
+    void put(Path path, BasicFileAttributes attributes, 
+        boolean checksumsVerified, ValidationResult validationResult)
+    {
+        String key = createKey(path);
+        CacheEntry entry = new CacheEntry(attributes.size(),
+            attributes.lastModifiedTime().toMillis(), validatorVersion, 
+            checksumsVerified, validationResult, System.currentTimeMillis());
+        entries.put(key, entry);
+    }
+    
+    /**
+     * Save this cache to its file. The file will be locked while it is
+     * written. Entries that have been written by other processes since
+     * this cache was read will be retained, unless they have been 
+     * replaced by this cache. Entries that have not 
+     * been used within the maximum age will be evicted. Errors will 
+     * only be logged.
+     */
+    void save()
+    {
+        synchronized (LOCK)
+        {
+            try
+            {
+                Files.createDirectories(cacheFile.getParent());
+                Path lockFile = Paths.get(cacheFile + ".lock");
+                try (FileChannel lockChannel = FileChannel.open(lockFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE))
+                {
+                    FileLock fileLock = lockChannel.lock();
+                    try
+                    {
+                        saveLocked();
+                    }
+                    finally
+                    {
+                        fileLock.release();
+                    }
+                }
+            }
+            catch (IOException e)
+            {
+                logger.log(Level.WARNING, 
+                    "Could not save validation cache: " + e.getMessage(), e);
+            }
+        }
+    }
+    
+    /**
+     * Implementation of {@link #save()}, called while holding the lock
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    private void saveLocked() throws IOException
+    {
+        Map<String, CacheEntry> merged = readEntries(cacheFile);
+        for (Entry<String, CacheEntry> entry : entries.entrySet())
+        {
+            String key = entry.getKey();
+            CacheEntry cacheEntry = entry.getValue();
+            CacheEntry other = merged.get(key);
+            if (other == null || other.lastAccess <= cacheEntry.lastAccess)
+            {
+                merged.put(key, cacheEntry);
+            }
+        }
+        long minAccess = System.currentTimeMillis() - maxAgeMs;
+        merged.values().removeIf(e -> e.lastAccess < minAccess);
+        
+        Path tempFile = Files.createTempFile(
+            cacheFile.getParent(), "validation-cache", ".tmp");
+        try
+        {
+            writeEntries(tempFile, merged);
+            Files.move(tempFile, cacheFile, 
+                StandardCopyOption.REPLACE_EXISTING, 
+                StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+    
+    /**
+     * Create the key for the given path
+     * 
+     * @param path The path
+     * @return The key
+     */
+    private static String createKey(Path path)
+    {
+        return path.toAbsolutePath().normalize().toString();
+    }
+    
+    /**
+     * Read the entries from the given file. If the file does not exist,
+     * or cannot be read, then an empty map is returned.
+     * 
+     * @param file The file
+     * @return The entries
+     */
+    private static Map<String, CacheEntry> readEntries(Path file)
+    {
+        Map<String, CacheEntry> result = new HashMap<String, CacheEntry>();
+        try (InputStream inputStream = Files.newInputStream(file);
+            DataInputStream in = new DataInputStream(
+                new BufferedInputStream(inputStream)))
+        {
+            int magic = in.readInt();
+            int formatVersion = in.readInt();
+            if (magic != MAGIC || formatVersion != FORMAT_VERSION)
+            {
+                logger.warning("Ignoring validation cache " + file 
+                    + " with unknown format");
+                return result;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++)
+            {
+                String key = in.readUTF();
+                long size = in.readLong();
+                long lastModified = in.readLong();
+                int validatorVersion = in.readInt();
+                boolean checksumsVerified = in.readBoolean();
+                ValidationStatus validationStatus = 
+                    readEnum(ValidationStatus.values(), in.readByte());
+                ValidationTier validationTier = 
+                    readEnum(ValidationTier.values(), in.readByte());
+                String reason = in.readBoolean() ? in.readUTF() : null;
+                long lastAccess = in.readLong();
+                ValidationResult validationResult = new ValidationResult(
+                    validationStatus, validationTier, reason, 0);
+                result.put(key, new CacheEntry(size, lastModified, 
+                    validatorVersion, checksumsVerified, validationResult, 
+                    lastAccess));
+            }
+        }
+        catch (NoSuchFileException e)
+        {
+            // The cache file was not written yet
+        }
+        catch (IOException e)
+        {
+            logger.log(Level.WARNING, 
+                "Could not read validation cache: " + e.getMessage(), e);
+            result.clear();
+        }
+        return result;
+    }
+    
+    /**
+     * Write the given entries to the given file
+     * 
+     * @param file The file
+     * @param entries The entries
+     * @throws IOException If an IO error occurs
+     */
+    private static void writeEntries(Path file, 
+        Map<String, CacheEntry> entries) throws IOException
+    {
+        try (OutputStream outputStream = Files.newOutputStream(file);
+            DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(outputStream)))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(entries.size());
+            for (Entry<String, CacheEntry> entry : entries.entrySet())
+            {
+                CacheEntry cacheEntry = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeLong(cacheEntry.size);
+                out.writeLong(cacheEntry.lastModified);
+                out.writeInt(cacheEntry.validatorVersion);
+                out.writeBoolean(cacheEntry.checksumsVerified);
+                ValidationResult validationResult = 
+                    cacheEntry.validationResult;
+                out.writeByte(
+                    validationResult.getValidationStatus().ordinal());
+                out.writeByte(
+                    validationResult.getValidationTier().ordinal());
+                String reason = validationResult.getReason();
+                out.writeBoolean(reason != null);
+                if (reason != null)
+                {
+                    out.writeUTF(reason.length() <= MAX_REASON_LENGTH ? 
+                        reason : reason.substring(0, MAX_REASON_LENGTH));
+                }
+                out.writeLong(cacheEntry.lastAccess);
+            }
+        }
+    }
+    
+    /**
+     * Returns the enum value for the given ordinal
+     * 
+     * @param <T> The enum type
+     * @param values The enum values
+     * @param ordinal The ordinal
+     * @return The enum value
+     * @throws IOException If the ordinal is not valid
+     */
+    private static <T extends Enum<T>> T readEnum(T[] values, int ordinal) 
+        throws IOException
+    {
+        if (ordinal < 0 || ordinal >= values.length)
+        {
+            throw new IOException("Invalid ordinal: " + ordinal);
+        }
+        return values[ordinal];
+    }
+}
@@ -0,0 +1,437 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A class for validating JAR files, using a pool of worker threads.<br>
+ * <br>
+ * Instances of this class should be {@link #shutdown() shut down} when
+ * they are no longer needed.
+ */
+class ValidationEngine
+{
+    /**
+     * The version of the validation. This is stored in the 
+     * {@link ValidationCache}, and has to be increased whenever the
+     * validation is changed in a way that may affect the results.
+     */
+    static final int VALIDATOR_VERSION = 2;
+    
+    /**
+     * The executor service that performs the validation
+     */
+    private final ExecutorService executorService;
+    
+    /**
+     * Whether the {@link MappedZipScanner} should be used
+     */
+    private final boolean memoryMapping;
+    
+    /**
+     * Whether checksums should be verified
+     */
+    private final boolean verifyChecksums;
+    
+    /**
+     * The {@link ValidationTier}
+     */
+    private final ValidationTier validationTier;
+    
+    /**
+     * The optional {@link ValidationCache}
+     */
+    private final ValidationCache validationCache;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param validationOptions The {@link ValidationOptions}
+     * @param validationCache The optional {@link ValidationCache}. If 
+     * this is not <code>null</code>, then results will be taken from
+     * this cache if possible, and new results will be stored in it.
+     */
+    ValidationEngine(ValidationOptions validationOptions,
+        ValidationCache validationCache)
+    {
+        this.validationCache = validationCache;
+        this.memoryMapping = validationOptions.isMemoryMapping();
+        this.verifyChecksums = validationOptions.isVerifyChecksums();
+        this.validationTier = validationOptions.getValidationTier();
+        this.executorService = Executors.newFixedThreadPool(
+            validationOptions.getParallelism(), 
+            createThreadFactory());
+    }
+    
+    /**
+     * Create the thread factory for the validation threads. The threads
+     * will be daemon threads, so that they do not prevent the application
+     * from exiting.
+     * 
+     * @return The thread factory
+     */
+    private static ThreadFactory createThreadFactory()
+    {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> 
+        {
+            Thread thread = new Thread(runnable, 
+                "ValidationEngine-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    /**
+     * Validate all the given paths, and return a mapping from each path
+     * to its {@link ValidationResult}. The iteration order of the returned 
+     * map will be the same as the iteration order of the given collection.
+     * 
+     * @param paths The paths
+     * @return The validation results
+     * @throws DependencyCleanerException If the calling thread was 
+     * interrupted, or the validation caused an unexpected error
+     */
+    Map<Path, ValidationResult> validate(Collection<? extends Path> paths)
+    {
+        Map<Path, ValidationResult> results = 
+            new ConcurrentHashMap<Path, ValidationResult>();
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (Path path : paths)
+        {
+            Future<?> future = submit(path).thenAccept(
+                validationResult -> results.put(path, validationResult));
+            futures.add(future);
+        }
+        for (Future<?> future : futures)
+        {
+            await(future);
+        }
+        Map<Path, ValidationResult> orderedResults = 
+            new LinkedHashMap<Path, ValidationResult>();
+        for (Path path : paths)
+        {
+            orderedResults.put(path, results.get(path));
+        }
+        return orderedResults;
+    }
+    
+    /**
+     * Submit the given path for validation. This allows paths to be 
+     * validated while further paths are still being discovered.
+     * 
+     * @param path The path
+     * @return The future that will receive the {@link ValidationResult}
+     */
+    CompletableFuture<ValidationResult> submit(Path path)
+    {
+        return CompletableFuture.supplyAsync(
+            () -> validate(path), executorService);
+    }
+    
+    /**
+     * Compute the {@link ValidationResult} for the given path, using
+     * the {@link ValidationCache} if possible. The returned result will 
+     * contain the time that it took to obtain it.
+     * 
+     * @param path The path
+     * @return The {@link ValidationResult}
+     */
+    private ValidationResult validate(Path path)
+    {
+        long startNanos = System.nanoTime();
+        ValidationResult validationResult = validateCached(path);
+        return validationResult.withDurationNanos(
+            System.nanoTime() - startNanos);
+    }
+    
+    /**
+     * Compute the {@link ValidationResult} for the given path, using
+     * the {@link ValidationCache} if possible
+     * 
+     * @param path The path
+     * @return The {@link ValidationResult}
+     */
+    private ValidationResult validateCached(Path path)
+    {
+        if (validationCache == null)
+        {
+            return validateUncached(path);
+        }
+        BasicFileAttributes attributes = null;
+        try
+        {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        }
+        catch (IOException e)
+        {
+            return invalid("Could not read the file attributes: " 
+                + e.getMessage());
+        }
+        ValidationResult cachedValidationResult = validationCache.get(
+            path, attributes, validationTier, verifyChecksums);
+        if (cachedValidationResult != null)
+        {
+            return cachedValidationResult;
+        }
+        try
+        {
+            ValidationResult validationResult = validateFile(path);
+            validationCache.put(path, attributes, verifyChecksums, 
+                validationResult);
+            return validationResult;
+        }
+        catch (IOException e)
+        {
+            // The file could not be read, which may only be a temporary
+            // problem, so the result is not stored in the cache
+            return invalid("Could not read the file: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Compute the {@link ValidationResult} of the given path, without
+     * using the {@link ValidationCache}
+     * 
+     * @param path The path
+     * @return The {@link ValidationResult}
+     */
+    private ValidationResult validateUncached(Path path)
+    {
+        try
+        {
+            return validateFile(path);
+        }
+        catch (IOException e)
+        {
+            return invalid("Could not read the file: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Compute the {@link ValidationResult} of the given path
+     * 
+     * @param path The path
+     * @return The {@link ValidationResult}
+     * @throws IOException If the file could not be read. Files that 
+     * can be read, but are not valid, will not cause an exception.
+     */
+    private ValidationResult validateFile(Path path) throws IOException
+    {
+        if (memoryMapping)
+        {
+            return validateMapped(path);
+        }
+        return validateUnmapped(path);
+    }
+    
+    /**
+     * Compute the {@link ValidationResult} of the given path, by checking
+     * the structure of the memory-mapped file with the 
+     * {@link MappedZipScanner}. If checksums should be verified, then
+     * they are computed from the same mapped buffer.
+     * 
+     * @param path The path
+     * @return The {@link ValidationResult}
+     * @throws IOException If the file could not be read
+     */
+    private ValidationResult validateMapped(Path path) throws IOException
+    {
+        try (FileChannel channel = 
+            FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+            {
+                return validateUnmapped(path);
+            }
+            MappedByteBuffer buffer = 
+                channel.map(MapMode.READ_ONLY, 0, size);
+            if (!MappedZipScanner.isValidZip(buffer, validationTier))
+            {
+                return invalid("The file failed the " 
+                    + validationTier.name().toLowerCase(Locale.ENGLISH) 
+                    + " ZIP check");
+            }
+            if (verifyChecksums && 
+                Boolean.FALSE.equals(Checksums.verify(path, buffer)))
+            {
+                return checksumMismatch();
+            }
+            return valid();
+        }
+        catch (RuntimeException e)
+        {
+            // The scanner checks the offsets and sizes that are read from 
+            // the file, but should still not cause the whole validation 
+            // to fail for a file with an unexpected structure
+            return invalid("Could not scan the file: " + e);
+        }
+    }
+    
+    /**
+     * Compute the {@link ValidationResult} of the given path, by reading
+     * it with a <code>JarFile</code>, and verifying the checksum if 
+     * necessary. The {@link ValidationTier#QUICK} tier is treated like
+     * {@link ValidationTier#STRUCTURAL} here.
+     * 
+     * @param path The path
+     * @return The {@link ValidationResult}
+     * @throws IOException If the file could not be read
+     */
+    private ValidationResult validateUnmapped(Path path) throws IOException
+    {
+        if (validationTier == ValidationTier.DEEP)
+        {
+            if (!Utils.isValidJarDeep(path))
+            {
+                return invalid("Not all entries of the JAR file could be " 
+                    + "read");
+            }
+        }
+        else
+        {
+            if (!Utils.isValidJar(path))
+            {
+                return invalid("The file could not be opened as a JAR file");
+            }
+        }
+        if (verifyChecksums && Boolean.FALSE.equals(Checksums.verify(path)))
+        {
+            return checksumMismatch();
+        }
+        return valid();
+    }
+    
+    /**
+     * Create a {@link ValidationResult} for a valid file
+     * 
+     * @return The {@link ValidationResult}
+     */
+    private ValidationResult valid()
+    {
+        return new ValidationResult(ValidationStatus.VALID, validationTier);
+    }
+    
+    /**
+     * Create a {@link ValidationResult} for an invalid file
+     * 
+     * @param reason The description of why the file is not valid
+     * @return The {@link ValidationResult}
+     */
+    private ValidationResult invalid(String reason)
+    {
+        return new ValidationResult(
+            ValidationStatus.INVALID, validationTier, reason, 0);
+    }
+    
+    /**
+     * Create a {@link ValidationResult} for a file whose checksum does
+     * not match
+     * 
+     * @return The {@link ValidationResult}
+     */
+    private ValidationResult checksumMismatch()
+    {
+        return new ValidationResult(ValidationStatus.CHECKSUM_MISMATCH, 
+            validationTier, "The checksum does not match the checksum file", 
+            0);
+    }
+    
+    /**
+     * Wait for the given future to complete, and return its result
+     * 
+     * @param <T> The result type
+     * @param future The future
+     * @return The result
+     * @throws DependencyCleanerException If the calling thread was 
+     * interrupted, or the computation of the future caused an exception
+     */
+    static <T> T await(Future<T> future)
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new DependencyCleanerException(
+                "Interrupted while waiting for result", e);
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof DependencyCleanerException)
+            {
+                throw (DependencyCleanerException)cause;
+            }
+            throw new DependencyCleanerException(cause);
+        }
+    }
+    
+    /**
+     * Shut down this engine. Validation tasks that are currently running
+     * will be completed, but no new tasks will be accepted.
+     */
+    void shutdown()
+    {
+        executorService.shutdown();
+    }
+    
+    /**
+     * Shut down this engine immediately. Validation tasks that have not 
+     * been started yet will be discarded, and tasks that are currently 
+     * running will be interrupted.
+     */
+    void shutdownNow()
+    {
+        executorService.shutdownNow();
+    }
+}
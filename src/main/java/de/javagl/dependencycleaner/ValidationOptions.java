@@ -0,0 +1,205 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Options for the validation of JAR files
+ */
+class ValidationOptions
+{
+    /**
+     * The maximum number of threads that may be used for the validation
+     */
+    private int parallelism;
+    
+    /**
+     * Whether the JAR files should be validated with the 
+     * {@link MappedZipScanner}
+     */
+    private boolean memoryMapping;
+    
+    /**
+     * Whether the checksums of the JAR files should be verified
+     */
+    private boolean verifyChecksums;
+    
+    /**
+     * The {@link ValidationTier}
+     */
+    private ValidationTier validationTier;
+    
+    /**
+     * The file for the {@link ValidationCache}
+     */
+    private Path validationCacheFile;
+    
+    /**
+     * Creates a new instance with default options
+     */
+    ValidationOptions()
+    {
+        this.parallelism = Runtime.getRuntime().availableProcessors();
+        this.memoryMapping = true;
+        this.validationTier = ValidationTier.STRUCTURAL;
+        this.validationCacheFile = ValidationCache.getDefaultCacheFile();
+    }
+    
+    /**
+     * Returns the maximum number of threads that may be used for the 
+     * validation
+     * 
+     * @return The parallelism
+     */
+    int getParallelism()
+    {
+        return parallelism;
+    }
+    
+    /**
+     * Set the maximum number of threads that may be used for the 
+     * validation. Limiting this may be useful in order to not overload
+     * slow disks. 
+     * 
+     * @param parallelism The parallelism
+     * @throws IllegalArgumentException If the given value is not positive
+     */
+    void setParallelism(int parallelism)
+    {
+        if (parallelism <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The parallelism must be positive, but is " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+    
+    /**
+     * Returns whether the JAR files should be validated by scanning a 
+     * memory-mapped file with the {@link MappedZipScanner}, instead of 
+     * reading them with a <code>JarFile</code>
+     * 
+     * @return Whether memory mapping is used
+     */
+    boolean isMemoryMapping()
+    {
+        return memoryMapping;
+    }
+    
+    /**
+     * Set whether the JAR files should be validated by scanning a 
+     * memory-mapped file with the {@link MappedZipScanner}, instead of 
+     * reading them with a <code>JarFile</code>.<br>
+     * <br>
+     * Note that on some operating systems, a file can not be deleted 
+     * as long as it is mapped into memory, and there is no way to 
+     * explicitly unmap a file. The mapping is only released when the
+     * buffer is garbage collected. Validating with memory mapping may 
+     * therefore cause deleting invalid files to fail, or to require 
+     * a garbage collection first.
+     * 
+     * @param memoryMapping Whether memory mapping should be used
+     */
+    void setMemoryMapping(boolean memoryMapping)
+    {
+        this.memoryMapping = memoryMapping;
+    }
+    
+    /**
+     * Returns the file that the {@link ValidationCache} is stored in.
+     * If this is <code>null</code>, then no cache is used. If this is
+     * a relative path, then it is resolved against the local repository.
+     * By default, this is a file in the local repository.
+     * 
+     * @return The validation cache file
+     */
+    Path getValidationCacheFile()
+    {
+        return validationCacheFile;
+    }
+    
+    /**
+     * Set the file that the {@link ValidationCache} is stored in. If
+     * this is <code>null</code>, then no cache will be used, and all
+     * files will be validated. If this is a relative path, then it is 
+     * resolved against the local repository.
+     * 
+     * @param validationCacheFile The validation cache file
+     */
+    void setValidationCacheFile(Path validationCacheFile)
+    {
+        this.validationCacheFile = validationCacheFile;
+    }
+    
+    /**
+     * Returns whether the contents of the JAR files should be verified 
+     * against the <code>.sha1</code> or <code>.md5</code> checksum files
+     * that are stored next to them in the local repository
+     * 
+     * @return Whether checksums should be verified
+     */
+    boolean isVerifyChecksums()
+    {
+        return verifyChecksums;
+    }
+    
+    /**
+     * Set whether the contents of the JAR files should be verified 
+     * against the <code>.sha1</code> or <code>.md5</code> checksum files
+     * that are stored next to them in the local repository. This 
+     * requires reading the complete files, and is therefore slower.
+     * 
+     * @param verifyChecksums Whether checksums should be verified
+     */
+    void setVerifyChecksums(boolean verifyChecksums)
+    {
+        this.verifyChecksums = verifyChecksums;
+    }
+    
+    /**
+     * Returns the {@link ValidationTier}
+     * 
+     * @return The {@link ValidationTier}
+     */
+    ValidationTier getValidationTier()
+    {
+        return validationTier;
+    }
+    
+    /**
+     * Set the {@link ValidationTier}
+     * 
+     * @param validationTier The {@link ValidationTier}
+     */
+    void setValidationTier(ValidationTier validationTier)
+    {
+        this.validationTier = Objects.requireNonNull(
+            validationTier, "The validationTier may not be null");
+    }
+}
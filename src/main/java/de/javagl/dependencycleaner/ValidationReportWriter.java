@@ -0,0 +1,414 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link DependencyStatusListener} that writes one record for each
+ * validated file, as JSON Lines or CSV, while the validation is still
+ * running. Each record is flushed immediately. Only the counters for 
+ * the summary are kept in memory, so that the memory requirements do 
+ * not depend on the number of files.<br>
+ * <br>
+ * Each record contains the artifact coordinates (derived from the 
+ * layout of the local repository), the path, the size of the file in 
+ * bytes, the {@link ValidationTier}, the verdict (which is the 
+ * {@link ValidationStatus}, or <code>MISSING</code>), the reason why 
+ * the file is not valid, and the time that the validation took, in 
+ * microseconds. When the writer is {@link #close() closed}, a summary 
+ * is written: For JSON Lines, this is a single object with the 
+ * <code>"type"</code> being <code>"summary"</code>. For CSV, these are
+ * lines that start with a <code>#</code>.<br>
+ * <br>
+ * IO errors that occur while writing records are not passed to the
+ * code that performs the validation. Instead, writing stops, and the
+ * first error is thrown when the writer is closed.
+ */
+class ValidationReportWriter implements DependencyStatusListener, Closeable
+{
+    /**
+     * The formats of the report
+     */
+    enum Format
+    {
+        /**
+         * JSON Lines, with one JSON object per line
+         */
+        JSONL,
+        
+        /**
+         * Comma-separated values, with a header line
+         */
+        CSV
+    }
+    
+    /**
+     * The verdict for files that do not exist
+     */
+    private static final String MISSING = "MISSING";
+    
+    /**
+     * The column names, for the CSV header
+     */
+    private static final String CSV_HEADER = 
+        "coordinates,path,size,tier,verdict,reason,durationMicros";
+    
+    /**
+     * The target writer
+     */
+    private final Writer writer;
+    
+    /**
+     * The {@link Format}
+     */
+    private final Format format;
+    
+    /**
+     * The root directory of the local repository, for deriving the
+     * coordinates from the paths
+     */
+    private final Path repositoryRoot;
+    
+    /**
+     * The time when this writer was created, in nanoseconds
+     */
+    private final long startNanos;
+    
+    /**
+     * The number of valid files
+     */
+    private long valid;
+    
+    /**
+     * The number of invalid files
+     */
+    private long invalid;
+    
+    /**
+     * The number of files whose checksum did not match
+     */
+    private long checksumMismatches;
+    
+    /**
+     * The number of missing files
+     */
+    private long missing;
+    
+    /**
+     * The total size of the validated files, in bytes
+     */
+    private long totalSize;
+    
+    /**
+     * The total time that the validations took, in nanoseconds
+     */
+    private long totalDurationNanos;
+    
+    /**
+     * The first IO exception that occurred while writing
+     */
+    private IOException ioException;
+    
+    /**
+     * Whether this writer was already closed
+     */
+    private boolean closed;
+    
+    /**
+     * Creates a new instance. For the CSV format, the header line is 
+     * written immediately.
+     * 
+     * @param writer The target writer. This will be closed when this 
+     * report writer is closed.
+     * @param format The {@link Format}
+     * @param repositoryRoot The root directory of the local repository
+     * that contains the files. The coordinates of files outside of this
+     * directory will be empty.
+     */
+    ValidationReportWriter(Writer writer, Format format, Path repositoryRoot)
+    {
+        this.writer = writer;
+        this.format = format;
+        this.repositoryRoot = repositoryRoot;
+        this.startNanos = System.nanoTime();
+        if (format == Format.CSV)
+        {
+            writeLine(CSV_HEADER);
+        }
+    }
+    
+    @Override
+    public void childAdded(DependencyTreeNode child)
+    {
+        // Records are only written for validated files
+    }
+    
+    @Override
+    public synchronized void validated(
+        Path path, ValidationResult validationResult)
+    {
+        long size = -1;
+        try
+        {
+            size = Files.size(path);
+            totalSize += size;
+        }
+        catch (IOException e)
+        {
+            // The size will be reported as -1
+        }
+        ValidationStatus validationStatus = 
+            validationResult.getValidationStatus();
+        if (validationStatus == ValidationStatus.VALID)
+        {
+            valid++;
+        }
+        else if (validationStatus == ValidationStatus.CHECKSUM_MISMATCH)
+        {
+            checksumMismatches++;
+        }
+        else
+        {
+            invalid++;
+        }
+        long durationNanos = validationResult.getDurationNanos();
+        totalDurationNanos += durationNanos;
+        writeRecord(path, size, validationResult.getValidationTier(), 
+            validationStatus.name(), validationResult.getReason(), 
+            TimeUnit.NANOSECONDS.toMicros(durationNanos));
+    }
+    
+    /**
+     * Write a record for the given path of a file that does not exist
+     * 
+     * @param path The path
+     */
+    synchronized void missing(Path path)
+    {
+        missing++;
+        writeRecord(path, -1, null, MISSING, "The file does not exist", 0);
+    }
+    
+    /**
+     * Write the summary, and close the underlying writer
+     * 
+     * @throws IOException If an IO error occurred while writing the
+     * report
+     */
+    @Override
+    public synchronized void close() throws IOException
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+        long total = valid + invalid + checksumMismatches + missing;
+        long validationMillis = 
+            TimeUnit.NANOSECONDS.toMillis(totalDurationNanos);
+        long elapsedMillis = 
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (format == Format.CSV)
+        {
+            writeLine("# total: " + total);
+            writeLine("# valid: " + valid);
+            writeLine("# invalid: " + invalid);
+            writeLine("# checksumMismatches: " + checksumMismatches);
+            writeLine("# missing: " + missing);
+            writeLine("# totalSize: " + totalSize);
+            writeLine("# validationMillis: " + validationMillis);
+            writeLine("# elapsedMillis: " + elapsedMillis);
+        }
+        else
+        {
+            writeLine("{\"type\":\"summary\"" 
+                + ",\"total\":" + total
+                + ",\"valid\":" + valid
+                + ",\"invalid\":" + invalid
+                + ",\"checksumMismatches\":" + checksumMismatches
+                + ",\"missing\":" + missing
+                + ",\"totalSize\":" + totalSize
+                + ",\"validationMillis\":" + validationMillis
+                + ",\"elapsedMillis\":" + elapsedMillis + "}");
+        }
+        try
+        {
+            writer.close();
+        }
+        catch (IOException e)
+        {
+            if (ioException == null)
+            {
+                ioException = e;
+            }
+        }
+        if (ioException != null)
+        {
+            throw ioException;
+        }
+    }
+    
+    /**
+     * Write a single record
+     * 
+     * @param path The path
+     * @param size The size of the file, or -1 if it is not known
+     * @param validationTier The optional {@link ValidationTier}
+     * @param verdict The verdict
+     * @param reason The optional reason
+     * @param durationMicros The duration of the validation, in 
+     * microseconds
+     */
+    private void writeRecord(Path path, long size, 
+        ValidationTier validationTier, String verdict, String reason, 
+        long durationMicros)
+    {
+        String coordinates = 
+            LocalRepositories.createCoordinates(repositoryRoot, path);
+        String tier = validationTier == null ? null : validationTier.name();
+        if (format == Format.CSV)
+        {
+            writeLine(csv(coordinates) + "," + csv(path.toString()) + ","
+                + size + "," + csv(tier) + "," + verdict + "," 
+                + csv(reason) + "," + durationMicros);
+        }
+        else
+        {
+            writeLine("{\"type\":\"artifact\"" 
+                + ",\"coordinates\":" + json(coordinates)
+                + ",\"path\":" + json(path.toString())
+                + ",\"size\":" + size
+                + ",\"tier\":" + json(tier)
+                + ",\"verdict\":" + json(verdict)
+                + ",\"reason\":" + json(reason)
+                + ",\"durationMicros\":" + durationMicros + "}");
+        }
+    }
+    
+    /**
+     * Write the given line, and flush the writer, unless an IO error
+     * occurred previously
+     * 
+     * @param line The line
+     */
+    private void writeLine(String line)
+    {
+        if (ioException != null)
+        {
+            return;
+        }
+        try
+        {
+            writer.write(line);
+            writer.write("\n");
+            writer.flush();
+        }
+        catch (IOException e)
+        {
+            ioException = e;
+        }
+    }
+    
+    /**
+     * Returns the given string as a CSV field, which is quoted if 
+     * necessary. If the given string is <code>null</code>, then the
+     * empty string is returned.
+     * 
+     * @param s The string
+     * @return The CSV field
+     */
+    private static String csv(String s)
+    {
+        if (s == null)
+        {
+            return "";
+        }
+        if (s.indexOf(',') == -1 && s.indexOf('"') == -1 && 
+            s.indexOf('\n') == -1 && s.indexOf('\r') == -1)
+        {
+            return s;
+        }
+        return "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+    
+    /**
+     * Returns the given string as a JSON string literal, or 
+     * <code>null</code> if the given string is <code>null</code>
+     * 
+     * @param s The string
+     * @return The JSON value
+     */
+    private static String json(String s)
+    {
+        if (s == null)
+        {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            switch (c)
+            {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20)
+                    {
+                        sb.append(String.format("\\u%04x", (int)c));
+                    }
+                    else
+                    {
+                        sb.append(c);
+                    }
+                    break;
+            }
+        }
+        sb.append('"');
+        return sb.toString();
+    }
+}
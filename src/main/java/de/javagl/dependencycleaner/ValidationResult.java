@@ -0,0 +1,152 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import java.util.Objects;
+
+/**
+ * The result of validating a single JAR file
+ */
+class ValidationResult
+{
+    /**
+     * The {@link ValidationStatus}
+     */
+    private final ValidationStatus validationStatus;
+    
+    /**
+     * The {@link ValidationTier} for which the status was determined
+     */
+    private final ValidationTier validationTier;
+    
+    /**
+     * The optional description of why the file is not valid
+     */
+    private final String reason;
+    
+    /**
+     * The time that it took to obtain this result, in nanoseconds
+     */
+    private final long durationNanos;
+    
+    /**
+     * Creates a new instance without a reason and duration
+     * 
+     * @param validationStatus The {@link ValidationStatus}
+     * @param validationTier The {@link ValidationTier}
+     */
+    ValidationResult(ValidationStatus validationStatus, 
+        ValidationTier validationTier)
+    {
+        this(validationStatus, validationTier, null, 0);
+    }
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param validationStatus The {@link ValidationStatus}
+     * @param validationTier The {@link ValidationTier}
+     * @param reason The optional description of why the file is not valid
+     * @param durationNanos The time that it took to obtain the result,
+     * in nanoseconds
+     */
+    ValidationResult(ValidationStatus validationStatus, 
+        ValidationTier validationTier, String reason, long durationNanos)
+    {
+        this.validationStatus = Objects.requireNonNull(
+            validationStatus, "The validationStatus may not be null");
+        this.validationTier = Objects.requireNonNull(
+            validationTier, "The validationTier may not be null");
+        this.reason = reason;
+        this.durationNanos = durationNanos;
+    }
+    
+    /**
+     * Returns a copy of this result with the given duration
+     * 
+     * @param durationNanos The duration, in nanoseconds
+     * @return The new {@link ValidationResult}
+     */
+    ValidationResult withDurationNanos(long durationNanos)
+    {
+        return new ValidationResult(
+            validationStatus, validationTier, reason, durationNanos);
+    }
+    
+    /**
+     * Returns the {@link ValidationStatus}
+     * 
+     * @return The {@link ValidationStatus}
+     */
+    ValidationStatus getValidationStatus()
+    {
+        return validationStatus;
+    }
+    
+    /**
+     * Returns the {@link ValidationTier} for which the status was 
+     * determined. For results that have been taken from the
+     * {@link ValidationCache}, this is the requested tier, even though
+     * the result may have been computed with a different tier that
+     * implies the same status.
+     * 
+     * @return The {@link ValidationTier}
+     */
+    ValidationTier getValidationTier()
+    {
+        return validationTier;
+    }
+    
+    /**
+     * Returns the description of why the file is not valid. This is 
+     * <code>null</code> for valid files.
+     * 
+     * @return The reason
+     */
+    String getReason()
+    {
+        return reason;
+    }
+    
+    /**
+     * Returns the time that it took to obtain this result, in nanoseconds.
+     * For results that have been taken from the {@link ValidationCache},
+     * this is the time of the lookup.
+     * 
+     * @return The duration
+     */
+    long getDurationNanos()
+    {
+        return durationNanos;
+    }
+    
+    @Override
+    public String toString()
+    {
+        return validationStatus + " (" + validationTier + ")";
+    }
+}
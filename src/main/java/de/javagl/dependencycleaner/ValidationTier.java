@@ -0,0 +1,55 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+/**
+ * An enumeration of the levels of thoroughness for validating JAR files.
+ * Each tier includes the checks of the previous tiers.
+ */
+enum ValidationTier
+{
+    /**
+     * Only check whether the End Of Central Directory record can be found,
+     * and whether the central directory is consistent with the file size
+     */
+    QUICK,
+    
+    /**
+     * Check the structure of the central directory, and the local file 
+     * header of each entry. This detects the corruption that causes an
+     * <code>invalid LOC header</code> error.
+     */
+    STRUCTURAL,
+    
+    /**
+     * Inflate the data of each entry, and compare it to the CRC-32 that 
+     * is stored in the central directory. The signatures of signed JAR 
+     * files are not verified, regardless of whether the files are
+     * validated with memory mapping or not.
+     */
+    DEEP;
+}
@@ -0,0 +1,238 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the {@link GraphCache}
+ */
+public class GraphCacheTest
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    
+    /**
+     * The root directory of the local repository
+     */
+    private Path repositoryRoot;
+    
+    /**
+     * The cache file
+     */
+    private Path cacheFile;
+    
+    /**
+     * The POM of the root artifact
+     */
+    private Path pom;
+    
+    /**
+     * The root artifact
+     */
+    private ArtifactInfo rootArtifactInfo;
+    
+    /**
+     * The root of the tree that is stored in the cache
+     */
+    private DependencyTreeNode root;
+    
+    @Before
+    public void setUp() throws IOException
+    {
+        repositoryRoot = temporaryFolder.getRoot().toPath();
+        cacheFile = repositoryRoot.resolve(GraphCache.getDefaultCacheFile());
+        pom = write("org/example/a/1.0/a-1.0.pom");
+        
+        // A tree where the artifact c is a dependency of a and b
+        rootArtifactInfo = new ArtifactInfo("org.example", "a", "1.0");
+        root = createNode(rootArtifactInfo);
+        DependencyTreeNode b = 
+            createNode(new ArtifactInfo("org.example", "b", "1.0"));
+        DependencyTreeNode c = 
+            createNode(new ArtifactInfo("org.example", "c", "1.0"));
+        root.addChild(b);
+        root.addChild(c);
+        b.addChild(c);
+    }
+    
+    @Test
+    public void testRoundTrip()
+    {
+        GraphCache cache = createCache("configuration");
+        cache.put(rootArtifactInfo, root, Arrays.asList(pom));
+        cache.save();
+        
+        DependencyTreeNode readRoot = 
+            createCache("configuration").get(rootArtifactInfo);
+        assertNotNull(readRoot);
+        assertEquals(root.toString(), readRoot.toString());
+        assertEquals(root.getPath(), readRoot.getPath());
+        assertEquals(2, readRoot.getChildren().size());
+        DependencyTreeNode readB = readRoot.getChildren().get(0);
+        DependencyTreeNode readC = readRoot.getChildren().get(1);
+        assertEquals(rootArtifactInfo, readRoot.getArtifactInfo());
+        assertEquals("b", readB.getArtifactInfo().getArtifactId());
+        assertSame(readC, readB.getChildren().get(0));
+    }
+    
+    @Test
+    public void testModifiedPom() throws IOException
+    {
+        GraphCache cache = createCache("configuration");
+        cache.put(rootArtifactInfo, root, Arrays.asList(pom));
+        cache.save();
+        
+        Files.write(pom, "<project/>".getBytes(StandardCharsets.UTF_8));
+        assertNull(createCache("configuration").get(rootArtifactInfo));
+    }
+    
+    @Test
+    public void testModifiedPomBetweenLookups() throws IOException
+    {
+        GraphCache cache = createCache("configuration");
+        cache.put(rootArtifactInfo, root, Arrays.asList(pom));
+        assertNotNull(cache.get(rootArtifactInfo));
+        
+        Files.write(pom, "<project/>".getBytes(StandardCharsets.UTF_8));
+        assertNull(cache.get(rootArtifactInfo));
+    }
+    
+    @Test
+    public void testUnknownPoms()
+    {
+        GraphCache cache = createCache("configuration");
+        cache.put(rootArtifactInfo, root, null);
+        assertNull(cache.get(rootArtifactInfo));
+    }
+    
+    @Test
+    public void testDeletedFile() throws IOException
+    {
+        GraphCache cache = createCache("configuration");
+        cache.put(rootArtifactInfo, root, Arrays.asList(pom));
+        cache.save();
+        
+        Files.delete(root.getChildren().get(1).getPath());
+        assertNull(createCache("configuration").get(rootArtifactInfo));
+    }
+    
+    @Test
+    public void testConfiguration()
+    {
+        GraphCache cache = createCache("configuration");
+        cache.put(rootArtifactInfo, root, Arrays.asList(pom));
+        cache.save();
+        
+        assertNull(createCache("other").get(rootArtifactInfo));
+    }
+    
+    @Test
+    public void testDependencyArtifactInfo()
+    {
+        List<String> noExclusions = Collections.emptyList();
+        DependencyArtifactInfo dependency = new DependencyArtifactInfo(
+            "org.example", "a", "1.0", "compile", false, 
+            "jar", "", noExclusions);
+        DependencyArtifactInfo excluding = new DependencyArtifactInfo(
+            "org.example", "a", "1.0", "compile", false, 
+            "jar", "", Arrays.asList("org.example:c"));
+        DependencyArtifactInfo testJar = new DependencyArtifactInfo(
+            "org.example", "a", "1.0", "compile", false, 
+            "test-jar", "", noExclusions);
+        GraphCache cache = createCache("configuration");
+        cache.put(dependency, root, Arrays.asList(pom));
+        
+        assertNotNull(cache.get(dependency));
+        assertNull(cache.get(excluding));
+        assertNull(cache.get(testJar));
+        assertNull(cache.get(rootArtifactInfo));
+    }
+    
+    /**
+     * Create a cache for the {@link #repositoryRoot}
+     * 
+     * @param configuration The configuration
+     * @return The cache
+     */
+    private GraphCache createCache(String configuration)
+    {
+        return new GraphCache(cacheFile, repositoryRoot, configuration);
+    }
+    
+    /**
+     * Create a node for the given artifact, with a path to a JAR file
+     * that exists in the {@link #repositoryRoot}
+     * 
+     * @param artifactInfo The {@link ArtifactInfo}
+     * @return The node
+     * @throws IOException If an IO error occurs
+     */
+    private DependencyTreeNode createNode(ArtifactInfo artifactInfo) 
+        throws IOException
+    {
+        String fileName = artifactInfo.getArtifactId() + "-" 
+            + artifactInfo.getVersion() + ".jar";
+        Path path = write(artifactInfo.getGroupId().replace('.', '/') 
+            + "/" + artifactInfo.getArtifactId() 
+            + "/" + artifactInfo.getVersion() + "/" + fileName);
+        return new DependencyTreeNode(
+            artifactInfo.toString(), artifactInfo, path);
+    }
+    
+    /**
+     * Write a file with the given path, relative to the 
+     * {@link #repositoryRoot}
+     * 
+     * @param relativePath The relative path
+     * @return The path of the file
+     * @throws IOException If an IO error occurs
+     */
+    private Path write(String relativePath) throws IOException
+    {
+        Path path = repositoryRoot.resolve(relativePath);
+        Files.createDirectories(path.getParent());
+        Files.write(path, relativePath.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+}
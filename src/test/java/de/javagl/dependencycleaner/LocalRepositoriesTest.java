@@ -0,0 +1,179 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link LocalRepositories}
+ */
+public class LocalRepositoriesTest
+{
+    /**
+     * The root of the repository for the tests. The files do not have
+     * to exist.
+     */
+    private static final Path ROOT = Paths.get("repository");
+    
+    @Test
+    public void testCreateDependencyTreeNode()
+    {
+        DependencyTreeNode node = createDependencyTreeNode(
+            "org/example/example/1.0/example-1.0.jar");
+        assertEquals("org.example:example:jar:1.0", node.getName());
+        assertEquals(new ArtifactInfo("org.example", "example", "1.0"), 
+            node.getArtifactInfo());
+        assertEquals(ROOT.resolve(
+            "org/example/example/1.0/example-1.0.jar"), node.getPath());
+    }
+    
+    @Test
+    public void testCreateDependencyTreeNodeWithClassifier()
+    {
+        DependencyTreeNode node = createDependencyTreeNode(
+            "org/example/example/1.0/example-1.0-sources.jar");
+        assertEquals("org.example:example:jar:sources:1.0", node.getName());
+        assertEquals(new ArtifactInfo("org.example", "example", "1.0"), 
+            node.getArtifactInfo());
+    }
+    
+    @Test
+    public void testCreateDependencyTreeNodeSharesArtifactInfos()
+    {
+        ArtifactInfoPool artifactInfoPool = new ArtifactInfoPool();
+        DependencyTreeNode node = LocalRepositories.createDependencyTreeNode(
+            ROOT, ROOT.resolve("org/example/example/1.0/example-1.0.jar"), 
+            artifactInfoPool);
+        DependencyTreeNode sourcesNode = 
+            LocalRepositories.createDependencyTreeNode(ROOT, ROOT.resolve(
+                "org/example/example/1.0/example-1.0-sources.jar"), 
+                artifactInfoPool);
+        assertSame(node.getArtifactInfo(), sourcesNode.getArtifactInfo());
+    }
+    
+    @Test
+    public void testCreateDependencyTreeNodeForInvalidLayout()
+    {
+        assertNull(createDependencyTreeNode(
+            "example/1.0/example-1.0.jar").getArtifactInfo());
+        assertNull(createDependencyTreeNode(
+            "org/example/example/1.0/other-1.0.jar").getArtifactInfo());
+        assertNull(createDependencyTreeNode(
+            "org/example/example/1.0/example-1.0.pom").getArtifactInfo());
+    }
+    
+    @Test
+    public void testCreateDependencyTreeNodeForTimestampedSnapshot()
+    {
+        DependencyTreeNode node = createDependencyTreeNode(
+            "org/example/example/1.0-SNAPSHOT/"
+            + "example-1.0-20200101.123456-1-sources.jar");
+        assertEquals("org.example:example:jar:sources:1.0-20200101.123456-1",
+            node.getName());
+        assertEquals(new ArtifactInfo(
+            "org.example", "example", "1.0-SNAPSHOT"), 
+            node.getArtifactInfo());
+    }
+    
+    @Test
+    public void testCreateCoordinates()
+    {
+        assertEquals("org.example:example:jar:1.0", createCoordinates(
+            "org/example/example/1.0/example-1.0.jar"));
+        assertEquals("org.example:example:jar:sources:1.0", 
+            createCoordinates(
+                "org/example/example/1.0/example-1.0-sources.jar"));
+        assertEquals("org.example:example:jar:1.0-SNAPSHOT", 
+            createCoordinates("org/example/example/1.0-SNAPSHOT/"
+                + "example-1.0-SNAPSHOT.jar"));
+        assertEquals("org.example:example:jar:tests:1.0-SNAPSHOT", 
+            createCoordinates("org/example/example/1.0-SNAPSHOT/"
+                + "example-1.0-SNAPSHOT-tests.jar"));
+    }
+    
+    @Test
+    public void testCreateCoordinatesForTimestampedSnapshot()
+    {
+        assertEquals("org.example:example:jar:1.0-20200101.123456-1", 
+            createCoordinates("org/example/example/1.0-SNAPSHOT/"
+                + "example-1.0-20200101.123456-1.jar"));
+        assertEquals(
+            "org.example:example:jar:sources:1.0-20200101.123456-12", 
+            createCoordinates("org/example/example/1.0-SNAPSHOT/"
+                + "example-1.0-20200101.123456-12-sources.jar"));
+    }
+    
+    @Test
+    public void testCreateCoordinatesForInvalidLayout()
+    {
+        assertNull(LocalRepositories.createCoordinates(ROOT, 
+            Paths.get("other/org/example/example/1.0/example-1.0.jar")));
+        assertNull(createCoordinates("example/1.0/example-1.0.jar"));
+        assertNull(createCoordinates(
+            "org/example/example/1.0/example-2.0.jar"));
+        assertNull(createCoordinates(
+            "org/example/example/1.0/example-1.0-.jar"));
+        assertNull(createCoordinates("org/example/example/1.0-SNAPSHOT/"
+            + "example-1.0-20200101-1.jar"));
+        assertNull(createCoordinates("org/example/example/1.0-SNAPSHOT/"
+            + "example-1.0-20200101.123456-1x.jar"));
+    }
+    
+    /**
+     * Returns the coordinates for the given path, relative to the 
+     * {@link #ROOT}
+     * 
+     * @param relativePath The relative path
+     * @return The coordinates
+     */
+    private static String createCoordinates(String relativePath)
+    {
+        return LocalRepositories.createCoordinates(
+            ROOT, ROOT.resolve(relativePath));
+    }
+    
+    /**
+     * Create the {@link DependencyTreeNode} for the given path, relative 
+     * to the {@link #ROOT}
+     * 
+     * @param relativePath The relative path
+     * @return The {@link DependencyTreeNode}
+     */
+    private static DependencyTreeNode createDependencyTreeNode(
+        String relativePath)
+    {
+        return LocalRepositories.createDependencyTreeNode(
+            ROOT, ROOT.resolve(relativePath), new ArtifactInfoPool());
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import org.junit.Test;
+
+/**
+ * Tests for the {@link MappedZipScanner}
+ */
+public class MappedZipScannerTest
+{
+    /**
+     * The content of the stored entry in the JAR files that are created
+     * for the tests
+     */
+    private static final byte[] STORED_CONTENT = 
+        "The content of the stored entry".getBytes(StandardCharsets.UTF_8);
+    
+    @Test
+    public void testValidJar() throws IOException
+    {
+        assertValid(createJar(), ValidationTier.DEEP);
+    }
+    
+    @Test
+    public void testEmptyJar() throws IOException
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new JarOutputStream(baos).close();
+        assertValid(baos.toByteArray(), ValidationTier.DEEP);
+    }
+    
+    @Test
+    public void testTruncatedJar() throws IOException
+    {
+        byte[] bytes = createJar();
+        assertInvalid(
+            Arrays.copyOf(bytes, bytes.length / 2), ValidationTier.QUICK);
+    }
+    
+    @Test
+    public void testTruncatedCentralDirectory() throws IOException
+    {
+        byte[] bytes = createJar();
+        assertInvalid(
+            Arrays.copyOf(bytes, bytes.length - 30), ValidationTier.QUICK);
+    }
+    
+    @Test
+    public void testNoZipFile()
+    {
+        byte[] bytes = "This is not a ZIP file".getBytes(
+            StandardCharsets.UTF_8);
+        assertInvalid(bytes, ValidationTier.QUICK);
+        assertInvalid(new byte[0], ValidationTier.QUICK);
+    }
+    
+    @Test
+    public void testCorruptLocalHeader() throws IOException
+    {
+        byte[] bytes = createJar();
+        
+        // Destroy the signature of the first local file header
+        bytes[0] = 'X';
+        assertValid(bytes, ValidationTier.QUICK);
+        assertInvalid(bytes, ValidationTier.STRUCTURAL);
+    }
+    
+    @Test
+    public void testCorruptData() throws IOException
+    {
+        byte[] bytes = createJar();
+        int index = indexOf(bytes, STORED_CONTENT);
+        assertTrue(index >= 0);
+        bytes[index] ^= 0xFF;
+        assertValid(bytes, ValidationTier.STRUCTURAL);
+        assertInvalid(bytes, ValidationTier.DEEP);
+    }
+    
+    @Test
+    public void testPrependedData() throws IOException
+    {
+        byte[] jar = createJar();
+        byte[] prefix = "#!/bin/sh\nexit 0\n".getBytes(
+            StandardCharsets.UTF_8);
+        byte[] bytes = new byte[prefix.length + jar.length];
+        System.arraycopy(prefix, 0, bytes, 0, prefix.length);
+        System.arraycopy(jar, 0, bytes, prefix.length, jar.length);
+        assertValid(bytes, ValidationTier.DEEP);
+    }
+    
+    @Test
+    public void testZip64Jar() throws IOException
+    {
+        byte[] bytes = createZip64Jar();
+        assertValid(bytes, ValidationTier.DEEP);
+        assertInvalid(
+            Arrays.copyOf(bytes, bytes.length - 100), ValidationTier.QUICK);
+    }
+    
+    @Test
+    public void testInvalidCentralDirectorySize() throws IOException
+    {
+        byte[] bytes = createJar();
+        
+        // The central directory size in the End Of Central Directory 
+        // record, which is at the end of a file without comment
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(bytes.length - 22 + 12, 0xFFFFFFF0);
+        assertInvalid(bytes, ValidationTier.QUICK);
+    }
+    
+    @Test
+    public void testInvalidZip64Offsets() throws IOException
+    {
+        byte[] bytes = createZip64Jar();
+        
+        // The ZIP64 End Of Central Directory locator precedes the End Of
+        // Central Directory record, and contains the position of the 
+        // ZIP64 End Of Central Directory record
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int zip64EndPosition = (int)buffer.getLong(bytes.length - 22 - 20 + 8);
+        
+        byte[] invalidSize = bytes.clone();
+        ByteBuffer.wrap(invalidSize).order(ByteOrder.LITTLE_ENDIAN)
+            .putLong(zip64EndPosition + 40, Long.MAX_VALUE);
+        assertInvalid(invalidSize, ValidationTier.QUICK);
+        
+        // Values where computing the start of the central directory and 
+        // the length of the prepended data overflows, so that both would 
+        // appear to be valid when they are computed before the check
+        long centralSize = zip64EndPosition + 100L + (1L << 33);
+        byte[] invalidOffset = bytes.clone();
+        ByteBuffer.wrap(invalidOffset).order(ByteOrder.LITTLE_ENDIAN)
+            .putLong(zip64EndPosition + 40, centralSize)
+            .putLong(zip64EndPosition + 48, Long.MAX_VALUE);
+        assertInvalid(invalidOffset, ValidationTier.QUICK);
+    }
+    
+    /**
+     * Create a JAR file that contains a deflated and a stored entry
+     * 
+     * @return The bytes of the JAR file
+     * @throws IOException If an IO error occurs
+     */
+    private static byte[] createJar() throws IOException
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (JarOutputStream jos = new JarOutputStream(baos))
+        {
+            jos.putNextEntry(new JarEntry("deflated.txt"));
+            for (int i = 0; i < 100; i++)
+            {
+                jos.write(("Line " + i + "\n").getBytes(
+                    StandardCharsets.UTF_8));
+            }
+            jos.closeEntry();
+            
+            JarEntry storedEntry = new JarEntry("stored.txt");
+            CRC32 crc = new CRC32();
+            crc.update(STORED_CONTENT);
+            storedEntry.setMethod(ZipEntry.STORED);
+            storedEntry.setSize(STORED_CONTENT.length);
+            storedEntry.setCompressedSize(STORED_CONTENT.length);
+            storedEntry.setCrc(crc.getValue());
+            jos.putNextEntry(storedEntry);
+            jos.write(STORED_CONTENT);
+            jos.closeEntry();
+        }
+        return baos.toByteArray();
+    }
+    
+    /**
+     * Create a JAR file with more than 65535 entries, which requires the
+     * ZIP64 end records
+     * 
+     * @return The bytes of the JAR file
+     * @throws IOException If an IO error occurs
+     */
+    private static byte[] createZip64Jar() throws IOException
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (JarOutputStream jos = new JarOutputStream(baos))
+        {
+            for (int i = 0; i < 70000; i++)
+            {
+                jos.putNextEntry(new JarEntry("entry" + i));
+                jos.write(i);
+                jos.closeEntry();
+            }
+        }
+        return baos.toByteArray();
+    }
+    
+    /**
+     * Assert that the given bytes are a valid ZIP file for all tiers up
+     * to the given one
+     * 
+     * @param bytes The bytes
+     * @param validationTier The {@link ValidationTier}
+     */
+    private static void assertValid(
+        byte[] bytes, ValidationTier validationTier)
+    {
+        for (ValidationTier tier : ValidationTier.values())
+        {
+            if (tier.ordinal() <= validationTier.ordinal())
+            {
+                assertTrue("Expected to be valid for " + tier, 
+                    MappedZipScanner.isValidZip(ByteBuffer.wrap(bytes), tier));
+            }
+        }
+    }
+    
+    /**
+     * Assert that the given bytes are not a valid ZIP file for all tiers 
+     * starting at the given one
+     * 
+     * @param bytes The bytes
+     * @param validationTier The {@link ValidationTier}
+     */
+    private static void assertInvalid(
+        byte[] bytes, ValidationTier validationTier)
+    {
+        for (ValidationTier tier : ValidationTier.values())
+        {
+            if (tier.ordinal() >= validationTier.ordinal())
+            {
+                assertFalse("Expected to be invalid for " + tier, 
+                    MappedZipScanner.isValidZip(ByteBuffer.wrap(bytes), tier));
+            }
+        }
+    }
+    
+    /**
+     * Returns the index of the first occurrence of the given pattern in 
+     * the given array, or -1 if it is not found
+     * 
+     * @param array The array
+     * @param pattern The pattern
+     * @return The index
+     */
+    private static int indexOf(byte[] array, byte[] pattern)
+    {
+        for (int i = 0; i <= array.length - pattern.length; i++)
+        {
+            if (Arrays.equals(
+                Arrays.copyOfRange(array, i, i + pattern.length), pattern))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.apache.maven.settings.Settings;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the {@link MavenSettingsUtils}
+ */
+public class MavenSettingsUtilsTest
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    
+    @Test
+    public void testLocalRepository() throws IOException
+    {
+        Path settingsFile = writeSettings(
+            "<settings>"
+            + "<localRepository> /example/repository </localRepository>"
+            + "</settings>");
+        Settings settings = MavenSettingsUtils.readSettings(settingsFile);
+        assertEquals(Paths.get("/example/repository"), 
+            MavenSettingsUtils.getLocalRepositoryPath(settings));
+    }
+    
+    @Test
+    public void testSystemPropertyInLocalRepository() throws IOException
+    {
+        Path settingsFile = writeSettings(
+            "<settings>"
+            + "<localRepository>${user.home}/repository</localRepository>"
+            + "</settings>");
+        Settings settings = MavenSettingsUtils.readSettings(settingsFile);
+        assertEquals(
+            Paths.get(System.getProperty("user.home"), "repository"), 
+            MavenSettingsUtils.getLocalRepositoryPath(settings));
+    }
+    
+    @Test
+    public void testDefaultLocalRepository() throws IOException
+    {
+        Path settingsFile = writeSettings("<settings></settings>");
+        Settings settings = MavenSettingsUtils.readSettings(settingsFile);
+        assertEquals(DependencyUtils.getDefaultLocalRepositoryPath(), 
+            MavenSettingsUtils.getLocalRepositoryPath(settings));
+    }
+    
+    @Test
+    public void testMissingSettingsFile()
+    {
+        Path settingsFile = 
+            temporaryFolder.getRoot().toPath().resolve("missing.xml");
+        Settings settings = MavenSettingsUtils.readSettings(settingsFile);
+        assertNotNull(settings);
+        assertEquals(DependencyUtils.getDefaultLocalRepositoryPath(), 
+            MavenSettingsUtils.getLocalRepositoryPath(settings));
+    }
+    
+    @Test
+    public void testInvalidSettingsFile() throws IOException
+    {
+        Path settingsFile = writeSettings("<settings><localRepository>");
+        Settings settings = MavenSettingsUtils.readSettings(settingsFile);
+        assertNotNull(settings);
+        assertEquals(DependencyUtils.getDefaultLocalRepositoryPath(), 
+            MavenSettingsUtils.getLocalRepositoryPath(settings));
+    }
+    
+    /**
+     * Write a settings file with the given content
+     * 
+     * @param content The content
+     * @return The path of the file
+     * @throws IOException If an IO error occurs
+     */
+    private Path writeSettings(String content) throws IOException
+    {
+        Path path = temporaryFolder.newFile("settings.xml").toPath();
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+}
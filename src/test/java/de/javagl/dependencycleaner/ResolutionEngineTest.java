@@ -0,0 +1,74 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import static org.junit.Assert.assertEquals;
+
+import org.eclipse.aether.graph.Exclusion;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link ResolutionEngine}
+ */
+public class ResolutionEngineTest
+{
+    @Test
+    public void testCreateExclusion()
+    {
+        assertEquals(new Exclusion("org.example", "example", "*", "*"), 
+            ResolutionEngine.createExclusion("org.example:example"));
+        assertEquals(new Exclusion("*", "*", "*", "*"), 
+            ResolutionEngine.createExclusion("*:*"));
+    }
+    
+    @Test
+    public void testCreateExclusionWithoutArtifactId()
+    {
+        assertEquals(new Exclusion("org.example", "*", "*", "*"), 
+            ResolutionEngine.createExclusion("org.example"));
+        assertEquals(new Exclusion("*", "*", "*", "*"), 
+            ResolutionEngine.createExclusion("*"));
+    }
+    
+    @Test(expected = DependencyCleanerException.class)
+    public void testCreateExclusionWithEmptyArtifactId()
+    {
+        ResolutionEngine.createExclusion("org.example:");
+    }
+    
+    @Test(expected = DependencyCleanerException.class)
+    public void testCreateExclusionWithTooManyParts()
+    {
+        ResolutionEngine.createExclusion("org.example:example:jar");
+    }
+    
+    @Test(expected = DependencyCleanerException.class)
+    public void testCreateExclusionEmpty()
+    {
+        ResolutionEngine.createExclusion("");
+    }
+}
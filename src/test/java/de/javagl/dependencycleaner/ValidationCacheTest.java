@@ -0,0 +1,184 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the {@link ValidationCache}
+ */
+public class ValidationCacheTest
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    
+    /**
+     * The cache file
+     */
+    private Path cacheFile;
+    
+    /**
+     * The file whose validation result is cached
+     */
+    private Path file;
+    
+    @Before
+    public void setUp() throws IOException
+    {
+        Path root = temporaryFolder.getRoot().toPath();
+        cacheFile = root.resolve(".dependency-cleaner")
+            .resolve("validation-cache.bin");
+        file = root.resolve("example-1.0.jar");
+        Files.write(file, new byte[] { 1, 2, 3, 4 });
+    }
+    
+    @Test
+    public void testRoundTrip() throws IOException
+    {
+        ValidationCache cache = new ValidationCache(cacheFile, 1);
+        cache.put(file, readAttributes(), false, new ValidationResult(
+            ValidationStatus.INVALID, ValidationTier.STRUCTURAL, 
+            "invalid LOC header", 0));
+        cache.save();
+        
+        ValidationCache readCache = new ValidationCache(cacheFile, 1);
+        ValidationResult result = readCache.get(
+            file, readAttributes(), ValidationTier.DEEP, false);
+        assertNotNull(result);
+        assertEquals(ValidationStatus.INVALID, result.getValidationStatus());
+        assertEquals(ValidationTier.DEEP, result.getValidationTier());
+        assertEquals("invalid LOC header", result.getReason());
+    }
+    
+    @Test
+    public void testTiers() throws IOException
+    {
+        ValidationCache cache = new ValidationCache(cacheFile, 1);
+        cache.put(file, readAttributes(), false, new ValidationResult(
+            ValidationStatus.VALID, ValidationTier.STRUCTURAL));
+        
+        // A valid result applies to all tiers up to the cached one
+        assertNotNull(cache.get(
+            file, readAttributes(), ValidationTier.QUICK, false));
+        assertNotNull(cache.get(
+            file, readAttributes(), ValidationTier.STRUCTURAL, false));
+        assertNull(cache.get(
+            file, readAttributes(), ValidationTier.DEEP, false));
+        
+        // An invalid result applies to all tiers from the cached one
+        cache.put(file, readAttributes(), false, new ValidationResult(
+            ValidationStatus.INVALID, ValidationTier.STRUCTURAL));
+        assertNull(cache.get(
+            file, readAttributes(), ValidationTier.QUICK, false));
+        assertNotNull(cache.get(
+            file, readAttributes(), ValidationTier.STRUCTURAL, false));
+        assertNotNull(cache.get(
+            file, readAttributes(), ValidationTier.DEEP, false));
+    }
+    
+    @Test
+    public void testModifiedFile() throws IOException
+    {
+        ValidationCache cache = new ValidationCache(cacheFile, 1);
+        cache.put(file, readAttributes(), false, new ValidationResult(
+            ValidationStatus.VALID, ValidationTier.DEEP));
+        cache.save();
+        
+        Files.setLastModifiedTime(file, FileTime.fromMillis(
+            readAttributes().lastModifiedTime().toMillis() + 10000));
+        ValidationCache readCache = new ValidationCache(cacheFile, 1);
+        assertNull(readCache.get(
+            file, readAttributes(), ValidationTier.QUICK, false));
+    }
+    
+    @Test
+    public void testValidatorVersion() throws IOException
+    {
+        ValidationCache cache = new ValidationCache(cacheFile, 1);
+        cache.put(file, readAttributes(), false, new ValidationResult(
+            ValidationStatus.VALID, ValidationTier.DEEP));
+        cache.save();
+        
+        ValidationCache readCache = new ValidationCache(cacheFile, 2);
+        assertNull(readCache.get(
+            file, readAttributes(), ValidationTier.QUICK, false));
+    }
+    
+    @Test
+    public void testChecksumVerification() throws IOException
+    {
+        ValidationCache cache = new ValidationCache(cacheFile, 1);
+        cache.put(file, readAttributes(), false, new ValidationResult(
+            ValidationStatus.VALID, ValidationTier.DEEP));
+        assertNotNull(cache.get(
+            file, readAttributes(), ValidationTier.DEEP, false));
+        assertNull(cache.get(
+            file, readAttributes(), ValidationTier.DEEP, true));
+        
+        // A checksum mismatch is only reported if checksums are verified
+        cache.put(file, readAttributes(), true, new ValidationResult(
+            ValidationStatus.CHECKSUM_MISMATCH, ValidationTier.DEEP));
+        assertNotNull(cache.get(
+            file, readAttributes(), ValidationTier.DEEP, true));
+        assertNull(cache.get(
+            file, readAttributes(), ValidationTier.DEEP, false));
+    }
+    
+    @Test
+    public void testCorruptCacheFile() throws IOException
+    {
+        Files.createDirectories(cacheFile.getParent());
+        Files.write(cacheFile, new byte[] { 1, 2, 3 });
+        ValidationCache cache = new ValidationCache(cacheFile, 1);
+        assertNull(cache.get(
+            file, readAttributes(), ValidationTier.QUICK, false));
+    }
+    
+    /**
+     * Read the attributes of the {@link #file}
+     * 
+     * @return The attributes
+     * @throws IOException If an IO error occurs
+     */
+    private BasicFileAttributes readAttributes() throws IOException
+    {
+        return Files.readAttributes(file, BasicFileAttributes.class);
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * www.javagl.de - DependencyCleaner
+ *
+ * Copyright (c) 2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.dependencycleaner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+import java.util.jar.JarOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for the {@link ValidationEngine}
+ */
+public class ValidationEngineTest
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    
+    /**
+     * The engine that is tested
+     */
+    private ValidationEngine validationEngine;
+    
+    @Before
+    public void setUp()
+    {
+        ValidationOptions validationOptions = new ValidationOptions();
+        validationOptions.setParallelism(4);
+        validationEngine = new ValidationEngine(validationOptions, null);
+    }
+    
+    @After
+    public void tearDown()
+    {
+        validationEngine.shutdown();
+    }
+    
+    @Test
+    public void testValidateKeepsInputOrder() throws IOException
+    {
+        List<Path> paths = new ArrayList<Path>();
+        for (int i = 0; i < 20; i++)
+        {
+            if (i % 3 == 0)
+            {
+                paths.add(writeInvalidJar("invalid-" + i + ".jar"));
+            }
+            else
+            {
+                paths.add(writeValidJar("valid-" + i + ".jar"));
+            }
+        }
+        Collections.reverse(paths);
+        
+        Map<Path, ValidationResult> results = validationEngine.validate(paths);
+        assertEquals(paths, new ArrayList<Path>(results.keySet()));
+        for (Path path : paths)
+        {
+            ValidationStatus expected = 
+                path.getFileName().toString().startsWith("valid") ?
+                ValidationStatus.VALID : ValidationStatus.INVALID;
+            assertEquals(path.toString(), expected, 
+                results.get(path).getValidationStatus());
+        }
+    }
+    
+    @Test
+    public void testSubmit() throws IOException
+    {
+        Path valid = writeValidJar("valid.jar");
+        Path invalid = writeInvalidJar("invalid.jar");
+        CompletableFuture<ValidationResult> validFuture = 
+            validationEngine.submit(valid);
+        CompletableFuture<ValidationResult> invalidFuture = 
+            validationEngine.submit(invalid);
+        assertEquals(ValidationStatus.VALID, 
+            validFuture.join().getValidationStatus());
+        assertEquals(ValidationStatus.INVALID, 
+            invalidFuture.join().getValidationStatus());
+    }
+    
+    @Test
+    public void testValidateWithAndWithoutMemoryMapping() throws IOException
+    {
+        Path valid = writeValidJar("valid.jar");
+        Path invalid = writeInvalidJar("invalid.jar");
+        Path truncated = writeValidJar("truncated.jar");
+        byte[] bytes = Files.readAllBytes(truncated);
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 10));
+        List<Path> paths = Arrays.asList(valid, invalid, truncated);
+        
+        ValidationOptions validationOptions = new ValidationOptions();
+        validationOptions.setMemoryMapping(false);
+        ValidationEngine unmappedValidationEngine = 
+            new ValidationEngine(validationOptions, null);
+        try
+        {
+            Map<Path, ValidationResult> mappedResults = 
+                validationEngine.validate(paths);
+            Map<Path, ValidationResult> unmappedResults = 
+                unmappedValidationEngine.validate(paths);
+            assertEquals(Arrays.asList(ValidationStatus.VALID, 
+                ValidationStatus.INVALID, ValidationStatus.INVALID), 
+                getValidationStatuses(mappedResults));
+            assertEquals(getValidationStatuses(mappedResults), 
+                getValidationStatuses(unmappedResults));
+        }
+        finally
+        {
+            unmappedValidationEngine.shutdown();
+        }
+    }
+    
+    @Test
+    public void testValidateStoresResultsInCache() throws IOException
+    {
+        Path valid = writeValidJar("valid.jar");
+        Path invalid = writeInvalidJar("invalid.jar");
+        ValidationCache validationCache = new ValidationCache(
+            temporaryFolder.getRoot().toPath().resolve("cache.bin"), 1);
+        ValidationEngine cachingValidationEngine = 
+            new ValidationEngine(new ValidationOptions(), validationCache);
+        try
+        {
+            cachingValidationEngine.validate(Arrays.asList(valid, invalid));
+            assertEquals(ValidationStatus.VALID, validationCache.get(
+                valid, readAttributes(valid), ValidationTier.QUICK, false)
+                .getValidationStatus());
+            assertEquals(ValidationStatus.INVALID, validationCache.get(
+                invalid, readAttributes(invalid), ValidationTier.DEEP, false)
+                .getValidationStatus());
+        }
+        finally
+        {
+            cachingValidationEngine.shutdown();
+        }
+    }
+    
+    @Test
+    public void testValidateTamperedSignedJar() throws IOException
+    {
+        // Copy the signed JAR file, replacing the content of one entry, 
+        // so that it no longer matches its signature. Signatures are not 
+        // verified, so the file is only checked for its structure.
+        Path path = temporaryFolder.getRoot().toPath().resolve("signed.jar");
+        try (
+            JarInputStream jis = new JarInputStream(
+                getClass().getResourceAsStream("signed.jar"));
+            JarOutputStream jos = new JarOutputStream(
+                Files.newOutputStream(path), jis.getManifest()))
+        {
+            JarEntry entry = null;
+            while ((entry = jis.getNextJarEntry()) != null)
+            {
+                jos.putNextEntry(new JarEntry(entry.getName()));
+                if (entry.getName().equals("example.txt"))
+                {
+                    jos.write("Tampered content\n".getBytes(
+                        StandardCharsets.UTF_8));
+                }
+                else
+                {
+                    byte[] buffer = new byte[1024];
+                    int read = 0;
+                    while ((read = jis.read(buffer)) != -1)
+                    {
+                        jos.write(buffer, 0, read);
+                    }
+                }
+                jos.closeEntry();
+            }
+        }
+        for (boolean memoryMapping : new boolean[] { true, false })
+        {
+            ValidationOptions validationOptions = new ValidationOptions();
+            validationOptions.setMemoryMapping(memoryMapping);
+            validationOptions.setValidationTier(ValidationTier.DEEP);
+            ValidationEngine deepValidationEngine = 
+                new ValidationEngine(validationOptions, null);
+            try
+            {
+                ValidationResult result = deepValidationEngine.validate(
+                    Collections.singletonList(path)).get(path);
+                assertEquals("Memory mapping " + memoryMapping, 
+                    ValidationStatus.VALID, result.getValidationStatus());
+            }
+            finally
+            {
+                deepValidationEngine.shutdown();
+            }
+        }
+    }
+    
+    @Test
+    public void testValidateDoesNotCacheReadErrors() throws IOException
+    {
+        // A directory can not be read as a file
+        Path path = temporaryFolder.newFolder("directory.jar").toPath();
+        ValidationCache validationCache = new ValidationCache(
+            temporaryFolder.getRoot().toPath().resolve("cache.bin"), 1);
+        for (boolean memoryMapping : new boolean[] { true, false })
+        {
+            ValidationOptions validationOptions = new ValidationOptions();
+            validationOptions.setMemoryMapping(memoryMapping);
+            ValidationEngine cachingValidationEngine = 
+                new ValidationEngine(validationOptions, validationCache);
+            try
+            {
+                ValidationResult result = cachingValidationEngine.validate(
+                    Collections.singletonList(path)).get(path);
+                assertEquals(ValidationStatus.INVALID, 
+                    result.getValidationStatus());
+                assertNull(validationCache.get(path, readAttributes(path), 
+                    ValidationTier.DEEP, false));
+            }
+            finally
+            {
+                cachingValidationEngine.shutdown();
+            }
+        }
+    }
+    
+    @Test
+    public void testValidateChecksums() 
+        throws IOException, NoSuchAlgorithmException
+    {
+        // Checksum files may contain upper case hex digits
+        Path valid = writeValidJar("valid.jar");
+        byte[] digest = MessageDigest.getInstance("SHA-1").digest(
+            Files.readAllBytes(valid));
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest)
+        {
+            sb.append(String.format(Locale.ROOT, "%02X", b));
+        }
+        Files.write(Paths.get(valid + ".sha1"), 
+            (sb + "  valid.jar\n").getBytes(StandardCharsets.US_ASCII));
+        Path mismatch = writeValidJar("mismatch.jar");
+        Files.write(Paths.get(mismatch + ".sha1"), 
+            "0123456789abcdef0123456789abcdef01234567"
+                .getBytes(StandardCharsets.US_ASCII));
+        List<Path> paths = Arrays.asList(valid, mismatch);
+        for (boolean memoryMapping : new boolean[] { true, false })
+        {
+            ValidationOptions validationOptions = new ValidationOptions();
+            validationOptions.setMemoryMapping(memoryMapping);
+            validationOptions.setVerifyChecksums(true);
+            ValidationEngine checkingValidationEngine = 
+                new ValidationEngine(validationOptions, null);
+            try
+            {
+                assertEquals(Arrays.asList(ValidationStatus.VALID, 
+                    ValidationStatus.CHECKSUM_MISMATCH), 
+                    getValidationStatuses(
+                        checkingValidationEngine.validate(paths)));
+            }
+            finally
+            {
+                checkingValidationEngine.shutdown();
+            }
+        }
+    }
+    
+    @Test
+    public void testValidateEmpty()
+    {
+        List<Path> paths = Collections.emptyList();
+        assertTrue(validationEngine.validate(paths).isEmpty());
+    }
+    
+    /**
+     * Returns the {@link ValidationStatus} values of the given results
+     * 
+     * @param results The results
+     * @return The {@link ValidationStatus} values
+     */
+    private static List<ValidationStatus> getValidationStatuses(
+        Map<Path, ValidationResult> results)
+    {
+        List<ValidationStatus> validationStatuses = 
+            new ArrayList<ValidationStatus>();
+        for (ValidationResult result : results.values())
+        {
+            validationStatuses.add(result.getValidationStatus());
+        }
+        return validationStatuses;
+    }
+    
+    /**
+     * Read the attributes of the given file
+     * 
+     * @param path The path
+     * @return The attributes
+     * @throws IOException If an IO error occurs
+     */
+    private static BasicFileAttributes readAttributes(Path path) 
+        throws IOException
+    {
+        return Files.readAttributes(path, BasicFileAttributes.class);
+    }
+    
+    /**
+     * Write a valid JAR file with the given name into the temporary folder
+     * 
+     * @param fileName The file name
+     * @return The path of the file
+     * @throws IOException If an IO error occurs
+     */
+    private Path writeValidJar(String fileName) throws IOException
+    {
+        Path path = temporaryFolder.getRoot().toPath().resolve(fileName);
+        try (JarOutputStream jos = 
+            new JarOutputStream(Files.newOutputStream(path)))
+        {
+            jos.putNextEntry(new JarEntry("example.txt"));
+            jos.write(fileName.getBytes(StandardCharsets.UTF_8));
+            jos.closeEntry();
+        }
+        return path;
+    }
+    
+    /**
+     * Write a file with the given name into the temporary folder that is 
+     * not a valid JAR file
+     * 
+     * @param fileName The file name
+     * @return The path of the file
+     * @throws IOException If an IO error occurs
+     */
+    private Path writeInvalidJar(String fileName) throws IOException
+    {
+        Path path = temporaryFolder.getRoot().toPath().resolve(fileName);
+        Files.write(path, fileName.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+}